@@ -17,7 +17,8 @@ application {
 		"-XX:+UseZGC", // Use Z Garbage Collector
 		"-XX:+ZGenerational", // Enable Generational ZGC (Java 21+)
 		"-XX:TieredStopAtLevel=1", // Reduce JIT compilation overhead
-		"--enable-preview" // Enable Java preview features
+		"--enable-preview", // Enable Java preview features
+		"--add-modules=jdk.incubator.vector" // Vector API (profanity prefilter)
 	)
 }
 
@@ -80,8 +81,30 @@ dependencies {
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
+tasks.withType<JavaCompile> {
+	options.compilerArgs.add("--add-modules=jdk.incubator.vector")
+}
+
 tasks.withType<Test> {
-	useJUnitPlatform()
+	jvmArgs("--add-modules=jdk.incubator.vector")
+}
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark")
+	}
+}
+
+// Throughput benchmarks (@Tag("benchmark")), kept out of the regular test run: ./gradlew benchmark
+tasks.register<Test>("benchmark") {
+	description = "Runs the benchmark tests."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+	shouldRunAfter(tasks.test)
 }
 
 tasks.named<JavaExec>("run") { // "run" is the default task name for application plugin
@@ -91,7 +114,10 @@ tasks.named<JavaExec>("run") { // "run" is the default task name for application
 // Enable Layered JARs
 tasks.withType<org.springframework.boot.gradle.tasks.bundling.BootJar> {
 	archiveFileName.set("csw-app.jar") // Set custom JAR name
-	launchScript() // Makes the JAR executable
+	launchScript { // Makes the JAR executable
+		// The launch script doesn't see applicationDefaultJvmArgs; launch.conf adds the Vector API module
+		properties(mapOf("inlinedConfScript" to file("src/main/boot/launch.conf").absolutePath))
+	}
 	layered { // Enables Layered JAR
 		includeTools = true
 	}
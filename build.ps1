@@ -2,7 +2,7 @@
 $BUILD_DIR = "build/libs"
 $JAR_NAME = "csw-app.jar"
 $MAIN_CLASS = "csw.youtube.chat.Application"
-$JAVA_OPTS = "-Xms2G -Xmx8G -XX:+UseZGC -XX:+ZGenerational -XX:TieredStopAtLevel=1 -Dspring.profiles.active=prod"
+$JAVA_OPTS = "-Xms2G -Xmx8G -XX:+UseZGC -XX:+ZGenerational -XX:TieredStopAtLevel=1 --add-modules=jdk.incubator.vector -Dspring.profiles.active=prod"
 
 Get-Process | Where-Object { $_.Path -like "*csw-app.jar*" } | Stop-Process -Force
 Remove-Item -Recurse -Force "D:\Dev\Java\youtube.chat\build" -ErrorAction SilentlyContinue
@@ -146,16 +146,45 @@ impl CircuitBreaker {
 #[derive(Parser)]
 struct Args {
     #[arg(long)]
-    video_id: String,
+    video_id: Option<String>,
 
     #[arg(long, default_value = "")]
     skip_langs: String,
+
+    /// Host many videos in one browser, controlled over stdin (see `run_multiplex`)
+    #[arg(long)]
+    multiplex: bool,
+
+    /// Launch the browser first, print `ready`, then read `<videoId> [skipLangs]` from stdin
+    #[arg(long)]
+    standby: bool,
 }
 
 #[tokio::main]
 async fn main() -> anyhow::Result<()> {
     let args = Args::parse();
     let client = Client::new();
+
+    if args.multiplex {
+        return run_multiplex(client).await;
+    }
+
+    // In standby the browser is already up by the time Java hands over a video
+    let (video_id, skip_langs_arg, prelaunched) = if args.standby {
+        let browser = launch_browser().await?;
+        eprintln!("ready"); // for java
+        match read_standby_assignment().await? {
+            Some((video_id, skip_langs)) => (video_id, skip_langs, Some(browser)),
+            None => return Ok(()), // Java retired us before assigning a video
+        }
+    } else {
+        let video_id = args
+            .video_id
+            .clone()
+            .context("--video-id is required unless --multiplex or --standby is set")?;
+        (video_id, args.skip_langs.clone(), None)
+    };
+
     let created_at = Utc::now().to_rfc3339();
     let total_messages = Arc::new(AtomicUsize::new(0)); // assert_eq!(usize::MAX, 18446744073709551615);
     let is_running = Arc::new(AtomicBool::new(true));
@@ -166,10 +195,9 @@ async fn main() -> anyhow::Result<()> {
 
     tokio::spawn(handle_signals(Arc::clone(&is_running)));
 
-    eprintln!("💻 Starting scraper for video: {}", args.video_id);
+    eprintln!("💻 Starting scraper for video: {}", video_id);
 
-    let skip_langs: Vec<&str> = args
-        .skip_langs
+    let skip_langs: Vec<&str> = skip_langs_arg
         .split(',')
         .filter(|s| !s.is_empty())
         .collect();
@@ -177,7 +205,7 @@ async fn main() -> anyhow::Result<()> {
     // First set to IDLE
     send_metrics(
         &client,
-        &args.video_id,
+        &video_id,
         &skip_langs,
         ScraperStatus::Idle,
         &created_at,
@@ -192,7 +220,8 @@ async fn main() -> anyhow::Result<()> {
 
     // Run main logic
     let scrape_result = scraper_main_logic(
-        &args,
+        prelaunched,
+        &video_id,
         &client,
         &created_at,
         Arc::clone(&total_messages),
@@ -206,7 +235,7 @@ async fn main() -> anyhow::Result<()> {
         // Notify Java backend about scraper failure.
         let _ = send_metrics(
             &client,
-            &args.video_id,
+            &video_id,
             &[],
             ScraperStatus::Failed,
             &created_at,
@@ -224,22 +253,91 @@ async fn main() -> anyhow::Result<()> {
 }
 
 async fn scraper_main_logic(
-    args: &Args,
+    prelaunched: Option<Browser>,
+    video_id: &str,
     client: &Client,
     created_at: &str,
     total_messages: Arc<AtomicUsize>,
     is_running: Arc<AtomicBool>,
 ) -> anyhow::Result<()> {
-    let (mut browser, mut handler) = Browser::launch(config_browser()).await?;
+    let mut browser = match prelaunched {
+        Some(browser) => browser,
+        None => launch_browser().await?,
+    };
+
+    let result = scrape_video(
+        &browser,
+        video_id,
+        client,
+        created_at,
+        total_messages,
+        is_running,
+        &AtomicBool::new(false),
+        "",
+    )
+    .await;
+
+    browser.close().await.ok();
+    browser.kill().await.unwrap().ok();
+
+    result
+}
+
+async fn launch_browser() -> anyhow::Result<Browser> {
+    let (browser, mut handler) = Browser::launch(config_browser()).await?;
     tokio::spawn(async move { while handler.next().await.is_some() {} });
+    Ok(browser)
+}
+
+/// Waits for `<videoId> [skipLangs]` on stdin. `None` if stdin closed first.
+/// Reads byte by byte so nothing after the first line is buffered away from `handle_signals`.
+async fn read_standby_assignment() -> anyhow::Result<Option<(String, String)>> {
+    use tokio::io::{self, AsyncReadExt};
+
+    let mut stdin = io::stdin();
+    let mut line = Vec::new();
+    let mut byte = [0u8; 1];
+    loop {
+        if stdin.read(&mut byte).await? == 0 {
+            return Ok(None);
+        }
+        if byte[0] == b'\n' {
+            break;
+        }
+        line.push(byte[0]);
+    }
 
+    let line = String::from_utf8(line)?;
+    let mut parts = line.split_whitespace();
+    match parts.next() {
+        Some(video_id) if video_id != "p" => Ok(Some((
+            video_id.to_string(),
+            parts.next().unwrap_or("").to_string(),
+        ))),
+        _ => Ok(None),
+    }
+}
+
+/// Scrapes one video in its own tabs of an already running browser.
+/// `tag` prefixes the lines Java reacts to (empty when the process hosts a single video).
+/// A video stopped with `moved` set is being taken over by another host, so it skips its COMPLETED metrics.
+async fn scrape_video(
+    browser: &Browser,
+    video_id: &str,
+    client: &Client,
+    created_at: &str,
+    total_messages: Arc<AtomicUsize>,
+    is_running: Arc<AtomicBool>,
+    moved: &AtomicBool,
+    tag: &str,
+) -> anyhow::Result<()> {
     // Add a HashMap to track message counts by username
     let chatter_counts = Arc::new(Mutex::new(HashMap::<String, usize>::default()));
     // Add a collection to track recent donations (limited to 10)
     let recent_donations = Arc::new(Mutex::new(Vec::<RecentDonator>::with_capacity(10)));
 
     let page = browser
-        .new_page(format!("https://www.youtube.com/watch?v={}", args.video_id))
+        .new_page(format!("https://www.youtube.com/watch?v={}", video_id))
         .await?;
     page.wait_for_navigation_response().await?;
 
@@ -293,22 +391,23 @@ async fn scraper_main_logic(
 
     iframe_page.evaluate(js_scripts::CHAT_OBSERVER).await?; // also checking donation
 
+    // Not 0: a video moved here from another host carries on with its total
     send_metrics(
         &client,
-        &args.video_id,
+        video_id,
         &[],
         ScraperStatus::Running,
         &created_at,
         Some(&video_title),
         Some(&channel_name),
         0,
-        0,
+        total_messages.load(Ordering::Relaxed),
         None,
         None,
     )
     .await?;
 
-    eprintln!("initiated"); // for java
+    eprintln!("{}initiated", tag); // for java
 
     // If there's no activity for 30 mins, it's probably over
     let inactivity_limit = Duration::from_secs(30 * 60); // 30 minutes
@@ -364,7 +463,7 @@ async fn scraper_main_logic(
             // Fire and forget - don't wait for result if not needed
             tokio::spawn({
                 let client = client.clone();
-                let video_id = args.video_id.clone();
+                let video_id = video_id.to_string();
                 let batch_clone = batch.clone(); // Only clone when needed
                 async move {
                     let _ = send_messages_to_backend(&client, &video_id, &batch_clone).await;
@@ -399,7 +498,7 @@ async fn scraper_main_logic(
 
         let result = send_metrics(
             &client,
-            &args.video_id,
+            video_id,
             &[],
             ScraperStatus::Running,
             &created_at,
@@ -426,7 +525,7 @@ async fn scraper_main_logic(
             // eprintln!("⚠️ send_metrics failed (attempt {}): {}", retries, e);
 
             if retries >= max_retries {
-                eprintln!("❌ Maximum retries reached, stopping scraper...");
+                eprintln!("{}❌ Maximum retries reached, stopping scraper...", tag);
                 is_running.store(false, Ordering::SeqCst);
                 break;
             }
@@ -492,77 +591,266 @@ async fn scraper_main_logic(
         sleep(sleep_duration).await;
     }
 
-    // Include top chatters in final metrics
-    let top_chatters = get_top_chatters(&chatter_counts, 5).await;
-    let recent_donations = get_recent_donators(&recent_donations).await;
-    send_metrics(
-        &client,
-        &args.video_id,
-        &[],
-        ScraperStatus::Completed,
-        &created_at,
-        Some(&video_title),
-        Some(&channel_name),
-        0,
-        total_messages.load(Ordering::SeqCst),
-        Some(&top_chatters),
-        Some(&recent_donations),
-    )
-    .await?;
+    if !moved.load(Ordering::SeqCst) {
+        // Include top chatters in final metrics
+        let top_chatters = get_top_chatters(&chatter_counts, 5).await;
+        let recent_donations = get_recent_donators(&recent_donations).await;
+        send_metrics(
+            &client,
+            video_id,
+            &[],
+            ScraperStatus::Completed,
+            &created_at,
+            Some(&video_title),
+            Some(&channel_name),
+            0,
+            total_messages.load(Ordering::SeqCst),
+            Some(&top_chatters),
+            Some(&recent_donations),
+        )
+        .await?;
+    }
 
     iframe_page.close().await.ok();
-    browser.close().await.ok();
-    browser.kill().await.unwrap().ok();
 
     Ok(())
 }
 
+/// Hosts many videos in one long-lived browser, one pair of tabs per video.
+///
+/// Commands on stdin, one per line:
+/// - `add <videoId> [skipLangs]` starts scraping a video
+/// - `add <videoId> [skipLangs] moving <totalMessages> <createdAt>` takes over a video from another host,
+///   without the initial IDLE metrics and counting on from its total
+/// - `remove <videoId>` stops it after its final metrics were sent
+/// - `remove <videoId> moving` stops it without final metrics, as another host takes it over
+/// - `p` (or closing stdin), SIGTERM or SIGINT stops every video and exits
+///
+/// Lines about a video are prefixed with `[<videoId>] ` so Java can route them;
+/// `[<videoId>] finished` is printed once a video's task is over for any reason.
+async fn run_multiplex(client: Client) -> anyhow::Result<()> {
+    use tokio::io::{self, AsyncBufReadExt, BufReader};
+
+    let browser = Arc::new(launch_browser().await?);
+
+    // videoId -> (is_running, moved, task)
+    let mut videos = HashMap::<
+        String,
+        (Arc<AtomicBool>, Arc<AtomicBool>, tokio::task::JoinHandle<()>),
+    >::default();
+    let (done_tx, mut done_rx) = tokio::sync::mpsc::unbounded_channel::<String>();
+
+    // stdin carries commands here, so only OS signals are watched
+    let shutdown = Arc::new(tokio::sync::Notify::new());
+    tokio::spawn({
+        let shutdown = Arc::clone(&shutdown);
+        async move {
+            wait_for_os_signal().await;
+            shutdown.notify_one();
+        }
+    });
+
+    eprintln!("ready"); // for java
+
+    let mut stdin = BufReader::new(io::stdin()).lines();
+    loop {
+        tokio::select! {
+            line = stdin.next_line() => {
+                // Closed stdin means Java is gone
+                let Ok(Some(line)) = line else { break };
+                let mut parts = line.split_whitespace();
+                match (parts.next(), parts.next()) {
+                    (Some("add"), Some(video_id)) => {
+                        if videos.contains_key(video_id) {
+                            continue;
+                        }
+                        let (skip_langs, resume) = parse_add_args(&parts.collect::<Vec<_>>());
+                        let is_running = Arc::new(AtomicBool::new(true));
+                        let moved = Arc::new(AtomicBool::new(false));
+                        let task = tokio::spawn(run_hosted_video(
+                            Arc::clone(&browser),
+                            client.clone(),
+                            video_id.to_string(),
+                            skip_langs,
+                            resume,
+                            Arc::clone(&is_running),
+                            Arc::clone(&moved),
+                            done_tx.clone(),
+                        ));
+                        videos.insert(video_id.to_string(), (is_running, moved, task));
+                    }
+                    (Some("remove"), Some(video_id)) => {
+                        if let Some((is_running, moved, _)) = videos.get(video_id) {
+                            moved.store(parts.next() == Some("moving"), Ordering::SeqCst);
+                            is_running.store(false, Ordering::SeqCst);
+                        }
+                    }
+                    (Some("p"), _) => break,
+                    _ => eprintln!("⚠️ Unknown command: {}", line),
+                }
+            }
+            Some(video_id) = done_rx.recv() => {
+                videos.remove(&video_id);
+                eprintln!("[{}] finished", video_id);
+            }
+            _ = shutdown.notified() => {
+                #[cfg(debug_assertions)]
+                println!("Graceful shutdown triggered");
+                break;
+            }
+        }
+    }
+
+    // Let every video send its final metrics before the browser goes away
+    for (is_running, _, _) in videos.values() {
+        is_running.store(false, Ordering::SeqCst);
+    }
+    for (_, (_, _, task)) in videos.drain() {
+        let _ = task.await;
+    }
+
+    if let Ok(mut browser) = Arc::try_unwrap(browser) {
+        browser.close().await.ok();
+        browser.kill().await;
+    }
+
+    Ok(())
+}
+
+/// Where a video moved from another host left off.
+struct Resume {
+    total_messages: usize,
+    created_at: String,
+}
+
+/// Splits what follows `add <videoId>` into the skipped languages and, for a moved video, its `Resume`.
+fn parse_add_args(args: &[&str]) -> (String, Option<Resume>) {
+    let Some(moving) = args.iter().position(|arg| *arg == "moving") else {
+        return (args.first().copied().unwrap_or("").to_string(), None);
+    };
+    let skip_langs = args[..moving].first().copied().unwrap_or("").to_string();
+    let total_messages = args.get(moving + 1).and_then(|total| total.parse().ok());
+    let resume = match (total_messages, args.get(moving + 2)) {
+        (Some(total_messages), Some(created_at)) => Some(Resume {
+            total_messages,
+            created_at: created_at.to_string(),
+        }),
+        _ => None,
+    };
+    (skip_langs, resume)
+}
+
+async fn run_hosted_video(
+    browser: Arc<Browser>,
+    client: Client,
+    video_id: String,
+    skip_langs: String,
+    resume: Option<Resume>,
+    is_running: Arc<AtomicBool>,
+    moved: Arc<AtomicBool>,
+    done: tokio::sync::mpsc::UnboundedSender<String>,
+) {
+    let tag = format!("[{}] ", video_id);
+    let skip_langs: Vec<&str> = skip_langs.split(',').filter(|s| !s.is_empty()).collect();
+    let (created_at, total_messages) = match &resume {
+        Some(resume) => (resume.created_at.clone(), resume.total_messages),
+        None => (Utc::now().to_rfc3339(), 0),
+    };
+    let total_messages = Arc::new(AtomicUsize::new(total_messages));
+
+    let result = async {
+        // A moved video is still RUNNING as far as Java knows; reporting IDLE would reset it
+        if resume.is_none() {
+            send_metrics(
+                &client,
+                &video_id,
+                &skip_langs,
+                ScraperStatus::Idle,
+                &created_at,
+                None,
+                None,
+                0,
+                0,
+                None,
+                None,
+            )
+            .await?;
+        }
+        scrape_video(
+            &browser,
+            &video_id,
+            &client,
+            &created_at,
+            Arc::clone(&total_messages),
+            is_running,
+            &moved,
+            &tag,
+        )
+        .await
+    }
+    .await;
+
+    if result.is_err() {
+        eprintln!("{}❌ Scraper encountered an error", tag);
+        let _ = send_metrics(
+            &client,
+            &video_id,
+            &[],
+            ScraperStatus::Failed,
+            &created_at,
+            None,
+            None,
+            0,
+            total_messages.load(Ordering::SeqCst),
+            None,
+            None,
+        )
+        .await;
+    }
+
+    let _ = done.send(video_id);
+}
+
 async fn handle_signals(is_running: Arc<AtomicBool>) {
-    wait_for_signal().await;
+    use tokio::io::{self, AsyncBufReadExt, BufReader};
+
+    let mut stdin = BufReader::new(io::stdin()).lines();
+
+    tokio::select! {
+        _ = stdin.next_line() => { // Detect Java killing Rust by closing `stdin`
+            #[cfg(debug_assertions)]
+            println!("Detected parent process exit. Shutting down...");
+        }
+        _ = wait_for_os_signal() => {}
+    };
     is_running.store(false, Ordering::SeqCst);
     #[cfg(debug_assertions)]
     println!("Graceful shutdown triggered");
 }
 
 #[cfg(unix)]
-async fn wait_for_signal() {
-    use tokio::io::{self, AsyncBufReadExt, BufReader};
+async fn wait_for_os_signal() {
     use tokio::signal::unix::{SignalKind, signal};
 
     let mut signal_terminate = signal(SignalKind::terminate()).unwrap();
     let mut signal_interrupt = signal(SignalKind::interrupt()).unwrap();
 
-    let mut stdin = BufReader::new(io::stdin()).lines();
-
     tokio::select! {
-        _ = stdin.next_line() => {
-            #[cfg(debug_assertions)]
-            println!("Detected parent process exit. Shutting down...");
-        }
         _ = signal_terminate.recv() => println!("Received SIGTERM."),
         _ = signal_interrupt.recv() => println!("Received SIGINT."),
     };
 }
 
 #[cfg(windows)]
-async fn wait_for_signal() {
-    use tokio::{
-        io::{self, AsyncBufReadExt, BufReader},
-        signal::windows,
-    };
+async fn wait_for_os_signal() {
+    use tokio::signal::windows;
 
     let mut signal_c = windows::ctrl_c().unwrap();
     let mut signal_break = windows::ctrl_break().unwrap();
     let mut signal_close = windows::ctrl_close().unwrap();
     let mut signal_shutdown = windows::ctrl_shutdown().unwrap();
 
-    let mut stdin = BufReader::new(io::stdin()).lines();
-
     tokio::select! {
-        _ = stdin.next_line() => { // Detect Java killing Rust by closing `stdin`
-            #[cfg(debug_assertions)]
-            println!("Detected parent process exit. Shutting down...");
-        }
         _ = signal_c.recv() => println!("Received CTRL_C."),
         _ = signal_break.recv() => println!("Received CTRL_BREAK."),
         _ = signal_close.recv() => println!("Received CTRL_CLOSE."),
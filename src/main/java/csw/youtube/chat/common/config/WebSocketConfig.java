@@ -1,18 +1,30 @@
 package csw.youtube.chat.common.config;
 
+import csw.youtube.chat.common.config.security.StompSubscriptionGuard;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @RequiredArgsConstructor
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private final TaskScheduler taskScheduler;
+    private final StompSubscriptionGuard subscriptionGuard;
+
+    // Per-session outbound buffer: a subscriber that can't keep up (e.g. a moderator during a raid) is
+    // disconnected once this much is queued for it, or once a send has been blocked this long
+    @Value("${websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -33,5 +45,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(subscriptionGuard);
+    }
 
-}
\ No newline at end of file
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs);
+    }
+}
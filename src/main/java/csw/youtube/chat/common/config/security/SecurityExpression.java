@@ -3,6 +3,7 @@ package csw.youtube.chat.common.config.security;
 import csw.youtube.chat.user.model.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
 @RequiredArgsConstructor
@@ -16,8 +17,13 @@ public class SecurityExpression {
         if (authentication == null) {
             return false;
         }
-        User principalUser = (User) authentication.getPrincipal();
-        String roleName = principalUser.getRole().name();
+        String roleName = null;
+        if (authentication.getPrincipal() instanceof User user) {
+            roleName = user.getRole().name();
+        } else if (authentication.getPrincipal() instanceof Jwt jwt) {
+            // Bearer tokens from OAuth2SuccessHandler carry the role name in the "roles" claim
+            roleName = jwt.getClaimAsString("roles");
+        }
         return "ADMIN".equals(roleName) || "MANAGER".equals(roleName);
     }
 
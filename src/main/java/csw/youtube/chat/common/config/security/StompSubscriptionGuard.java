@@ -0,0 +1,37 @@
+package csw.youtube.chat.common.config.security;
+
+import csw.youtube.chat.profanity.service.ModerationFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Only lets admins and managers subscribe to the moderation feed; chat destinations stay open.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompSubscriptionGuard implements ChannelInterceptor {
+    private final SecurityExpression securityExpression;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+        String destination = accessor.getDestination();
+        if (destination != null && destination.startsWith(ModerationFeedService.DESTINATION_PREFIX)
+                && !(accessor.getUser() instanceof Authentication authentication
+                && securityExpression.isAdminOrManager(authentication))) {
+            throw new AccessDeniedException("Moderation feed requires an admin or manager");
+        }
+        return message;
+    }
+}
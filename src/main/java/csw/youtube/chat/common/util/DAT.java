@@ -1,47 +1,96 @@
 package csw.youtube.chat.common.util;
 
 
-import lombok.Getter;
-import lombok.Setter;
-
-import java.io.*;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
  * An implementation of Aho-Corasick algorithm based on Double Array Trie
+ * <p>
+ * Transitions are indexed by a dense character code rather than the raw UTF-16 value: only characters that
+ * occur in the dictionary get a code (1 to alphabet size, in char order), so a Hangul word list packs into
+ * arrays sized by the dictionary instead of by the code range. A character outside the alphabet can't
+ * continue any match and sends the automaton back to the root.
+ * <p>
+ * The arrays are held as {@link MemorySegment}s, backed by heap arrays after {@link #build(Map)} or by a
+ * memory-mapped file after {@link #mapImage(Path, long)}, so a prebuilt image is searched in place.
  *
  * @param <V> the value type
  */
-public class DAT<V> implements Serializable {
-    @Serial
-    private static final long serialVersionUID = 2L;
+public class DAT<V> {
+    /**
+     * Version of the image format written by {@link #writeImage(Path, long)}
+     */
+    public static final int IMAGE_VERSION = 1;
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+    private static final int MAX_ARRAY_SIZE = (int) (Integer.MAX_VALUE * 0.95);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+    private static final ValueLayout.OfChar CHAR = ValueLayout.JAVA_CHAR;
 
+    // Image header: magic, version, byte order marker, key count, alphabet size, array size, state count,
+    // value chars, dictionary checksum; the sections follow at HEADER_BYTES
+    private static final int IMAGE_MAGIC = 0x44415449; // "DATI"
+    private static final int BYTE_ORDER_MARKER = 0x01020304;
+    private static final int HEADER_BYTES = 64;
+
+    /**
+     * Dense code of each dictionary character, in pages of 256 chars; pages without any dictionary
+     * character are null
+     */
+    private char[][] codePages;
+    /**
+     * Number of distinct characters in the dictionary
+     */
+    private int alphabetSize;
     /**
      * Check array of the Double Array Trie structure
      */
-    private int[] check;
+    private MemorySegment check;
     /**
      * Base array of the Double Array Trie structure
      */
-    private int[] base;
+    private MemorySegment base;
     /**
      * Fail table of the Aho-Corasick automaton
      */
-    private int[] fail;
+    private MemorySegment fail;
+    /**
+     * Index of the key ending exactly at each state, or -1
+     */
+    private MemorySegment outputKey;
     /**
-     * Output table of the Aho-Corasick automaton
+     * Output table of the Aho-Corasick automaton: the state itself if a key ends there, otherwise the
+     * nearest state on its fail chain where one does, or -1
      */
-    private int[][] output;
+    private MemorySegment outputLink;
     /**
-     * Outer value array
+     * Outer value array; for a mapped image it caches values decoded from {@link #valueChars}
      */
     private V[] values;
     /**
      * The length of each key
      */
-    private int[] lengths;
+    private MemorySegment lengths;
+    /**
+     * Char offset of each value in {@link #valueChars}, plus the end offset (mapped images only)
+     */
+    private MemorySegment valueOffsets;
+    /**
+     * UTF-16 text of the values (mapped images only)
+     */
+    private MemorySegment valueChars;
     /**
-     * The size of base and check arrays
+     * The number of states, including unused slots between them
      */
     private int size;
 
@@ -88,18 +137,16 @@ public class DAT<V> implements Serializable {
         List<Hit<V>> collectedEmits = new ArrayList<>();
         int currentState = 0;
         for (int position = 0; position < text.length(); ++position) {
-            currentState = getState(currentState, text.charAt(position));
-            int[] hitArray = output[currentState];
-            if (hitArray != null) {
-                for (int hit : hitArray) {
-                    int begin = position + 1 - lengths[hit];
-                    int end = position + 1;
-                    V value = values[hit];
-                    if (!processor.hit(begin, end, value)) {
-                        return collectedEmits;
-                    }
-                    collectedEmits.add(new Hit<>(begin, end, value));
+            currentState = getState(currentState, code(text.charAt(position)));
+            for (int state = outputLink(currentState); state != -1; state = outputLink(fail(state))) {
+                int hit = outputKey.getAtIndex(INT, state);
+                int begin = position + 1 - lengths.getAtIndex(INT, hit);
+                int end = position + 1;
+                V value = get(hit);
+                if (!processor.hit(begin, end, value)) {
+                    return collectedEmits;
                 }
+                collectedEmits.add(new Hit<>(begin, end, value));
             }
         }
         return collectedEmits;
@@ -122,50 +169,204 @@ public class DAT<V> implements Serializable {
      * @return first match or {@code null} if there are no matches
      */
     public Hit<V> findFirst(CharSequence text) {
+        return findFirst(text, 0);
+    }
+
+    /**
+     * Search for the first match that starts at or after {@code from}
+     *
+     * @param text source text to check
+     * @param from index to start matching at
+     * @return first match or {@code null} if there are no matches
+     */
+    public Hit<V> findFirst(CharSequence text, int from) {
         int currentState = 0;
         int textLength = text.length();
 
-        for (int position = 0; position < textLength; ++position) {
-            currentState = getState(currentState, text.charAt(position));
-            int[] hitArray = output[currentState];
-            if (hitArray != null) {
-                int hitIndex = hitArray[0];
-                return new Hit<>(position + 1 - lengths[hitIndex], position + 1, values[hitIndex]);
+        for (int position = from; position < textLength; ++position) {
+            currentState = getState(currentState, code(text.charAt(position)));
+            int state = outputLink(currentState);
+            if (state != -1) {
+                int hitIndex = outputKey.getAtIndex(INT, state);
+                return new Hit<>(position + 1 - lengths.getAtIndex(INT, hitIndex), position + 1, get(hitIndex));
             }
         }
         return null;
     }
 
     /**
-     * Save the trie to an ObjectOutputStream
+     * Copy the text into {@code out} with every match replaced by {@code maskChar}, in the same pass that
+     * finds the matches. Overlapping and nested matches are masked as their union.
      *
-     * @param out An ObjectOutputStream object
-     * @throws IOException Some IOException
+     * @param text     source text
+     * @param from     index to start matching at; the text before it is copied as is
+     * @param out      buffer of at least {@code text.length()} chars
+     * @param maskChar replacement character
+     * @return the number of positions where a match ended, 0 if {@code out} is an exact copy
      */
-    public void save(ObjectOutputStream out) throws IOException {
-        out.writeObject(base);
-        out.writeObject(check);
-        out.writeObject(fail);
-        out.writeObject(output);
-        out.writeObject(lengths);
-        out.writeObject(values);
+    public int mask(CharSequence text, int from, char[] out, char maskChar) {
+        return mask(text, from, out, maskChar, null);
     }
 
     /**
-     * Load data from an ObjectInputStream
+     * Same as {@link #mask(CharSequence, int, char[], char)}, also reporting the longest match ending at each
+     * position where one ends, in order, so the first report is the hit {@link #findFirst(CharSequence, int)}
+     * returns.
      *
-     * @param in An ObjectInputStream object
-     * @throws IOException            If can't read the file from path
-     * @throws ClassNotFoundException If the class doesn't exist or match
+     * @param onHit receives each masked match, or null
      */
-    @SuppressWarnings("unchecked")
-    public void load(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        base = (int[]) in.readObject();
-        check = (int[]) in.readObject();
-        fail = (int[]) in.readObject();
-        output = (int[][]) in.readObject();
-        lengths = (int[]) in.readObject();
-        values = (V[]) in.readObject();
+    public int mask(CharSequence text, int from, char[] out, char maskChar, IHit<V> onHit) {
+        int textLength = text.length();
+        for (int position = 0; position < from; ++position) {
+            out[position] = text.charAt(position);
+        }
+
+        int currentState = 0;
+        int hits = 0;
+        // The last masked run of chars; a match that starts inside it only extends its end
+        int maskedBegin = 0;
+        int maskedEnd = 0;
+        for (int position = from; position < textLength; ++position) {
+            char c = text.charAt(position);
+            out[position] = c;
+            currentState = getState(currentState, code(c));
+            // The first output is the longest key ending here; shorter ones lie inside it
+            int state = outputLink(currentState);
+            if (state != -1) {
+                hits++;
+                int hitIndex = outputKey.getAtIndex(INT, state);
+                int begin = position + 1 - lengths.getAtIndex(INT, hitIndex);
+                if (onHit != null) {
+                    onHit.hit(begin, position + 1, get(hitIndex));
+                }
+                if (begin < maskedBegin || begin > maskedEnd) {
+                    maskedBegin = begin;
+                } else {
+                    begin = maskedEnd;
+                }
+                Arrays.fill(out, begin, position + 1, maskChar);
+                maskedEnd = position + 1;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Write the trie as a binary image that {@link #mapImage(Path, long)} can map back. Values are stored
+     * as their {@code toString()}. The file is written next to {@code path} and moved into place, so a
+     * concurrent reader sees either the old image or the new one.
+     *
+     * @param path     The image file
+     * @param checksum A checksum of the dictionary the trie was built from, checked when mapping
+     * @throws IOException If the image can't be written
+     */
+    public void writeImage(Path path, long checksum) throws IOException {
+        int keyCount = values.length;
+        int arraySize = (int) (base.byteSize() / Integer.BYTES);
+        char[] alphabet = alphabet();
+        String[] text = new String[keyCount];
+        int[] offsets = new int[keyCount + 1];
+        for (int i = 0; i < keyCount; i++) {
+            text[i] = String.valueOf(get(i));
+            offsets[i + 1] = Math.addExact(offsets[i], text[i].length());
+        }
+
+        long totalBytes = HEADER_BYTES
+                + (long) Integer.BYTES * (2L * arraySize + 3L * size + 2L * keyCount + 1)
+                + (long) Character.BYTES * (alphabet.length + offsets[keyCount]);
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 Arena arena = Arena.ofConfined()) {
+                MemorySegment image = channel.map(FileChannel.MapMode.READ_WRITE, 0, totalBytes, arena);
+                image.set(INT, 0, IMAGE_MAGIC);
+                image.set(INT, 4, IMAGE_VERSION);
+                image.set(INT, 8, BYTE_ORDER_MARKER);
+                image.set(INT, 12, keyCount);
+                image.set(INT, 16, alphabetSize);
+                image.set(INT, 20, arraySize);
+                image.set(INT, 24, size);
+                image.set(INT, 28, offsets[keyCount]);
+                image.set(ValueLayout.JAVA_LONG, 32, checksum);
+
+                long offset = HEADER_BYTES;
+                for (MemorySegment section : List.of(base, check, fail, outputKey, outputLink, lengths)) {
+                    MemorySegment.copy(section, 0, image, offset, section.byteSize());
+                    offset += section.byteSize();
+                }
+                MemorySegment.copy(offsets, 0, image, INT, offset, offsets.length);
+                offset += (long) Integer.BYTES * offsets.length;
+                MemorySegment.copy(alphabet, 0, image, CHAR, offset, alphabet.length);
+                offset += (long) Character.BYTES * alphabet.length;
+                for (String value : text) {
+                    MemorySegment.copy(value.toCharArray(), 0, image, CHAR, offset, value.length());
+                    offset += (long) Character.BYTES * value.length();
+                }
+                image.force();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Map an image written by {@link #writeImage(Path, long)}. The arrays stay in the mapping (and the page
+     * cache, shared with other processes mapping the same file); only the alphabet is copied to the heap,
+     * and values are decoded the first time they're hit. The mapping is released once the trie is
+     * garbage collected.
+     *
+     * @param path     The image file
+     * @param checksum The checksum of the current dictionary
+     * @return the trie, or empty if there is no image, or it's from another format version, byte order or
+     * dictionary
+     * @throws IOException If the image can't be read
+     */
+    public static Optional<DAT<String>> mapImage(Path path, long checksum) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        MemorySegment image;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return Optional.empty();
+            }
+            image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+        }
+        if (image.get(INT, 0) != IMAGE_MAGIC || image.get(INT, 4) != IMAGE_VERSION
+                || image.get(INT, 8) != BYTE_ORDER_MARKER || image.get(ValueLayout.JAVA_LONG, 32) != checksum) {
+            return Optional.empty();
+        }
+        int keyCount = image.get(INT, 12);
+        int alphabetSize = image.get(INT, 16);
+        int arraySize = image.get(INT, 20);
+        int stateCount = image.get(INT, 24);
+        int valueChars = image.get(INT, 28);
+        long expectedBytes = HEADER_BYTES
+                + (long) Integer.BYTES * (2L * arraySize + 3L * stateCount + 2L * keyCount + 1)
+                + (long) Character.BYTES * (alphabetSize + valueChars);
+        if (image.byteSize() != expectedBytes) {
+            return Optional.empty(); // truncated or padded
+        }
+
+        DAT<String> dat = new DAT<>();
+        long offset = HEADER_BYTES;
+        dat.base = image.asSlice(offset, (long) Integer.BYTES * arraySize);
+        dat.check = image.asSlice(offset += dat.base.byteSize(), (long) Integer.BYTES * arraySize);
+        dat.fail = image.asSlice(offset += dat.check.byteSize(), (long) Integer.BYTES * stateCount);
+        dat.outputKey = image.asSlice(offset += dat.fail.byteSize(), (long) Integer.BYTES * stateCount);
+        dat.outputLink = image.asSlice(offset += dat.outputKey.byteSize(), (long) Integer.BYTES * stateCount);
+        dat.lengths = image.asSlice(offset += dat.outputLink.byteSize(), (long) Integer.BYTES * keyCount);
+        dat.valueOffsets = image.asSlice(offset += dat.lengths.byteSize(), (long) Integer.BYTES * (keyCount + 1));
+        MemorySegment alphabet = image.asSlice(offset += dat.valueOffsets.byteSize(),
+                (long) Character.BYTES * alphabetSize);
+        dat.valueChars = image.asSlice(offset + alphabet.byteSize(), (long) Character.BYTES * valueChars);
+        dat.loadAlphabet(alphabet.toArray(CHAR));
+        dat.values = new String[keyCount];
+        dat.size = stateCount;
+        return Optional.of(dat);
     }
 
     /**
@@ -176,7 +377,7 @@ public class DAT<V> implements Serializable {
      */
     public V get(CharSequence key) {
         int index = exactMatchSearch(key);
-        return index >= 0 ? values[index] : null;
+        return index >= 0 ? get(index) : null;
     }
 
     /**
@@ -201,26 +402,218 @@ public class DAT<V> implements Serializable {
      * @param index The index
      * @return The value
      */
+    @SuppressWarnings("unchecked")
     public V get(int index) {
-        return values[index];
+        V value = values[index];
+        if (value == null && valueChars != null) {
+            // Decoding twice under a race is harmless
+            int begin = valueOffsets.getAtIndex(INT, index);
+            int end = valueOffsets.getAtIndex(INT, index + 1);
+            value = (V) new String(valueChars.asSlice((long) Character.BYTES * begin,
+                    (long) Character.BYTES * (end - begin)).toArray(CHAR));
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Dense code of a character, or 0 if it doesn't occur in the dictionary
+     *
+     * @param c The character
+     * @return The code
+     */
+    public int code(char c) {
+        char[] page = codePages[c >>> PAGE_BITS];
+        return page == null ? 0 : page[c & PAGE_MASK];
+    }
+
+    /**
+     * Assigns codes 1..n to the given characters, which must be in ascending order
+     */
+    private void loadAlphabet(char[] alphabet) {
+        codePages = new char[(Character.MAX_VALUE >>> PAGE_BITS) + 1][];
+        char code = 0;
+        for (char c : alphabet) {
+            char[] page = codePages[c >>> PAGE_BITS];
+            if (page == null) {
+                page = codePages[c >>> PAGE_BITS] = new char[PAGE_MASK + 1];
+            }
+            page[c & PAGE_MASK] = ++code;
+        }
+        alphabetSize = code;
+    }
+
+    /**
+     * The dictionary characters in code order
+     */
+    private char[] alphabet() {
+        char[] alphabet = new char[alphabetSize];
+        for (int p = 0; p < codePages.length; p++) {
+            char[] page = codePages[p];
+            if (page == null) {
+                continue;
+            }
+            for (int i = 0; i <= PAGE_MASK; i++) {
+                if (page[i] != 0) {
+                    alphabet[page[i] - 1] = (char) (p << PAGE_BITS | i);
+                }
+            }
+        }
+        return alphabet;
+    }
+
+    private int base(int index) {
+        return base.getAtIndex(INT, index);
+    }
+
+    private int check(int index) {
+        return check.getAtIndex(INT, index);
+    }
+
+    private int fail(int state) {
+        return fail.getAtIndex(INT, state);
+    }
+
+    private int outputLink(int state) {
+        return outputLink.getAtIndex(INT, state);
     }
 
     /**
      * Transmit state, supports failure function
      *
      * @param currentState The current state
-     * @param character    The character
+     * @param code         The character code
      * @return The new state
      */
-    private int getState(int currentState, char character) {
-        int newState = transitionWithRoot(currentState, character);
+    private int getState(int currentState, int code) {
+        if (code == 0) {
+            return 0;
+        }
+        int newState = transitionWithRoot(currentState, code);
         while (newState == -1) {
-            currentState = fail[currentState];
-            newState = transitionWithRoot(currentState, character);
+            currentState = fail(currentState);
+            newState = transitionWithRoot(currentState, code);
         }
         return newState;
     }
 
+    /**
+     * Feed one character to the automaton, for callers that drive the scan themselves (e.g. over a
+     * normalized stream). Start from state 0.
+     *
+     * @param state The current state
+     * @param c     The character
+     * @return The new state
+     */
+    public int step(int state, char c) {
+        return getState(state, code(c));
+    }
+
+    /**
+     * First output of a state: the state itself or the nearest state on its fail chain where a key ends.
+     * Outputs are visited longest key first with {@link #nextOutput(int)}.
+     *
+     * @param state A state returned by {@link #step(int, char)}
+     * @return an output handle, or -1 if no key ends here
+     */
+    public int firstOutput(int state) {
+        return outputLink(state);
+    }
+
+    /**
+     * @param output An output handle
+     * @return the next (shorter) output at the same position, or -1
+     */
+    public int nextOutput(int output) {
+        return outputLink(fail(output));
+    }
+
+    /**
+     * @param output An output handle
+     * @return the index of the key ending at that output
+     */
+    public int outputKeyIndex(int output) {
+        return outputKey.getAtIndex(INT, output);
+    }
+
+    /**
+     * @param index The key index
+     * @return the length of the key
+     */
+    public int keyLength(int index) {
+        return lengths.getAtIndex(INT, index);
+    }
+
+    /**
+     * Child of a state in the plain trie, without failure links, for walks that choose their own
+     * transitions (e.g. approximate matching).
+     *
+     * @param state A state
+     * @param code  A code from {@link #code(char)}, 1..{@link #getAlphabetSize()}
+     * @return the child state, or -1 if there is none
+     */
+    public int child(int state, int code) {
+        int b = base(state);
+        return check(b + code) == b ? b + code : -1;
+    }
+
+    /**
+     * Lists the children of every state in one pass over the arrays, for walks that visit the actual
+     * children instead of probing {@link #child(int, int)} with the whole alphabet.
+     *
+     * @return the child codes of each state, in ascending order
+     */
+    public Children children() {
+        int arraySize = getArraySize();
+        // Every begin is used by exactly one state, so a base identifies its state
+        int[] stateOfBase = new int[arraySize];
+        int[] offsets = new int[arraySize + 1];
+        for (int p = 0; p < arraySize; p++) {
+            int parentBase = check(p);
+            if ((p == 0 || parentBase != 0 && parentBase != p) && base(p) > 0) {
+                stateOfBase[base(p)] = p;
+            }
+        }
+        for (int p = 1; p < arraySize; p++) {
+            int parentBase = check(p);
+            if (parentBase != 0 && parentBase != p) {
+                offsets[stateOfBase[parentBase] + 1]++;
+            }
+        }
+        for (int i = 0; i < arraySize; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] codes = new int[offsets[arraySize]];
+        int[] fill = Arrays.copyOf(offsets, arraySize);
+        for (int p = 1; p < arraySize; p++) {
+            int parentBase = check(p);
+            if (parentBase != 0 && parentBase != p) {
+                codes[fill[stateOfBase[parentBase]]++] = p - parentBase;
+            }
+        }
+        return new Children(offsets, codes);
+    }
+
+    /**
+     * @param state A state
+     * @return the index of the key that ends exactly at this state, or -1
+     */
+    public int keyAt(int state) {
+        int b = base(state);
+        return check(b) == b ? -base(b) - 1 : -1;
+    }
+
+    /**
+     * @return the length of the longest key
+     */
+    public int getMaxKeyLength() {
+        int max = 0;
+        for (int i = 0; i < size(); i++) {
+            max = Math.max(max, keyLength(i));
+        }
+        return max;
+    }
+
     /**
      * Transition of a state
      *
@@ -229,8 +622,13 @@ public class DAT<V> implements Serializable {
      * @return The new state
      */
     protected int transition(int current, char c) {
-        int p = current + c + 1;
-        return current == check[p] ? base[p] : -1;
+        int code = code(c);
+        if (code == 0) {
+            return -1;
+        }
+        int b = base(current);
+        int p = b + code;
+        return b == check(p) ? p : -1;
     }
 
     /**
@@ -241,9 +639,14 @@ public class DAT<V> implements Serializable {
      * @return The new state
      */
     protected int transitionWithRoot(int nodePos, char c) {
-        int b = base[nodePos];
-        int p = b + c + 1;
-        return b != check[p] ? (nodePos == 0 ? 0 : -1) : p;
+        int code = code(c);
+        return code == 0 ? (nodePos == 0 ? 0 : -1) : transitionWithRoot(nodePos, code);
+    }
+
+    private int transitionWithRoot(int nodePos, int code) {
+        int b = base(nodePos);
+        int p = b + code;
+        return b != check(p) ? (nodePos == 0 ? 0 : -1) : p;
     }
 
     /**
@@ -275,20 +678,24 @@ public class DAT<V> implements Serializable {
      * @return The index of the key
      */
     private int exactMatchSearch(CharSequence key, int pos, int len, int nodePos) {
-        int b = base[nodePos];
+        int b = base(nodePos);
         int p;
 
         for (int i = pos; i < len; i++) {
-            p = b + key.charAt(i) + 1;
-            if (b != check[p]) {
+            int code = code(key.charAt(i));
+            if (code == 0) {
+                return -1;
+            }
+            p = b + code;
+            if (b != check(p)) {
                 return -1;
             }
-            b = base[p];
+            b = base(p);
         }
 
         p = b;
-        int n = base[p];
-        return b == check[p] ? -n - 1 : -1;
+        int n = base(p);
+        return b == check(p) ? -n - 1 : -1;
     }
 
     /**
@@ -298,6 +705,43 @@ public class DAT<V> implements Serializable {
         return values.length;
     }
 
+    /**
+     * @return the number of distinct characters in the keywords
+     */
+    public int getAlphabetSize() {
+        return alphabetSize;
+    }
+
+    /**
+     * @return the length of the base and check arrays
+     */
+    public int getArraySize() {
+        return (int) (base.byteSize() / Integer.BYTES);
+    }
+
+    /**
+     * @return the characters that begin at least one key, in ascending order
+     */
+    public char[] getFirstChars() {
+        char[] alphabet = alphabet();
+        int rootBase = base(0);
+        char[] firstChars = new char[alphabet.length];
+        int count = 0;
+        for (int code = 1; code <= alphabetSize; code++) {
+            if (check(rootBase + code) == rootBase) {
+                firstChars[count++] = alphabet[code - 1];
+            }
+        }
+        return Arrays.copyOf(firstChars, count);
+    }
+
+    /**
+     * @return whether the arrays are read from a mapped image rather than the heap
+     */
+    public boolean isMapped() {
+        return valueChars != null;
+    }
+
     /**
      * Processor handles the output when hitting a keyword
      */
@@ -319,6 +763,12 @@ public class DAT<V> implements Serializable {
         boolean hit(int begin, int end, V value);
     }
 
+    /**
+     * Child codes of each state: {@code codes[offsets[state]..offsets[state + 1])}
+     */
+    public record Children(int[] offsets, int[] codes) {
+    }
+
     /**
      * A result output
      *
@@ -331,280 +781,282 @@ public class DAT<V> implements Serializable {
             return String.format("[%d:%d]=%s", begin, end, value);
         }
     }
-
-    private static class State {
-        @Getter
-        private final int depth;
-
-        @Getter
-        private final Map<Character, State> success = new HashMap<>();
-        private Set<Integer> emits = null;
-        private State failure = null;
-        @Getter
-        private int largestValueId = -1;
-        @Getter
-        @Setter
-        private int index;
-
-        public State() {
-            this(0);
-        }
-
-        public State(int depth) {
-            this.depth = depth;
-        }
-
-        public State addState(Character character) {
-            return success.computeIfAbsent(character, c -> new State(depth + 1));
-        }
-
-        public State nextState(Character character) {
-            return success.get(character);
-        }
-
-        public Collection<State> getStates() {
-            return success.values();
-        }
-
-        public Collection<Character> getTransitions() {
-            return success.keySet();
-        }
-
-        public void addEmit(int keyword) {
-            if (emits == null) emits = new HashSet<>();
-            emits.add(keyword);
-            if (keyword > largestValueId) largestValueId = keyword;
-        }
-
-        public void addEmit(Collection<Integer> emits) {
-            if (this.emits == null) this.emits = new HashSet<>();
-            this.emits.addAll(emits);
-        }
-
-        public Collection<Integer> emit() {
-            return emits == null ? Collections.emptyList() : emits;
-        }
-
-        public boolean isAcceptable() {
-            return depth > 0 && emits != null;
-        }
-
-        public State failure() {
-            return failure;
-        }
-
-        public void setFailure(State failState, int[] fail) {
-            this.failure = failState;
-            fail[index] = failState.getIndex();
-        }
-
-    }
-
     /**
      * A builder to build the AhoCorasickDoubleArrayTrie
+     * <p>
+     * Works on the sorted keys directly: a trie node is the range of keys sharing its prefix, so no node
+     * objects are created. Nodes are placed breadth first, which means every state a failure link can
+     * point to is already placed when a node is, and the fail and output tables are filled in the same pass.
      */
     private class Builder {
-        private final State rootState = new State();
-        private BitSet used;
+        // Built on the heap, then published as segments
+        private int[] base;
+        private int[] check;
+        private int[] fail;
+        private int[] outputKey;
+        private int[] outputLink;
+        private int[] lengths;
+        private String[] keys;
+        private final BitSet used = new BitSet();
         private int allocSize;
-        private int progress;
         private int nextCheckPos;
-        private int keySize;
 
+        // Children of the node being placed: code (0 marks the end of a key) and range of keys below
+        private int[] siblingCodes;
+        private int[] siblingLeft;
+        private int[] siblingRight;
+        private int siblingCount;
+
+        // Nodes waiting to be placed, 4 ints each: position, first key, end key (exclusive), depth
+        private int[] queue = new int[1024];
+        private int queueHead;
+        private int queueTail;
+
+        @SuppressWarnings("unchecked")
         public void build(Map<String, V> map) {
             if (map.isEmpty()) {
                 throw new IllegalArgumentException("The input map is empty.");
             }
 
-            values = (V[]) map.values().toArray();
-            lengths = new int[values.length];
-            Set<String> keySet = map.keySet();
-            addAllKeywords(keySet);
-            buildDoubleArrayTrie(keySet.size());
-            used = null;
-            constructFailureStates();
-            reduceSize();
-        }
-
-        private void addAllKeywords(Collection<String> keywordSet) {
-            int i = 0;
-            for (String keyword : keywordSet) {
-                addKeyword(keyword, i++);
-            }
-        }
-
-        private void addKeyword(String keyword, int index) {
-            State currentState = this.rootState;
-            for (char character : keyword.toCharArray()) {
-                currentState = currentState.addState(character);
+            Map.Entry<String, V>[] entries = map.entrySet().toArray(new Map.Entry[0]);
+            Arrays.sort(entries, Map.Entry.comparingByKey());
+            keys = new String[entries.length];
+            values = (V[]) new Object[entries.length];
+            lengths = new int[entries.length];
+            long keyChars = 0;
+            for (int i = 0; i < entries.length; i++) {
+                keys[i] = entries[i].getKey();
+                values[i] = entries[i].getValue();
+                lengths[i] = keys[i].length();
+                keyChars += lengths[i];
             }
-            currentState.addEmit(index);
-            lengths[index] = keyword.length();
-        }
-
-        private void buildDoubleArrayTrie(int keySize) {
-            progress = 0;
-            this.keySize = keySize;
-            resize(65536 * 32);
 
-            base[0] = 1;
-            nextCheckPos = 0;
+            buildAlphabet();
+            siblingCodes = new int[alphabetSize + 1];
+            siblingLeft = new int[alphabetSize + 1];
+            siblingRight = new int[alphabetSize + 1];
+            // One state per key character at most, plus one end marker per key
+            resize((int) Math.min(keyChars + keys.length + alphabetSize + 2, MAX_ARRAY_SIZE));
 
-            var siblings = new ArrayList<Map.Entry<Integer, State>>(rootState.getSuccess().size());
-            fetch(rootState, siblings);
-            if (!siblings.isEmpty()) {
-                insert(siblings);
-            }
+            placeAll();
+            keys = null;
+            publish();
         }
 
-        private void resize(int newSize) {
-            int[] newBase = new int[newSize];
-            int[] newCheck = new int[newSize];
+        private void buildAlphabet() {
+            BitSet chars = new BitSet(Character.MAX_VALUE + 1);
+            for (String key : keys) {
+                for (int i = 0; i < key.length(); i++) {
+                    chars.set(key.charAt(i));
+                }
+            }
+            if (chars.cardinality() > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("The keys use too many distinct characters.");
+            }
 
-            if (allocSize > 0) {
-                System.arraycopy(base, 0, newBase, 0, allocSize);
-                System.arraycopy(check, 0, newCheck, 0, allocSize);
+            char[] alphabet = new char[chars.cardinality()];
+            int i = 0;
+            for (int c = chars.nextSetBit(0); c >= 0; c = chars.nextSetBit(c + 1)) {
+                alphabet[i++] = (char) c;
             }
-            base = newBase;
-            check = newCheck;
-            used = new BitSet(newSize);
-            allocSize = newSize;
+            loadAlphabet(alphabet);
         }
 
-        private void insert(List<Map.Entry<Integer, State>> siblings) {
-            var queue = new ArrayDeque<Map.Entry<Integer, List<Map.Entry<Integer, State>>>>();
-            queue.add(new AbstractMap.SimpleEntry<>(null, siblings));
-
-            while (!queue.isEmpty()) {
-                var entry = queue.remove();
-                var currentSiblings = entry.getValue();
-
-                int begin = 0;
-                int pos = Math.max(currentSiblings.getFirst().getKey() + 1, nextCheckPos) - 1;
-                int nonzeroCount = 0;
-                int first = 0;
-
-                if (allocSize <= pos) {
-                    resize(pos + 1);
+        private void placeAll() {
+            base[0] = 1;
+            fail[0] = 0;
+            outputKey[0] = -1;
+            outputLink[0] = -1;
+            size = 1;
+            nextCheckPos = 0;
+            enqueue(0, 0, keys.length, 0);
+
+            while (queueHead < queueTail) {
+                int parent = queue[queueHead];
+                int left = queue[queueHead + 1];
+                int right = queue[queueHead + 2];
+                int depth = queue[queueHead + 3];
+                queueHead += 4;
+
+                fetch(left, right, depth);
+                if (siblingCount == 0) {
+                    continue;
                 }
 
-                while (true) {
-                    pos++;
-                    if (allocSize <= pos) {
-                        resize(pos + 1);
-                    }
+                int begin = findBegin();
+                used.set(begin);
+                size = Math.max(size, begin + siblingCodes[siblingCount - 1] + 1);
+                base[parent] = begin;
+                for (int i = 0; i < siblingCount; i++) {
+                    check[begin + siblingCodes[i]] = begin;
+                }
 
-                    if (check[pos] != 0) {
-                        nonzeroCount++;
+                for (int i = 0; i < siblingCount; i++) {
+                    int code = siblingCodes[i];
+                    int state = begin + code;
+                    if (code == 0) {
+                        // End of a key: its base holds the key index for exactMatchSearch
+                        base[state] = -siblingLeft[i] - 1;
                         continue;
-                    } else if (first == 0) {
-                        nextCheckPos = pos;
-                        first = 1;
-                    }
-
-                    begin = pos - currentSiblings.getFirst().getKey();
-                    if (allocSize <= (begin + currentSiblings.getLast().getKey())) {
-                        double toSize = Math.max(1.05, 1.0 * keySize / (progress + 1)) * allocSize;
-                        int maxSize = (int) (Integer.MAX_VALUE * 0.95);
-                        if (allocSize >= maxSize) throw new RuntimeException("Double array trie is too big.");
-                        resize((int) Math.min(toSize, maxSize));
                     }
+                    int key = lengths[siblingLeft[i]] == depth + 1 ? siblingLeft[i] : -1;
+                    link(parent, state, code, key);
+                    enqueue(state, siblingLeft[i], siblingRight[i], depth + 1);
+                }
+            }
+        }
 
-                    if (used.get(begin)) continue;
-
-                    int finalBegin1 = begin;
-                    if (currentSiblings.stream().anyMatch(sibling -> check[finalBegin1 + sibling.getKey()] != 0)) {
-                        continue;
-                    }
+        /**
+         * Collects the children of the node covering keys [left, right) at the given depth. Keys are
+         * sorted and codes follow char order, so the children come out in ascending code order.
+         */
+        private void fetch(int left, int right, int depth) {
+            siblingCount = 0;
+            int i = left;
+            if (lengths[i] == depth) {
+                // The key equal to the prefix sorts first
+                addSibling(0, i, i + 1);
+                i++;
+            }
+            while (i < right) {
+                int start = i;
+                int code = code(keys[i].charAt(depth));
+                do {
+                    i++;
+                } while (i < right && code(keys[i].charAt(depth)) == code);
+                addSibling(code, start, i);
+            }
+        }
 
-                    break;
-                }
+        private void addSibling(int code, int left, int right) {
+            siblingCodes[siblingCount] = code;
+            siblingLeft[siblingCount] = left;
+            siblingRight[siblingCount] = right;
+            siblingCount++;
+        }
 
-                if (1.0 * nonzeroCount / (pos - nextCheckPos + 1) >= 0.95) {
+        private int findBegin() {
+            int firstCode = siblingCodes[0];
+            int pos = Math.max(firstCode + 1, nextCheckPos) - 1;
+            int nonzeroCount = 0;
+            boolean first = true;
+            int begin;
+
+            while (true) {
+                pos++;
+                ensureCapacity(pos + 1);
+
+                if (check[pos] != 0) {
+                    nonzeroCount++;
+                    continue;
+                } else if (first) {
                     nextCheckPos = pos;
+                    first = false;
                 }
-                used.set(begin);
-
-                size = Math.max(size, begin + currentSiblings.getLast().getKey() + 1);
 
-                int finalBegin = begin;
-                currentSiblings.forEach(sibling -> check[finalBegin + sibling.getKey()] = finalBegin);
+                begin = pos - firstCode;
+                // Room for any code after begin, so transitions from this state never index past the arrays
+                ensureCapacity(begin + alphabetSize + 1);
+                if (used.get(begin) || !fits(begin)) {
+                    continue;
+                }
+                break;
+            }
 
-                for (var sibling : currentSiblings) {
-                    var newSiblings = new ArrayList<Map.Entry<Integer, State>>(sibling.getValue().getSuccess().size() + 1);
+            if (1.0 * nonzeroCount / (pos - nextCheckPos + 1) >= 0.95) {
+                nextCheckPos = pos;
+            }
+            return begin;
+        }
 
-                    if (fetch(sibling.getValue(), newSiblings) == 0) {
-                        base[begin + sibling.getKey()] = -sibling.getValue().getLargestValueId() - 1;
-                        progress++;
-                    } else {
-                        queue.add(new AbstractMap.SimpleEntry<>(begin + sibling.getKey(), newSiblings));
-                    }
-                    sibling.getValue().setIndex(begin + sibling.getKey());
+        private boolean fits(int begin) {
+            for (int i = 1; i < siblingCount; i++) {
+                if (check[begin + siblingCodes[i]] != 0) {
+                    return false;
                 }
+            }
+            return true;
+        }
 
-                Integer parentBaseIndex = entry.getKey();
-                if (parentBaseIndex != null) {
-                    base[parentBaseIndex] = begin;
+        /**
+         * Sets the failure link and output of a newly placed state. Everything on the fail chain is
+         * shallower and therefore already placed.
+         */
+        private void link(int parent, int state, int code, int key) {
+            int failState = 0;
+            if (parent != 0) {
+                int f = fail[parent];
+                int next;
+                while ((next = child(f, code)) == -1 && f != 0) {
+                    f = fail[f];
                 }
+                failState = next == -1 ? 0 : next;
             }
+            fail[state] = failState;
+            outputKey[state] = key;
+            outputLink[state] = key >= 0 ? state : outputLink[failState];
         }
 
+        private int child(int state, int code) {
+            int b = base[state];
+            int p = b + code;
+            return check[p] == b ? p : -1;
+        }
 
-        private void constructFailureStates() {
-            fail = new int[size + 1];
-            output = new int[size + 1][];
-            var queue = new ArrayDeque<State>();
-
-            rootState.getStates().forEach(depthOneState -> {
-                depthOneState.setFailure(rootState, fail);
-                queue.add(depthOneState);
-                constructOutput(depthOneState);
-            });
-
-            while (!queue.isEmpty()) {
-                State currentState = queue.remove();
-
-                for (Character transition : currentState.getTransitions()) {
-                    State targetState = currentState.nextState(transition);
-                    queue.add(targetState);
-
-                    State traceFailureState = currentState.failure();
-                    while (traceFailureState != null && traceFailureState.nextState(transition) == null) {
-                        traceFailureState = traceFailureState.failure();
-                    }
-                    State newFailureState = traceFailureState == null ? rootState : traceFailureState.nextState(transition);
-                    targetState.setFailure(newFailureState, fail);
-                    targetState.addEmit(newFailureState.emit());
-                    constructOutput(targetState);
-                }
+        private void enqueue(int position, int left, int right, int depth) {
+            if (queueTail + 4 > queue.length) {
+                // Compact what was already consumed before growing
+                int pending = queueTail - queueHead;
+                int[] target = pending + 4 > queue.length / 2 ? new int[queue.length * 2] : queue;
+                System.arraycopy(queue, queueHead, target, 0, pending);
+                queue = target;
+                queueHead = 0;
+                queueTail = pending;
             }
+            queue[queueTail++] = position;
+            queue[queueTail++] = left;
+            queue[queueTail++] = right;
+            queue[queueTail++] = depth;
         }
 
-        private void constructOutput(State targetState) {
-            Collection<Integer> emit = targetState.emit();
-            if (emit == null || emit.isEmpty()) return;
-            int[] output = new int[emit.size()];
-            int i = 0;
-            for (int value : emit) {
-                output[i++] = value;
+        private void ensureCapacity(int required) {
+            if (required <= allocSize) {
+                return;
             }
-            DAT.this.output[targetState.getIndex()] = output;
+            if (allocSize >= MAX_ARRAY_SIZE) {
+                throw new IllegalStateException("Double array trie is too big.");
+            }
+            resize((int) Math.min(Math.max(required, allocSize * 1.5), MAX_ARRAY_SIZE));
         }
 
-        private void reduceSize() {
-            int newSize = size + 65535;
-            base = Arrays.copyOf(base, newSize);
-            check = Arrays.copyOf(check, newSize);
+        private void resize(int newSize) {
+            if (allocSize == 0) {
+                base = new int[newSize];
+                check = new int[newSize];
+                fail = new int[newSize];
+                outputKey = new int[newSize];
+                outputLink = new int[newSize];
+            } else {
+                base = Arrays.copyOf(base, newSize);
+                check = Arrays.copyOf(check, newSize);
+                fail = Arrays.copyOf(fail, newSize);
+                outputKey = Arrays.copyOf(outputKey, newSize);
+                outputLink = Arrays.copyOf(outputLink, newSize);
+            }
+            allocSize = newSize;
         }
 
-        private int fetch(State parent, List<Map.Entry<Integer, State>> siblings) {
-            if (parent.isAcceptable()) {
-                State fakeNode = new State(-(parent.getDepth() + 1));
-                fakeNode.addEmit(parent.getLargestValueId());
-                siblings.add(new AbstractMap.SimpleEntry<>(0, fakeNode));
-            }
-            parent.getSuccess().forEach((key, value) -> siblings.add(new AbstractMap.SimpleEntry<>(key + 1, value)));
-            return siblings.size();
+        private void publish() {
+            // Transitions read base[s] + code, so base and check keep room for the largest code
+            int newSize = size + alphabetSize + 1;
+            DAT.this.base = MemorySegment.ofArray(Arrays.copyOf(base, newSize));
+            DAT.this.check = MemorySegment.ofArray(Arrays.copyOf(check, newSize));
+            DAT.this.fail = MemorySegment.ofArray(Arrays.copyOf(fail, size));
+            DAT.this.outputKey = MemorySegment.ofArray(Arrays.copyOf(outputKey, size));
+            DAT.this.outputLink = MemorySegment.ofArray(Arrays.copyOf(outputLink, size));
+            DAT.this.lengths = MemorySegment.ofArray(lengths);
+            valueOffsets = null;
+            valueChars = null;
         }
     }
 }
@@ -0,0 +1,116 @@
+package csw.youtube.chat.common.util;
+
+import java.util.Arrays;
+
+/**
+ * Finds the first position where a dictionary match could start, i.e. the first character that begins
+ * some key (see {@link DAT#getFirstChars()}). A text without one can't contain any key, and a search can
+ * start at that position instead of the beginning.
+ * <p>
+ * A {@link CharSequence} is scanned in place, one bitmap lookup per character. Text already in a
+ * {@code char[]} is scanned with Vector API lanes (see {@link FirstCharVectorScan}) when the JVM was
+ * started with {@code --add-modules jdk.incubator.vector}: the first characters are covered by at most
+ * {@value #MAX_RANGES} character ranges, and a chunk with no lane inside any range is skipped as a whole.
+ * Without the module the array is scanned like a {@link CharSequence}.
+ */
+public final class FirstCharFilter {
+    private static final int MAX_RANGES = 8;
+    // FirstCharVectorScan is only loaded when this is true; without the module it can't even be linked
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    // One bit per UTF-16 code unit
+    private final long[] bitmap = new long[(Character.MAX_VALUE + 1) / Long.SIZE];
+    private final short[] rangeStarts;
+    // Range end minus start, compared unsigned
+    private final short[] rangeWidths;
+
+    /**
+     * @param firstChars characters that begin at least one key, in ascending order
+     */
+    public FirstCharFilter(char[] firstChars) {
+        for (char c : firstChars) {
+            bitmap[c >>> 6] |= 1L << c;
+        }
+
+        // Split the sorted characters at the widest gaps, leaving at most MAX_RANGES ranges
+        int splits = Math.min(MAX_RANGES, firstChars.length) - 1;
+        int[] splitAfter = new int[Math.max(splits, 0)];
+        if (splits > 0) {
+            Integer[] byGap = new Integer[firstChars.length - 1];
+            for (int i = 0; i < byGap.length; i++) {
+                byGap[i] = i;
+            }
+            Arrays.sort(byGap, (a, b) -> Integer.compare(
+                    firstChars[b + 1] - firstChars[b], firstChars[a + 1] - firstChars[a]));
+            for (int i = 0; i < splits; i++) {
+                splitAfter[i] = byGap[i];
+            }
+            Arrays.sort(splitAfter);
+        }
+
+        int rangeCount = firstChars.length == 0 ? 0 : splits + 1;
+        rangeStarts = new short[rangeCount];
+        rangeWidths = new short[rangeCount];
+        int start = 0;
+        for (int r = 0; r < rangeCount; r++) {
+            int end = r < splits ? splitAfter[r] : firstChars.length - 1;
+            rangeStarts[r] = (short) firstChars[start];
+            rangeWidths[r] = (short) (firstChars[end] - firstChars[start]);
+            start = end + 1;
+        }
+    }
+
+    /**
+     * @return whether {@code c} begins at least one key
+     */
+    public boolean isFirstChar(char c) {
+        return (bitmap[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * @return the index of the first character in {@code text} that begins a key, or -1 if there is none
+     */
+    public int firstCandidate(CharSequence text) {
+        if (rangeStarts.length == 0) {
+            return -1;
+        }
+        for (int i = 0, length = text.length(); i < length; i++) {
+            if (isFirstChar(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #firstCandidate(CharSequence)} for the first {@code length} characters of {@code chars}.
+     */
+    public int firstCandidate(char[] chars, int length) {
+        if (rangeStarts.length == 0) {
+            return -1;
+        }
+        if (VECTORIZED) {
+            return FirstCharVectorScan.firstCandidate(chars, length, rangeStarts, rangeWidths, bitmap);
+        }
+        for (int i = 0; i < length; i++) {
+            if (isFirstChar(chars[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether {@link #firstCandidate(char[], int)} runs on Vector API lanes in this JVM
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * @return the number of character ranges the vector scan compares against
+     */
+    public int getRangeCount() {
+        return rangeStarts.length;
+    }
+}
@@ -0,0 +1,52 @@
+package csw.youtube.chat.common.util;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API loop of {@link FirstCharFilter}, kept in its own class so that nothing references
+ * {@code jdk.incubator.vector} unless the module was added to the JVM.
+ */
+final class FirstCharVectorScan {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private FirstCharVectorScan() {
+    }
+
+    /**
+     * Runs {@link ShortVector} lanes over {@code chars}; lanes inside one of the ranges are confirmed
+     * against {@code bitmap}.
+     */
+    static int firstCandidate(char[] chars, int length, short[] rangeStarts, short[] rangeWidths, long[] bitmap) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector lanes = ShortVector.fromCharArray(SPECIES, chars, i);
+            VectorMask<Short> inRange = lanes.sub(rangeStarts[0]).compare(VectorOperators.UNSIGNED_LE, rangeWidths[0]);
+            for (int r = 1; r < rangeStarts.length; r++) {
+                inRange = inRange.or(lanes.sub(rangeStarts[r]).compare(VectorOperators.UNSIGNED_LE, rangeWidths[r]));
+            }
+            if (!inRange.anyTrue()) {
+                continue;
+            }
+            for (long candidates = inRange.toLong(); candidates != 0; candidates &= candidates - 1) {
+                int index = i + Long.numberOfTrailingZeros(candidates);
+                if (isSet(bitmap, chars[index])) {
+                    return index;
+                }
+            }
+        }
+        for (; i < length; i++) {
+            if (isSet(bitmap, chars[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSet(long[] bitmap, char c) {
+        return (bitmap[c >>> 6] & (1L << c)) != 0;
+    }
+}
@@ -0,0 +1,144 @@
+package csw.youtube.chat.common.util;
+
+/**
+ * Hangul syllable decomposition and the character classes used to normalize chat text before matching.
+ * <p>
+ * Syllables (가..힣) decompose into compatibility jamo (ㄱ..ㅣ), the same characters people type when they
+ * spell a word out as "ㅅㅂ" or "ㅅㅣ발". The initial, medial and final jamo of every syllable are looked up
+ * in precomputed tables rather than divided out per character.
+ */
+public final class HangulJamo {
+    public static final char FIRST_SYLLABLE = '가';
+    public static final char LAST_SYLLABLE = '힣';
+    private static final int SYLLABLE_COUNT = LAST_SYLLABLE - FIRST_SYLLABLE + 1;
+
+    private static final char[] CHOSEONG = "ㄱㄲㄴㄷㄸㄹㅁㅂㅃㅅㅆㅇㅈㅉㅊㅋㅌㅍㅎ".toCharArray();
+    private static final char[] JUNGSEONG = "ㅏㅐㅑㅒㅓㅔㅕㅖㅗㅘㅙㅚㅛㅜㅝㅞㅟㅠㅡㅢㅣ".toCharArray();
+    // Index 0 is "no final consonant"
+    private static final char[] JONGSEONG = "\0ㄱㄲㄳㄴㄵㄶㄷㄹㄺㄻㄼㄽㄾㄿㅀㅁㅂㅄㅅㅆㅇㅈㅊㅋㅌㅍㅎ".toCharArray();
+
+    private static final char[] SYLLABLE_CHOSEONG = new char[SYLLABLE_COUNT];
+    private static final char[] SYLLABLE_JUNGSEONG = new char[SYLLABLE_COUNT];
+    private static final char[] SYLLABLE_JONGSEONG = new char[SYLLABLE_COUNT];
+
+    // One bit per UTF-16 code unit
+    private static final long[] SEPARATORS = new long[(Character.MAX_VALUE + 1) / Long.SIZE];
+
+    static {
+        for (int i = 0; i < SYLLABLE_COUNT; i++) {
+            SYLLABLE_CHOSEONG[i] = CHOSEONG[i / (JUNGSEONG.length * JONGSEONG.length)];
+            SYLLABLE_JUNGSEONG[i] = JUNGSEONG[i / JONGSEONG.length % JUNGSEONG.length];
+            SYLLABLE_JONGSEONG[i] = JONGSEONG[i % JONGSEONG.length];
+        }
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (separatorType(c)) {
+                SEPARATORS[c >>> 6] |= 1L << c;
+            }
+        }
+    }
+
+    private HangulJamo() {
+    }
+
+    private static boolean separatorType(int c) {
+        if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+            return true;
+        }
+        return switch (Character.getType(c)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION, Character.FINAL_QUOTE_PUNCTUATION,
+                 Character.OTHER_PUNCTUATION, Character.MATH_SYMBOL, Character.MODIFIER_SYMBOL,
+                 Character.FORMAT -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return whether {@code c} is a precomposed Hangul syllable
+     */
+    public static boolean isSyllable(char c) {
+        return c >= FIRST_SYLLABLE && c <= LAST_SYLLABLE;
+    }
+
+    /**
+     * @return whether {@code c} is a compatibility jamo consonant (ㄱ..ㅎ)
+     */
+    public static boolean isConsonant(char c) {
+        return c >= 'ㄱ' && c <= 'ㅎ';
+    }
+
+    /**
+     * Spaces, punctuation and symbols that people put between letters to get past a word filter
+     * ("시 발", "시.발", "f*u*c*k"). Digits and letters are never separators.
+     */
+    public static boolean isSeparator(char c) {
+        return (SEPARATORS[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /**
+     * @param syllable a Hangul syllable
+     * @return its initial consonant
+     */
+    public static char choseong(char syllable) {
+        return SYLLABLE_CHOSEONG[syllable - FIRST_SYLLABLE];
+    }
+
+    /**
+     * @param syllable a Hangul syllable
+     * @return its vowel
+     */
+    public static char jungseong(char syllable) {
+        return SYLLABLE_JUNGSEONG[syllable - FIRST_SYLLABLE];
+    }
+
+    /**
+     * @param syllable a Hangul syllable
+     * @return its final consonant, or {@code '\0'} if it has none
+     */
+    public static char jongseong(char syllable) {
+        return SYLLABLE_JONGSEONG[syllable - FIRST_SYLLABLE];
+    }
+
+    /**
+     * Normalizes a dictionary word the way text is normalized while scanning: syllables become jamo and
+     * separators are dropped.
+     */
+    public static String decompose(CharSequence word) {
+        StringBuilder sb = new StringBuilder(word.length() * 3);
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (isSeparator(c)) {
+                continue;
+            }
+            if (isSyllable(c)) {
+                sb.append(choseong(c)).append(jungseong(c));
+                char jong = jongseong(c);
+                if (jong != '\0') {
+                    sb.append(jong);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the initial consonants of a word made only of Hangul syllables (and separators), or
+     * {@code null} for any other word
+     */
+    public static String choseongOf(CharSequence word) {
+        StringBuilder sb = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (isSeparator(c)) {
+                continue;
+            }
+            if (!isSyllable(c)) {
+                return null;
+            }
+            sb.append(choseong(c));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,124 @@
+package csw.youtube.chat.common.util;
+
+import java.util.Arrays;
+
+/**
+ * Counts per {@code long} key in two parallel primitive arrays (open addressing, linear probing), so a
+ * count costs 12 bytes instead of a boxed {@code Long}, a boxed {@code Integer} and a {@code HashMap} node.
+ * Not thread-safe.
+ */
+public final class LongIntCounter {
+    // Marks a free slot; can't be used as a key
+    public static final long NO_KEY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int resizeAt;
+
+    public LongIntCounter() {
+        this(16);
+    }
+
+    public LongIntCounter(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) * 2 - 1));
+    }
+
+    /**
+     * Visits one key and its count.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long key, int count);
+    }
+
+    /**
+     * Adds {@code delta} to the count of {@code key}.
+     *
+     * @return the new count
+     */
+    public int add(long key, int delta) {
+        if (key == NO_KEY) {
+            throw new IllegalArgumentException("Long.MIN_VALUE can't be used as a key");
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            return counts[slot] += delta;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size > resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return delta;
+    }
+
+    public int increment(long key) {
+        return add(key, 1);
+    }
+
+    /**
+     * @return the count of {@code key}, 0 if it was never added
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        return keys[slot] == key ? counts[slot] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != NO_KEY) {
+                visitor.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    // The slot holding key, or the free slot where it would go
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != key && keys[slot] != NO_KEY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NO_KEY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, NO_KEY);
+        counts = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Packed keys differ mostly in their low bits per half; spread them over the whole word (murmur3 fmix64)
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
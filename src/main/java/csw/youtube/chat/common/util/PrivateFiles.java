@@ -0,0 +1,66 @@
+package csw.youtube.chat.common.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.*;
+import java.util.Set;
+
+/**
+ * Checks for files the application maps or trusts across restarts (trie images, chat archives): they must
+ * live in a directory owned by the user the JVM runs as, and neither the directory nor the file may be
+ * writable by anyone else, or another local user could swap in a file of their own. Symbolic links are
+ * refused for the same reason. Group and other permissions are only checked where the file system
+ * supports POSIX permissions.
+ */
+public final class PrivateFiles {
+    private static final Set<PosixFilePermission> FOREIGN_WRITE =
+            Set.of(PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE);
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private PrivateFiles() {
+    }
+
+    /**
+     * Creates {@code dir} (and missing parents) accessible to the current user only, or checks an existing
+     * one with {@link #checkPrivate(Path)}.
+     */
+    public static void createDirectory(Path dir) throws IOException {
+        if (Files.notExists(dir, LinkOption.NOFOLLOW_LINKS)) {
+            if (supportsPosix(dir)) {
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createDirectories(dir);
+            }
+        }
+        checkPrivate(dir);
+    }
+
+    /**
+     * @throws IOException if {@code path} is a symbolic link, isn't owned by the current user, or can be
+     *                     written by its group or others
+     */
+    public static void checkPrivate(Path path) throws IOException {
+        if (Files.isSymbolicLink(path)) {
+            throw new IOException(path + " is a symbolic link");
+        }
+        UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal self = path.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(self)) {
+            throw new IOException(path + " is owned by " + owner.getName() + ", not " + self.getName());
+        }
+        if (supportsPosix(path)) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS);
+            if (permissions.stream().anyMatch(FOREIGN_WRITE::contains)) {
+                throw new IOException(path + " is writable by other users ("
+                        + PosixFilePermissions.toString(permissions) + ")");
+            }
+        }
+    }
+
+    private static boolean supportsPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+}
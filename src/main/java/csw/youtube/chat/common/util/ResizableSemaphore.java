@@ -0,0 +1,31 @@
+package csw.youtube.chat.common.util;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Semaphore whose total number of permits can be changed while permits are held.
+ * Shrinking below the number of held permits makes {@link #availablePermits()} negative
+ * until enough holders release.
+ */
+public class ResizableSemaphore extends Semaphore {
+    private int limit;
+
+    public ResizableSemaphore(int limit) {
+        super(limit);
+        this.limit = limit;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized void resize(int newLimit) {
+        int delta = newLimit - limit;
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            reducePermits(-delta);
+        }
+        limit = newLimit;
+    }
+}
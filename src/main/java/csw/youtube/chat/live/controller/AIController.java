@@ -29,7 +29,7 @@ public class AIController {
     @RateLimit(key = "summarize", permitsPerSecond = 1.0 / 60, tolerance = 0, toleranceUnit = ChronoUnit.SECONDS)
     @PostMapping("/summarize")
     public ResponseEntity<?> summarize(@RequestBody @Valid AISummarizeRequestDto requestDto) {
-        ScraperState state = scraperService.getScraperStates().get(requestDto.getVideoId());
+        ScraperState state = scraperService.getScraperState(requestDto.getVideoId());
 
         if (state == null || state.getStatus() != ScraperState.Status.RUNNING) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -0,0 +1,40 @@
+package csw.youtube.chat.live.controller;
+
+import csw.youtube.chat.common.annotation.ApiV1;
+import csw.youtube.chat.live.service.ChatArchiveService;
+import csw.youtube.chat.live.service.YTRustScraperService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@ApiV1
+@RestController
+@RequestMapping("/archive")
+@RequiredArgsConstructor
+public class ChatArchiveController {
+    private static final int MAX_LIMIT = 1000;
+
+    private final ChatArchiveService chatArchiveService;
+    private final YTRustScraperService scraperService;
+
+    /**
+     * Archived messages of a video in order, starting at {@code from} (epoch millis), or at {@code cursor}
+     * from the {@code nextCursor} of an earlier page.
+     */
+    @GetMapping("/{videoId}/messages")
+    public ResponseEntity<?> getMessages(@PathVariable String videoId,
+                                         @RequestParam(defaultValue = "0") long from,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "200") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be 1-" + MAX_LIMIT));
+        }
+        try {
+            return ResponseEntity.ok(chatArchiveService.read(scraperService.sanitizeVideoId(videoId), from, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
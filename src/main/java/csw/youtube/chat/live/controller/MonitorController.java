@@ -20,7 +20,7 @@ public class MonitorController {
     public String getScraperMonitor(Model model,
                                     @RequestParam(value = "message", required = false) String msg) {
 
-        Map<String, ScraperState> allStates = scraperService.getScraperStates();
+        Map<String, ScraperState> allStates = scraperService.getClusterScraperStates();
         boolean isEmpty = allStates.isEmpty();
 
         model.addAttribute("scraperStates", allStates);
@@ -1,9 +1,15 @@
 package csw.youtube.chat.live.controller;
 
 import com.github.pemistahl.lingua.api.Language;
+import csw.youtube.chat.live.model.ScraperEngine;
+import csw.youtube.chat.live.model.ScraperRequester;
 import csw.youtube.chat.live.service.YTRustScraperService;
+import csw.youtube.chat.user.model.User;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -28,7 +34,9 @@ public class ScraperController {
     @GetMapping("/start")
     public ResponseEntity<Map<String, String>> startScraper(
             @RequestParam String videoId,
-            @RequestParam(required = false) List<String> langs) {
+            @RequestParam(required = false) List<String> langs,
+            @RequestParam(defaultValue = "RUST") ScraperEngine engine,
+            HttpServletRequest request) {
 
         // Limit languages to 5 if provided
         Set<Language> skipLangs = (langs != null)
@@ -37,15 +45,10 @@ public class ScraperController {
 
         videoId = scraperService.sanitizeVideoId(videoId);
 
-        // Get scraper state
-        int queueSize = scraperService.getQueueSize();
-        int activeScrapers = scraperService.getActiveScrapersCount();
-        int maxScrapers = scraperService.getMaxConcurrentScrapers();
+        boolean queued = scraperService.startRustScraper(videoId, skipLangs, resolveRequester(request), engine);
 
-        boolean queued = scraperService.startRustScraper(videoId, skipLangs);
-
-        // Determine queue position
-        int position = (queued && activeScrapers >= maxScrapers) ? queueSize + 1 : 0;
+        // Read after enqueueing; 0 means it isn't waiting (already claimed or running)
+        int position = scraperService.getQueuePosition(videoId);
 
         return ResponseEntity.ok(Map.of(
                 "message", queued
@@ -55,9 +58,27 @@ public class ScraperController {
         ));
     }
 
+    @GetMapping("/queue/position")
+    public ResponseEntity<Map<String, String>> getQueuePosition(@RequestParam String videoId) {
+        videoId = scraperService.sanitizeVideoId(videoId);
+        return ResponseEntity.ok(Map.of(
+                "videoId", videoId,
+                "queuePosition", String.valueOf(scraperService.getQueuePosition(videoId)),
+                "queueSize", String.valueOf(scraperService.getQueueSize())
+        ));
+    }
+
     @GetMapping("/stop")
     public ResponseEntity<Map<String, String>> stopScraper(@RequestParam String videoId) {
         String result = scraperService.stopRustScraper(videoId);
         return ResponseEntity.ok(Collections.singletonMap("message", result));
     }
-}
\ No newline at end of file
+
+    private ScraperRequester resolveRequester(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return new ScraperRequester("user:" + user.getId(), ScraperRequester.Tier.of(user.getRole()));
+        }
+        return new ScraperRequester("ip:" + request.getRemoteAddr(), ScraperRequester.Tier.ANONYMOUS);
+    }
+}
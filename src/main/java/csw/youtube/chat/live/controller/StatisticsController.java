@@ -33,8 +33,7 @@ public class StatisticsController {
 
     @PatchMapping("/updateMetrics")
     public ResponseEntity<Void> updateMetrics(@RequestBody MetricsUpdateRequest request) {
-        ScraperState state = scraperService.getScraperStates()
-                .computeIfAbsent(request.videoId(), ScraperState::new);
+        ScraperState state = scraperService.getOrCreateScraperState(request.videoId());
 
         statisticsService.updateStateFields(state, request);
         statisticsService.updateMetadata(state, request);
@@ -0,0 +1,25 @@
+package csw.youtube.chat.live.dto;
+
+import java.time.Instant;
+
+/**
+ * Outcome of one admission control round: how many scrapers this node allows and why.
+ *
+ * @param memoryHeadroomMb   memory left before the reserve, in MB (negative when over budget)
+ * @param cpuHeadroomCores   CPU left below the target utilization, in cores
+ * @param marginalMemoryMb   learned memory cost of one more scraper
+ * @param marginalCpuCores   learned CPU cost of one more scraper
+ * @param cgroupLimited      whether the limits came from a cgroup v2 controller instead of the host
+ */
+public record AdmissionDecision(
+        Instant decidedAt,
+        int previousLimit,
+        int limit,
+        int running,
+        double memoryHeadroomMb,
+        double cpuHeadroomCores,
+        double marginalMemoryMb,
+        double marginalCpuCores,
+        boolean cgroupLimited,
+        String reason) {
+}
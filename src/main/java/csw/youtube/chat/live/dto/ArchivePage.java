@@ -0,0 +1,11 @@
+package csw.youtube.chat.live.dto;
+
+import java.util.List;
+
+/**
+ * One page of archived chat.
+ *
+ * @param nextCursor where the next page starts; pass it back as {@code cursor} to continue
+ */
+public record ArchivePage(List<ArchivedMessage> messages, String nextCursor) {
+}
@@ -0,0 +1,9 @@
+package csw.youtube.chat.live.dto;
+
+/**
+ * A chat message read back from the archive.
+ *
+ * @param timestamp epoch millis at which the message's batch was ingested
+ */
+public record ArchivedMessage(long timestamp, String username, String message) {
+}
@@ -0,0 +1,23 @@
+package csw.youtube.chat.live.dto;
+
+import java.time.Instant;
+
+/**
+ * Resource usage of one scraper's process tree (the Rust binary plus its Chrome children).
+ *
+ * @param cpuCores           CPU used since the previous sample, in cores (1.0 = one core busy)
+ * @param cgroup             cgroup v2 directory the tree was placed in, or {@code null}
+ * @param memoryLimitBytes   memory.max of that cgroup, or {@code null} when uncapped
+ * @param oomKills           processes the kernel killed for hitting the cgroup memory cap
+ */
+public record ScraperProcessResources(
+        long pid,
+        int processCount,
+        long rssBytes,
+        long peakRssBytes,
+        double cpuCores,
+        String cgroup,
+        Long memoryLimitBytes,
+        long oomKills,
+        Instant sampledAt) {
+}
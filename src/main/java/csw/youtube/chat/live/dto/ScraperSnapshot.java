@@ -0,0 +1,80 @@
+package csw.youtube.chat.live.dto;
+
+import com.github.pemistahl.lingua.api.Language;
+import csw.youtube.chat.live.model.ScraperState;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read-only copy of a {@link ScraperState} published to Redis by the node that owns the scraper,
+ * so that any node can answer statistics/summary/monitor reads.
+ */
+public record ScraperSnapshot(
+        String videoId,
+        String ownerNode,
+        ScraperState.Status status,
+        String threadName,
+        String videoTitle,
+        String channelName,
+        Instant createdAt,
+        Instant finishedAt,
+        String reason,
+        Set<Language> skipLangs,
+        List<TopChatter> topChatters,
+        List<RecentDonator> recentDonations,
+        long lastThroughput,
+        long maxThroughput,
+        double averageThroughput,
+        long totalMessages,
+        List<SimpleChatMessage> recentMessages,
+        Instant publishedAt) {
+
+    public static ScraperSnapshot of(ScraperState state, String ownerNode, int recentMessageLimit) {
+        return new ScraperSnapshot(
+                state.getVideoId(),
+                ownerNode,
+                state.getStatus(),
+                state.getThreadName(),
+                state.getVideoTitle(),
+                state.getChannelName(),
+                state.getCreatedAt(),
+                state.getFinishedAt(),
+                state.getReason(),
+                state.getSkipLangs(),
+                state.getTopChatters(),
+                state.getRecentDonations(),
+                state.getLastThroughput(),
+                state.getMaxThroughput(),
+                state.getAverageThroughput(),
+                state.getTotalMessages().get(),
+                state.getRecentMessages(recentMessageLimit),
+                Instant.now());
+    }
+
+    /**
+     * Rebuilds a detached ScraperState for read paths on non-owner nodes.
+     */
+    public ScraperState toState() {
+        ScraperState state = new ScraperState(videoId, skipLangs);
+        state.setStatus(status);
+        state.setThreadName(ownerNode + "/" + threadName);
+        state.setVideoTitle(videoTitle);
+        state.setChannelName(channelName);
+        state.setCreatedAt(createdAt);
+        state.setFinishedAt(finishedAt);
+        state.setReason(reason);
+        state.setTopChatters(topChatters != null ? topChatters : new ArrayList<>());
+        state.setRecentDonations(recentDonations != null ? recentDonations : new ArrayList<>());
+        state.setLastThroughput(lastThroughput);
+        state.setMaxThroughput(maxThroughput);
+        state.setAverageThroughput(averageThroughput);
+        state.getTotalMessages().set(totalMessages);
+        if (recentMessages != null && !recentMessages.isEmpty()) {
+            state.addRecentMessages(recentMessages);
+        }
+        return state;
+    }
+}
@@ -2,6 +2,8 @@ package csw.youtube.chat.live.js;
 
 
 public class YouTubeChatScriptProvider {
+    // How often the page hands buffered messages to Java; one exposed-function call per flush
+    public static final int DEFAULT_FLUSH_INTERVAL_MS = 250;
 
     public static String getExposeHandlerScript() {
         return "window._ytChatHandler = {};";
@@ -11,9 +13,10 @@ public class YouTubeChatScriptProvider {
         return """
                     () => {
                         try {
+                            // Watch page: chat is in an iframe. Popout chat: it is the document itself
                             const iframe = document.querySelector("iframe#chatframe");
-                            if (iframe) {
-                                const chatDoc = iframe.contentDocument || iframe.contentWindow.document;
+                            const chatDoc = iframe ? (iframe.contentDocument || iframe.contentWindow.document) : document;
+                            if (chatDoc) {
                                 const chatContainer = chatDoc.querySelector("div#item-scroller");
                                 if (!chatContainer) {
                                     console.error("❌ Chat container not found.");
@@ -45,6 +48,14 @@ public class YouTubeChatScriptProvider {
     }
 
     public static String getMutationObserverScript() {
+        return getMutationObserverScript(DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * Observes new chat items and passes them to {@code _ytChatHandler_onNewMessages} in batches of
+     * {@code [username, messageText]} pairs, at most once per {@code flushIntervalMs}.
+     */
+    public static String getMutationObserverScript(int flushIntervalMs) {
         return """
                     () => {
                         try {
@@ -80,6 +91,18 @@ public class YouTubeChatScriptProvider {
                             if (window._chatObserver) {
                                 window._chatObserver.disconnect();
                             }
+                            if (window._chatFlushTimer) {
+                                clearInterval(window._chatFlushTimer);
+                            }
+                
+                            // Messages wait here until the next flush
+                            window._chatBuffer = [];
+                            window._chatFlushTimer = setInterval(() => {
+                                if (window._chatBuffer.length === 0) return;
+                                const batch = window._chatBuffer;
+                                window._chatBuffer = [];
+                                window._ytChatHandler_onNewMessages(batch);
+                            }, %d);
                 
                             // Set up the MutationObserver
                             const observer = new MutationObserver((mutations) => {
@@ -87,7 +110,9 @@ public class YouTubeChatScriptProvider {
                                     mutation.addedNodes.forEach(node => {
                                         if (node.nodeType === Node.ELEMENT_NODE && node.matches("yt-live-chat-text-message-renderer")) {
                                             const { username, messageText } = extractMessageData(node);
-                                            window._ytChatHandler_onNewMessages(username, messageText);
+                                            if (messageText) {
+                                                window._chatBuffer.push([username, messageText]);
+                                            }
                                         }
                                     });
                                 });
@@ -101,7 +126,7 @@ public class YouTubeChatScriptProvider {
                             console.error("Observer setup failed", error);
                         }
                     }
-                """;
+                """.formatted(flushIntervalMs);
     }
 
     public static String extractMessageText() {
@@ -165,6 +190,10 @@ public class YouTubeChatScriptProvider {
                             window._chatObserver.disconnect();
                             window._chatObserver = null;
                         }
+                        if (window._chatFlushTimer) {
+                            clearInterval(window._chatFlushTimer);
+                            window._chatFlushTimer = null;
+                        }
                     }
                 """;
     }
@@ -0,0 +1,15 @@
+package csw.youtube.chat.live.model;
+
+/**
+ * How a scraper reads a video's chat.
+ */
+public enum ScraperEngine {
+    /**
+     * The Rust scraper driving headless Chrome (or a tab of a multiplexed host).
+     */
+    RUST,
+    /**
+     * Polls the live chat continuation JSON over plain HTTP, no browser (see YTHttpChatPoller).
+     */
+    HTTP
+}
@@ -0,0 +1,41 @@
+package csw.youtube.chat.live.model;
+
+import csw.youtube.chat.user.model.permission.AdminRole;
+import csw.youtube.chat.user.model.permission.ManagerRole;
+import csw.youtube.chat.user.model.permission.Role;
+import csw.youtube.chat.user.model.permission.UserRole;
+
+/**
+ * Who asked for a scraper, used to share the dispatch queue fairly between requesters.
+ *
+ * @param id   user id for authenticated requests, otherwise derived from the client address
+ * @param tier weight of the requester's share of the queue
+ */
+public record ScraperRequester(String id, Tier tier) {
+    public static final ScraperRequester SYSTEM = new ScraperRequester("system", Tier.ADMIN);
+
+    public enum Tier {
+        ANONYMOUS(1.0),
+        USER(2.0),
+        MANAGER(3.0),
+        ADMIN(4.0);
+
+        private final double weight;
+
+        Tier(double weight) {
+            this.weight = weight;
+        }
+
+        public double weight() {
+            return weight;
+        }
+
+        public static Tier of(Role role) {
+            return switch (role) {
+                case AdminRole _ -> ADMIN;
+                case ManagerRole _ -> MANAGER;
+                case UserRole _ -> USER;
+            };
+        }
+    }
+}
@@ -5,9 +5,15 @@ import csw.youtube.chat.live.dto.RecentDonator;
 import csw.youtube.chat.live.dto.SimpleChatMessage;
 import csw.youtube.chat.live.dto.TopChatter;
 import csw.youtube.chat.live.service.YTRustScraperService;
+import csw.youtube.chat.live.store.OffHeapMessageArena;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -36,6 +42,12 @@ public class ScraperState {
     private List<TopChatter> topChatters = new ArrayList<>();
     private List<RecentDonator> recentDonations = new ArrayList<>();
     private Deque<ChatMessageWithTimestamp> recentMessages = new ConcurrentLinkedDeque<>();
+    // Optional off-heap backend replacing recentMessages (null = on-heap deque)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile OffHeapMessageArena messageArena;
     // Counts all messages since scraper started
     private AtomicLong totalMessages = new AtomicLong(0);
     // Throughput metrics
@@ -67,8 +79,27 @@ public class ScraperState {
         return this.status == Status.RUNNING || this.status == Status.COMPLETED || this.status == Status.FAILED;
     }
 
+    public synchronized void enableOffHeapMessages(long capacityBytes, int maxMessages) {
+        if (messageArena == null || messageArena.isClosed()) {
+            messageArena = new OffHeapMessageArena(capacityBytes, maxMessages);
+        }
+    }
+
+    public void releaseMessageArena() {
+        OffHeapMessageArena arena = messageArena;
+        if (arena != null) {
+            arena.close();
+        }
+    }
+
     public void addRecentMessages(List<SimpleChatMessage> messages) {
         long now = System.currentTimeMillis();
+        OffHeapMessageArena arena = messageArena;
+        if (arena != null) {
+            arena.append(messages, now);
+            arena.evictOlderThan(now - MESSAGE_RETENTION_DURATION.toMillis());
+            return;
+        }
         messages.forEach(msg -> recentMessages.addLast(new ChatMessageWithTimestamp(msg, now)));
 
         cleanupOldMessages();
@@ -82,12 +113,27 @@ public class ScraperState {
     }
 
     public String getCombinedRecentMessages() {
+        OffHeapMessageArena arena = messageArena;
+        if (arena != null) {
+            return arena.joinRecentMessages(100, "\n");
+        }
         return recentMessages.stream()
                 .skip(Math.max(0, recentMessages.size() - 100))  // Keep only last 100 messages
                 .map(m -> m.message.message())
                 .collect(Collectors.joining("\n"));
     }
 
+    public List<SimpleChatMessage> getRecentMessages(int limit) {
+        OffHeapMessageArena arena = messageArena;
+        if (arena != null) {
+            return arena.getRecentMessages(limit);
+        }
+        return recentMessages.stream()
+                .skip(Math.max(0, recentMessages.size() - limit))
+                .map(ChatMessageWithTimestamp::getMessage)
+                .toList();
+    }
+
     public enum Status {
         QUEUED, IDLE, RUNNING, FAILED, COMPLETED
     }
@@ -4,5 +4,16 @@ import com.github.pemistahl.lingua.api.Language;
 
 import java.util.Set;
 
-public record ScraperTask(String videoId, Set<Language> skipLangs) {
+public record ScraperTask(String videoId, Set<Language> skipLangs, ScraperEngine engine) {
+
+    public ScraperTask {
+        // Tasks queued before engines existed have none
+        if (engine == null) {
+            engine = ScraperEngine.RUST;
+        }
+    }
+
+    public ScraperTask(String videoId, Set<Language> skipLangs) {
+        this(videoId, skipLangs, ScraperEngine.RUST);
+    }
 }
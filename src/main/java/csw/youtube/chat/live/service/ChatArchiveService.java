@@ -0,0 +1,226 @@
+package csw.youtube.chat.live.service;
+
+import csw.youtube.chat.common.util.PrivateFiles;
+import csw.youtube.chat.live.dto.ArchivePage;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import csw.youtube.chat.live.store.ChatArchive;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps every ingested chat message in a per-video {@link ChatArchive} under {@code chat.archive.path}.
+ * <p>
+ * The ingest path only offers the batch to a bounded queue; one writer thread drains it and appends to the
+ * archives, so writes stay sequential and ingest never waits on disk. When the queue is full the batch is
+ * dropped and counted. Archives unused for {@value #IDLE_CLOSE_MINUTES} minutes are closed by the writer
+ * thread and reopened on the next append or read; a read that races the close retries on a reopened one.
+ * <p>
+ * {@code chat.archive.path} must be private to the user the JVM runs as (see {@link PrivateFiles}), since
+ * active segments are mapped and read back after restarts; archiving stays off if it isn't.
+ */
+@Slf4j
+@Service
+public class ChatArchiveService {
+    private static final Pattern VIDEO_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final long IDLE_CLOSE_MINUTES = 10;
+
+    private record Batch(String videoId, List<SimpleChatMessage> messages, long timestamp) {
+    }
+
+    private final boolean enabled;
+    private final Path root;
+    private final long segmentBytes;
+    private final BlockingQueue<Batch> queue;
+    private final Map<String, ChatArchive> archives = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final Counter archivedCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+
+    public ChatArchiveService(
+            @Value("${chat.archive.enabled:false}") boolean enabled,
+            @Value("${chat.archive.path:${user.home}/.ytchatx/archive}") String path,
+            @Value("${chat.archive.segment-bytes:16777216}") long segmentBytes,
+            @Value("${chat.archive.queue-capacity:1000}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.root = Path.of(path);
+        this.segmentBytes = segmentBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("chat.archive.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("chat.archive.open", archives, Map::size).register(meterRegistry);
+        archivedCounter = Counter.builder("chat.archive.messages").register(meterRegistry);
+        droppedCounter = Counter.builder("chat.archive.dropped").tag("reason", "overflow").register(meterRegistry);
+        failedCounter = Counter.builder("chat.archive.dropped").tag("reason", "write-failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            PrivateFiles.createDirectory(root);
+        } catch (IOException e) {
+            log.error("Not archiving chat messages: {}", e.getMessage());
+            return;
+        }
+        running = true;
+        writerThread = Thread.ofPlatform().name("chat-archive-writer").daemon().start(this::writeLoop);
+        log.info("Archiving chat messages to {}", root.toAbsolutePath());
+    }
+
+    /**
+     * Queues a batch for archiving; never blocks.
+     */
+    public void append(String videoId, List<SimpleChatMessage> messages, long timestamp) {
+        if (!running || messages.isEmpty() || !VIDEO_ID.matcher(videoId).matches()) {
+            return;
+        }
+        if (!queue.offer(new Batch(videoId, messages, timestamp))) {
+            droppedCounter.increment(messages.size());
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} archived messages of a video, starting at {@code cursor} if given (from an
+     * earlier page) and at {@code fromTimestamp} (epoch millis) otherwise.
+     *
+     * @throws IllegalArgumentException if the video ID or the cursor is invalid
+     */
+    public ArchivePage read(String videoId, long fromTimestamp, String cursor, int limit) {
+        if (!VIDEO_ID.matcher(videoId).matches()) {
+            throw new IllegalArgumentException("Invalid video ID: " + videoId);
+        }
+        if (!Files.isDirectory(root.resolve(videoId))) {
+            return new ArchivePage(List.of(), cursor);
+        }
+        try {
+            while (true) {
+                lastUsed.put(videoId, System.currentTimeMillis());
+                ChatArchive archive = archive(videoId);
+                try {
+                    return cursor != null ? archive.readPage(cursor, limit) : archive.readPage(fromTimestamp, limit);
+                } catch (ClosedChannelException e) {
+                    // Closed as idle after we got it; it's out of the map by now, so this reopens it
+                    log.debug("Chat archive of {} closed during a read, retrying", videoId);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the chat archive of " + videoId, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Flushes the active segments to disk.
+     */
+    @Scheduled(fixedDelayString = "${chat.archive.sync-interval-ms:5000}")
+    public void sync() {
+        archives.values().forEach(ChatArchive::force);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // Not interrupted: that would close the file channel of a segment being sealed
+        running = false;
+        writerThread.join(Duration.ofSeconds(10));
+        // Whatever the writer didn't get to
+        List<Batch> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(this::write);
+        archives.values().forEach(ChatArchive::close);
+        archives.clear();
+    }
+
+    private void writeLoop() {
+        List<Batch> batches = new ArrayList<>();
+        long nextIdleCheck = System.currentTimeMillis();
+        while (running) {
+            try {
+                Batch first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batches.add(first);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batches);
+            batches.forEach(this::write);
+            batches.clear();
+
+            // Closing here, between writes, never pulls an archive out from under an append
+            long now = System.currentTimeMillis();
+            if (now >= nextIdleCheck) {
+                closeIdle(now - TimeUnit.MINUTES.toMillis(IDLE_CLOSE_MINUTES));
+                nextIdleCheck = now + TimeUnit.MINUTES.toMillis(1);
+            }
+        }
+    }
+
+    private void closeIdle(long unusedSince) {
+        archives.forEach((videoId, archive) -> {
+            if (lastUsed.getOrDefault(videoId, 0L) < unusedSince && archives.remove(videoId, archive)) {
+                lastUsed.remove(videoId);
+                archive.close();
+            }
+        });
+    }
+
+    private void write(Batch batch) {
+        try {
+            lastUsed.put(batch.videoId(), System.currentTimeMillis());
+            archive(batch.videoId()).append(batch.messages(), batch.timestamp());
+            archivedCounter.increment(batch.messages().size());
+        } catch (IOException | UncheckedIOException e) {
+            failedCounter.increment(batch.messages().size());
+            log.error("Failed to archive {} chat messages of {}", batch.messages().size(), batch.videoId(), e);
+        }
+    }
+
+    private ChatArchive archive(String videoId) throws IOException {
+        try {
+            return archives.computeIfAbsent(videoId, id -> {
+                try {
+                    return ChatArchive.open(root.resolve(id), segmentBytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package csw.youtube.chat.live.service;
 
 import csw.youtube.chat.live.dto.ChatMessage;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import csw.youtube.chat.live.model.ScraperState;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class ChatBroadcastService {
 
@@ -14,9 +18,15 @@ public class ChatBroadcastService {
     }
 
     /**
-     * Broadcasts the chat message to all subscribers of "/live/chat/{videoId}".
+     * Broadcasts an ingested batch to all subscribers of "/live/chat/{videoId}", one chat message each.
+     * The messages must already be masked; {@link YTRustScraperService} masks each batch once and passes
+     * the result here.
      */
-    public void broadcast(String videoId, ChatMessage chatMessage) {
-        messagingTemplate.convertAndSend("/live/chat/" + videoId, chatMessage);
+    public void broadcast(String videoId, ScraperState state, List<SimpleChatMessage> maskedMessages, long timestamp) {
+        String destination = "/live/chat/" + videoId;
+        for (SimpleChatMessage message : maskedMessages) {
+            messagingTemplate.convertAndSend(destination, new ChatMessage(state.getVideoTitle(),
+                    state.getChannelName(), videoId, null, message.username(), message.message(), timestamp));
+        }
     }
-}
\ No newline at end of file
+}
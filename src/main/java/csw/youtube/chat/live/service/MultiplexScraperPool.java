@@ -0,0 +1,349 @@
+package csw.youtube.chat.live.service;
+
+import com.github.pemistahl.lingua.api.Language;
+import csw.youtube.chat.live.model.ScraperState;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Long-lived Rust scraper processes started with {@code --multiplex}, each hosting many videos as tabs
+ * of a single browser. Videos are added and removed over stdin ({@code add <videoId> [skipLangs]},
+ * {@code remove <videoId> [moving]}), and the process prefixes every line about a video with
+ * {@code [videoId]}. A moved video is added to its new host with
+ * {@code moving <totalMessages> <createdAt>}, so the new tab carries on from the video's state instead of
+ * reporting it IDLE with no messages.
+ * <p>
+ * Placement goes to the least-loaded host with room; a new host is launched only when every running
+ * one is full and fewer than {@code scraper.multiplex.hosts} exist. Rebalancing moves one video at a
+ * time from the busiest to the idlest host when they differ by more than the threshold, and drains
+ * hosts that were marked for recycling.
+ */
+@Slf4j
+@Service
+public class MultiplexScraperPool {
+    public static final String HOST_ID_PREFIX = "mux-host-";
+    private static final int EXIT_FINISHED = 0;
+    private static final int EXIT_HOST_DIED = 1;
+
+    private final boolean enabled;
+    private final int maxHosts;
+    private final int videosPerHost;
+    private final int rebalanceThreshold;
+    private final ScraperProcessMonitor processMonitor;
+
+    private final List<Host> hosts = new ArrayList<>();
+    private final AtomicInteger hostSequence = new AtomicInteger();
+
+    /**
+     * One video placed on a host. {@code moveTarget} is set while it's being moved to another host, so the
+     * {@code finished} line from the old host doesn't end the scraper.
+     */
+    private static final class Placement {
+        final String videoId;
+        final String skipLangs;
+        final Consumer<String> lineHandler;
+        final Supplier<ScraperState> state;
+        final CompletableFuture<Integer> completion = new CompletableFuture<>();
+        Host host;
+        Host moveTarget;
+
+        Placement(String videoId, String skipLangs, Consumer<String> lineHandler, Supplier<ScraperState> state) {
+            this.videoId = videoId;
+            this.skipLangs = skipLangs;
+            this.lineHandler = lineHandler;
+            this.state = state;
+        }
+
+        String addCommand(boolean moving) {
+            String command = "add " + videoId + " " + skipLangs;
+            ScraperState current = moving ? state.get() : null;
+            if (current != null && current.getCreatedAt() != null) {
+                command += " moving " + current.getTotalMessages().get() + " " + current.getCreatedAt();
+            }
+            return command.trim();
+        }
+    }
+
+    private final class Host {
+        final String id;
+        final Process process;
+        final Writer stdin;
+        final Map<String, Placement> videos = new LinkedHashMap<>();
+        boolean draining;
+
+        Host(String id, Process process) {
+            this.id = id;
+            this.process = process;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        boolean send(String command) {
+            try {
+                stdin.write(command + "\n");
+                stdin.flush();
+                return true;
+            } catch (IOException e) {
+                log.error("Failed to send '{}' to scraper host {}: {}", command, id, e.getMessage());
+                return false;
+            }
+        }
+
+        boolean add(Placement placement, boolean moving) {
+            videos.put(placement.videoId, placement);
+            placement.host = this;
+            if (videos.size() > videosPerHost) {
+                // Overcommitted: the limits sized for a full host would squeeze every tab on it
+                processMonitor.setShares(id, videos.size());
+            }
+            return send(placement.addCommand(moving));
+        }
+    }
+
+    public MultiplexScraperPool(
+            @Value("${scraper.multiplex.enabled:false}") boolean enabled,
+            @Value("${scraper.multiplex.hosts:4}") int maxHosts,
+            @Value("${scraper.multiplex.videos-per-host:12}") int videosPerHost,
+            @Value("${scraper.multiplex.rebalance-threshold:3}") int rebalanceThreshold,
+            ScraperProcessMonitor processMonitor) {
+        this.enabled = enabled;
+        this.maxHosts = maxHosts;
+        this.videosPerHost = videosPerHost;
+        this.rebalanceThreshold = rebalanceThreshold;
+        this.processMonitor = processMonitor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Places a video on a host. The future completes with 0 once the host reports the video finished,
+     * or 1 if the host died under it.
+     *
+     * @param lineHandler receives the host's output lines for this video, without the prefix
+     * @param state       the video's current state, read when the video moves to another host
+     */
+    public synchronized CompletableFuture<Integer> start(String videoId, Set<Language> skipLangs,
+                                                         Consumer<String> lineHandler,
+                                                         Supplier<ScraperState> state) throws IOException {
+        String langs = skipLangs.stream().map(Enum::name).collect(Collectors.joining(","));
+        Placement placement = new Placement(videoId, langs, lineHandler, state);
+        Host host = pickHost();
+        if (!host.add(placement, false)) {
+            host.videos.remove(videoId);
+            throw new IOException("Scraper host " + host.id + " isn't accepting commands");
+        }
+        log.info("Placed video {} on scraper host {} ({} videos)", videoId, host.id, host.videos.size());
+        return placement.completion;
+    }
+
+    /**
+     * Asks the host to stop a video. Completion is signalled through the future returned by {@link #start}.
+     *
+     * @return {@code false} if no host runs this video
+     */
+    public synchronized boolean stop(String videoId) {
+        Placement placement = findPlacement(videoId);
+        if (placement == null) {
+            return false;
+        }
+        placement.moveTarget = null; // a stop wins over a move in progress
+        return placement.host.send("remove " + videoId);
+    }
+
+    public synchronized boolean isHosting(String videoId) {
+        return findPlacement(videoId) != null;
+    }
+
+    public synchronized Set<String> getHostedVideoIds() {
+        return hosts.stream().flatMap(h -> h.videos.keySet().stream()).collect(Collectors.toSet());
+    }
+
+    /**
+     * Video ids per host, for the stats endpoint.
+     */
+    public synchronized Map<String, List<String>> getPlacement() {
+        Map<String, List<String>> placement = new TreeMap<>();
+        hosts.forEach(h -> placement.put(h.id, List.copyOf(h.videos.keySet())));
+        return placement;
+    }
+
+    /**
+     * Stops placing videos on a host and moves its videos elsewhere; it exits once empty.
+     *
+     * @return {@code false} if {@code hostId} isn't one of this pool's hosts
+     */
+    public synchronized boolean recycleHost(String hostId) {
+        Optional<Host> host = hosts.stream().filter(h -> h.id.equals(hostId)).findFirst();
+        host.ifPresent(h -> {
+            log.warn("Recycling scraper host {} ({} videos)", h.id, h.videos.size());
+            h.draining = true;
+        });
+        return host.isPresent();
+    }
+
+    @Scheduled(fixedRate = 30_000)
+    public synchronized void rebalance() {
+        if (!enabled || hosts.isEmpty()) {
+            return;
+        }
+
+        // Drained hosts exit once their last video finished or moved away
+        for (Host host : List.copyOf(hosts)) {
+            if (host.draining && host.videos.isEmpty()) {
+                retire(host);
+            }
+        }
+
+        List<Host> accepting = hosts.stream().filter(h -> !h.draining).toList();
+        Host idlest = accepting.stream().min(Comparator.comparingInt(h -> h.videos.size())).orElse(null);
+        Host busiest = hosts.stream()
+                .filter(h -> !h.draining || !h.videos.isEmpty())
+                .max(Comparator.comparingInt(h -> h.draining ? Integer.MAX_VALUE : h.videos.size()))
+                .orElse(null);
+        if (idlest == null || busiest == null || idlest == busiest) {
+            return;
+        }
+        boolean imbalanced = busiest.videos.size() - idlest.videos.size() > rebalanceThreshold;
+        if ((busiest.draining || imbalanced) && idlest.videos.size() < videosPerHost) {
+            // One video per round keeps the chat gap short and the pool stable
+            busiest.videos.values().stream()
+                    .filter(p -> p.moveTarget == null)
+                    .findFirst()
+                    .ifPresent(p -> move(p, idlest));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        List.copyOf(hosts).forEach(this::retire);
+    }
+
+    private void move(Placement placement, Host target) {
+        log.info("Moving video {} from scraper host {} to {}", placement.videoId, placement.host.id, target.id);
+        placement.moveTarget = target;
+        // "moving" keeps the old tab from reporting the video COMPLETED while it continues on the target
+        placement.host.send("remove " + placement.videoId + " moving");
+    }
+
+    private Host pickHost() throws IOException {
+        Optional<Host> withRoom = hosts.stream()
+                .filter(h -> !h.draining && h.process.isAlive() && h.videos.size() < videosPerHost)
+                .min(Comparator.comparingInt(h -> h.videos.size()));
+        if (withRoom.isPresent()) {
+            return withRoom.get();
+        }
+        if (hosts.stream().filter(h -> !h.draining).count() < maxHosts) {
+            return launchHost();
+        }
+        // Every host is full: overcommit the least-loaded one rather than refusing
+        return hosts.stream()
+                .filter(h -> !h.draining && h.process.isAlive())
+                .min(Comparator.comparingInt(h -> h.videos.size()))
+                .orElseThrow(() -> new IOException("No scraper host available"));
+    }
+
+    private Host launchHost() throws IOException {
+        String id = HOST_ID_PREFIX + hostSequence.incrementAndGet();
+        Process process = new ProcessBuilder(YTRustScraperService.RUST_SCRAPER_PATH, "--multiplex")
+                .redirectErrorStream(true)
+                .start();
+        Host host = new Host(id, process);
+        hosts.add(host);
+        // Sized for a full host, since every tab is a scraper
+        processMonitor.track(id, process, videosPerHost);
+        Thread.ofVirtual().name(id + "-output").start(() -> readOutput(host));
+        log.info("Launched scraper host {} (pid {})", id, process.pid());
+        return host;
+    }
+
+    private void retire(Host host) {
+        hosts.remove(host);
+        host.send("p");
+        processMonitor.terminateTree(host.process, YTRustScraperService.STOP_GRACE_PERIOD);
+        log.info("Retired scraper host {}", host.id);
+    }
+
+    private void readOutput(Host host) {
+        try (var reader = new BufferedReader(new InputStreamReader(host.process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                routeLine(host, line);
+            }
+        } catch (IOException e) {
+            log.error("Lost output of scraper host {}", host.id, e);
+        }
+        onHostExit(host);
+    }
+
+    private void routeLine(Host host, String line) {
+        // "[videoId] rest of line"
+        int end = line.indexOf("] ");
+        if (!line.startsWith("[") || end < 0) {
+            log.debug("Scraper host {}: {}", host.id, line);
+            return;
+        }
+        String videoId = line.substring(1, end);
+        String message = line.substring(end + 2);
+
+        Placement placement;
+        synchronized (this) {
+            placement = host.videos.get(videoId);
+            if (placement != null && message.equals("finished")) {
+                host.videos.remove(videoId);
+                Host target = placement.moveTarget;
+                placement.moveTarget = null;
+                if (target != null && hosts.contains(target)) {
+                    if (target.add(placement, true)) {
+                        return;
+                    }
+                    target.videos.remove(videoId);
+                }
+            }
+        }
+        if (placement == null) {
+            return;
+        }
+        if (message.equals("finished")) {
+            placement.completion.complete(EXIT_FINISHED);
+        } else {
+            placement.lineHandler.accept(message);
+        }
+    }
+
+    private void onHostExit(Host host) {
+        List<Placement> orphaned;
+        synchronized (this) {
+            hosts.remove(host);
+            orphaned = List.copyOf(host.videos.values());
+            host.videos.clear();
+        }
+        processMonitor.untrack(host.id);
+        if (!orphaned.isEmpty()) {
+            log.error("Scraper host {} exited with {} videos still on it", host.id, orphaned.size());
+        }
+        orphaned.forEach(p -> p.completion.complete(EXIT_HOST_DIED));
+    }
+
+    private Placement findPlacement(String videoId) {
+        for (Host host : hosts) {
+            Placement placement = host.videos.get(videoId);
+            if (placement != null) {
+                return placement;
+            }
+        }
+        return null;
+    }
+}
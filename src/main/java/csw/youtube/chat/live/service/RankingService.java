@@ -21,7 +21,6 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -317,16 +316,32 @@ public class RankingService {
     }
 
     public void updateLanguageStatsBatch(String videoId, List<String> messages) {
-        if (messages.isEmpty())
-            return;
-
-        // Thread-safe concurrent map
-        ConcurrentHashMap<Language, Integer> languageCounts = new ConcurrentHashMap<>();
+        recordLanguageStats(videoId, detectLanguages(messages));
+    }
 
-        messages.parallelStream()
+    /**
+     * Detects the language of each message, in order, so other per-message work (e.g. picking the
+     * profanity dictionary) can reuse the result.
+     */
+    public List<Language> detectLanguages(List<String> messages) {
+        return messages.parallelStream()
                 .map(globalLanguageDetector::detectLanguageOf)
-                .filter(lang -> lang != Language.UNKNOWN)  // Skip unknown languages
-                .forEach(lang -> languageCounts.merge(lang, 1, Integer::sum));
+                .toList();
+    }
+
+    /**
+     * Adds already detected message languages to the video's language stats.
+     */
+    public void recordLanguageStats(String videoId, List<Language> languages) {
+        if (languages.isEmpty())
+            return;
+
+        Map<Language, Integer> languageCounts = new EnumMap<>(Language.class);
+        for (Language lang : languages) {
+            if (lang != Language.UNKNOWN) {  // Skip unknown languages
+                languageCounts.merge(lang, 1, Integer::sum);
+            }
+        }
 
         // Then update Redis in a single pipeline
         String key = "video:" + videoId + ":lang-stats";
@@ -0,0 +1,225 @@
+package csw.youtube.chat.live.service;
+
+import com.sun.management.OperatingSystemMXBean;
+import csw.youtube.chat.live.dto.AdmissionDecision;
+import csw.youtube.chat.live.dto.ScraperProcessResources;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Decides how many scrapers this node can run from what the host (or its cgroup v2 limits) has left.
+ * <p>
+ * Every round it samples memory and CPU usage of the whole node, takes each scraper's process tree usage
+ * (the Rust binary plus its Chrome children) from {@link ScraperProcessMonitor}, keeps an EWMA of what
+ * one scraper costs, and converts the remaining headroom into a number of slots. The limit grows one
+ * slot at a time after a cooldown and only when there is clearly room for more, but shrinks right away
+ * under pressure: idle capacity is cheaper than swapping.
+ */
+@Slf4j
+@Service
+public class ScraperAdmissionController {
+    private static final Path CGROUP_ROOT = Path.of("/sys/fs/cgroup");
+    private static final Path MEMINFO = Path.of("/proc/meminfo");
+    private static final double EWMA_ALPHA = 0.3;
+    private static final double GROW_MARGIN = 1.5; // room for 1.5 more scrapers before adding one slot
+    private static final Duration GROW_COOLDOWN = Duration.ofSeconds(30);
+
+    @Getter
+    private final boolean enabled;
+    private final int minRunning;
+    private final int maxRunning;
+    private final double targetCpuUtilization;
+    private final long memoryReserveBytes;
+    private final OperatingSystemMXBean osBean =
+            (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    // Learned cost of one scraper, seeded with the configured priors
+    private double marginalMemoryBytes;
+    private double marginalCpuCores;
+
+    private long lastSampleNanos;
+    private long lastCgroupCpuMicros = -1;
+    private Instant lastGrowth = Instant.EPOCH;
+    @Getter
+    private volatile AdmissionDecision lastDecision;
+
+    public ScraperAdmissionController(
+            @Value("${scraper.admission.enabled:true}") boolean enabled,
+            @Value("${scraper.admission.min-running:1}") int minRunning,
+            @Value("${scraper.max-running:30}") int maxRunning,
+            @Value("${scraper.admission.target-cpu-utilization:0.8}") double targetCpuUtilization,
+            @Value("${scraper.admission.memory-reserve-mb:1024}") long memoryReserveMb,
+            @Value("${scraper.admission.prior-memory-mb:400}") long priorMemoryMb,
+            @Value("${scraper.admission.prior-cpu-cores:0.5}") double priorCpuCores) {
+        this.enabled = enabled;
+        this.minRunning = minRunning;
+        this.maxRunning = maxRunning;
+        this.targetCpuUtilization = targetCpuUtilization;
+        this.memoryReserveBytes = memoryReserveMb * 1024 * 1024;
+        this.marginalMemoryBytes = priorMemoryMb * 1024.0 * 1024.0;
+        this.marginalCpuCores = priorCpuCores;
+    }
+
+    /**
+     * Samples the node and returns the number of scrapers it should allow.
+     *
+     * @param processes    latest usage of the scraper process trees on this node
+     * @param running      scrapers currently running (more than {@code processes} when hosts are multiplexed)
+     * @param currentLimit the limit in effect right now
+     */
+    public synchronized int evaluate(Collection<ScraperProcessResources> processes, int running, int currentLimit) {
+        AdmissionDecision decision = decide(sample(processes, running), currentLimit, Instant.now());
+        if (decision.limit() != decision.previousLimit()) {
+            log.info("Scraper admission limit {} -> {} ({}; running {}, mem headroom {} MB, cpu headroom {} cores)",
+                    decision.previousLimit(), decision.limit(), decision.reason(), decision.running(),
+                    Math.round(decision.memoryHeadroomMb()), String.format("%.2f", decision.cpuHeadroomCores()));
+        }
+        return decision.limit();
+    }
+
+    /**
+     * Node and scraper usage at one point in time. CPU values are in cores.
+     */
+    record Sample(long memoryLimitBytes, long memoryUsedBytes, double cpuLimitCores, double cpuUsedCores,
+                  int scrapers, long scraperMemoryBytes, double scraperCpuCores, boolean cgroupLimited) {
+    }
+
+    AdmissionDecision decide(Sample sample, int currentLimit, Instant now) {
+        if (sample.scrapers() > 0) {
+            // Scrapers share a node, so the average is the best estimate of what the next one adds
+            marginalMemoryBytes = ewma(marginalMemoryBytes, (double) sample.scraperMemoryBytes() / sample.scrapers());
+            marginalCpuCores = ewma(marginalCpuCores, sample.scraperCpuCores() / sample.scrapers());
+        }
+
+        double memoryHeadroom = sample.memoryLimitBytes() - memoryReserveBytes - sample.memoryUsedBytes();
+        double cpuHeadroom = sample.cpuLimitCores() * targetCpuUtilization - sample.cpuUsedCores();
+        double room = Math.min(memoryHeadroom / Math.max(marginalMemoryBytes, 1),
+                cpuHeadroom / Math.max(marginalCpuCores, 0.01));
+        int fits = sample.scrapers() + (int) Math.floor(room);
+
+        int limit = currentLimit;
+        String reason = "hold";
+        if (lastDecision == null) {
+            limit = fits; // first round: size straight from the priors instead of creeping up
+            reason = "initial sizing";
+        } else if (room < 0) {
+            limit = fits;
+            reason = memoryHeadroom < 0 ? "memory pressure" : "cpu pressure";
+        } else if (currentLimit > fits + 1) {
+            // Unused slots would let the node claim more than it can carry; keep one slot of slack
+            limit = fits + 1;
+            reason = "headroom shrank";
+        } else if (currentLimit < fits && room >= GROW_MARGIN
+                && Duration.between(lastGrowth, now).compareTo(GROW_COOLDOWN) >= 0) {
+            limit = currentLimit + 1;
+            reason = "headroom available";
+        }
+        limit = Math.clamp(limit, minRunning, maxRunning);
+        if (limit > currentLimit) {
+            lastGrowth = now;
+        }
+
+        lastDecision = new AdmissionDecision(now, currentLimit, limit, sample.scrapers(),
+                memoryHeadroom / (1024 * 1024), cpuHeadroom, marginalMemoryBytes / (1024 * 1024),
+                marginalCpuCores, sample.cgroupLimited(), reason);
+        return lastDecision;
+    }
+
+    private Sample sample(Collection<ScraperProcessResources> processes, int running) {
+        long nowNanos = System.nanoTime();
+        double elapsedSeconds = lastSampleNanos == 0 ? 0 : (nowNanos - lastSampleNanos) / 1e9;
+        lastSampleNanos = nowNanos;
+
+        // Memory: the cgroup limit wins when it is tighter than the host
+        long hostTotal = osBean.getTotalMemorySize();
+        long hostUsed = hostTotal - readMeminfo("MemAvailable").orElse(osBean.getFreeMemorySize());
+        OptionalLong cgroupMax = readCgroupValue("memory.max");
+        boolean cgroupLimited = cgroupMax.isPresent() && cgroupMax.getAsLong() < hostTotal;
+        long memoryLimit = cgroupLimited ? cgroupMax.getAsLong() : hostTotal;
+        long memoryUsed = hostUsed;
+        if (cgroupLimited) {
+            // Reclaimable page cache counts toward memory.current but doesn't cause OOM kills
+            memoryUsed = readCgroupValue("memory.current").orElse(hostUsed)
+                    - readCgroupStat("memory.stat", "inactive_file").orElse(0);
+        }
+
+        // CPU: cpu.max quota/period if set, else every core the JVM can see
+        double cpuLimit = osBean.getAvailableProcessors();
+        OptionalDouble quota = readCpuQuotaCores();
+        if (quota.isPresent() && quota.getAsDouble() < cpuLimit) {
+            cpuLimit = quota.getAsDouble();
+            cgroupLimited = true;
+        }
+        double cpuUsed = Math.max(0, osBean.getCpuLoad()) * osBean.getAvailableProcessors();
+        OptionalLong cgroupCpuMicros = readCgroupStat("cpu.stat", "usage_usec");
+        if (cgroupCpuMicros.isPresent()) {
+            if (lastCgroupCpuMicros >= 0 && elapsedSeconds > 0) {
+                cpuUsed = (cgroupCpuMicros.getAsLong() - lastCgroupCpuMicros) / 1e6 / elapsedSeconds;
+            }
+            lastCgroupCpuMicros = cgroupCpuMicros.getAsLong();
+        }
+
+        long scraperMemory = processes.stream().mapToLong(ScraperProcessResources::rssBytes).sum();
+        double scraperCpu = processes.stream().mapToDouble(ScraperProcessResources::cpuCores).sum();
+
+        return new Sample(memoryLimit, memoryUsed, cpuLimit, cpuUsed,
+                running, scraperMemory, scraperCpu, cgroupLimited);
+    }
+
+    private double ewma(double previous, double observed) {
+        return EWMA_ALPHA * observed + (1 - EWMA_ALPHA) * previous;
+    }
+
+    private static OptionalLong readCgroupValue(String file) {
+        try {
+            String value = Files.readString(CGROUP_ROOT.resolve(file)).trim();
+            return "max".equals(value) ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(value));
+        } catch (IOException | NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static OptionalLong readCgroupStat(String file, String key) {
+        return readKeyedValue(CGROUP_ROOT.resolve(file), key, 1);
+    }
+
+    private static OptionalLong readMeminfo(String key) {
+        // "MemAvailable:   12345678 kB"
+        return readKeyedValue(MEMINFO, key + ":", 1024);
+    }
+
+    private static OptionalLong readKeyedValue(Path path, String key, long multiplier) {
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.map(line -> line.trim().split("\\s+"))
+                    .filter(fields -> fields.length >= 2 && fields[0].equals(key))
+                    .mapToLong(fields -> Long.parseLong(fields[1]) * multiplier)
+                    .findFirst();
+        } catch (IOException | RuntimeException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static OptionalDouble readCpuQuotaCores() {
+        try {
+            // "max 100000" or "<quota> <period>"
+            String[] fields = Files.readString(CGROUP_ROOT.resolve("cpu.max")).trim().split("\\s+");
+            if (fields.length < 2 || "max".equals(fields[0])) {
+                return OptionalDouble.empty();
+            }
+            return OptionalDouble.of(Double.parseDouble(fields[0]) / Double.parseDouble(fields[1]));
+        } catch (IOException | NumberFormatException e) {
+            return OptionalDouble.empty();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package csw.youtube.chat.live.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import csw.youtube.chat.live.dto.ScraperSnapshot;
+import csw.youtube.chat.live.model.ScraperState;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide scraper ownership backed by Redis.
+ * <p>
+ * A scraper process is owned by exactly one node through a lease key ({@code scraper:lease:{videoId}})
+ * that the owner renews on a heartbeat. Owners publish {@link ScraperSnapshot}s so that any node can
+ * serve read endpoints for scrapers it doesn't run.
+ */
+@Slf4j
+@Service
+public class ScraperClusterService {
+    public static final Duration LEASE_TTL = Duration.ofSeconds(30);
+    private static final Duration SNAPSHOT_TTL = Duration.ofMinutes(10);
+    private static final String LEASE_KEY = "scraper:lease:";
+    private static final String SNAPSHOT_KEY = "scraper:snapshot:";
+    private static final String SNAPSHOT_INDEX_KEY = "scraper:snapshot-index";
+    private static final int SNAPSHOT_RECENT_MESSAGES = 100;
+
+    // Only touch the key while we still own it
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RTopic stopTopic;
+    @Getter
+    private final String nodeId;
+
+    public ScraperClusterService(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                 RedissonClient redissonClient,
+                                 @Value("${scraper.node-id:}") String nodeId) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.stopTopic = redissonClient.getTopic("scraperStop");
+        // RuntimeMXBean name is "pid@hostname", unique per JVM
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+        log.info("Scraper cluster node id: {}", this.nodeId);
+    }
+
+    // Leases
+
+    public boolean acquireLease(String videoId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LEASE_KEY + videoId, nodeId, LEASE_TTL));
+    }
+
+    /**
+     * @return {@code false} if the lease expired or was taken over by another node
+     */
+    public boolean renewLease(String videoId) {
+        Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(LEASE_KEY + videoId),
+                nodeId, String.valueOf(LEASE_TTL.toMillis()));
+        return renewed != null && renewed == 1L;
+    }
+
+    public void releaseLease(String videoId) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY + videoId), nodeId);
+    }
+
+    public Optional<String> getLeaseOwner(String videoId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(LEASE_KEY + videoId));
+    }
+
+    /**
+     * Asks whichever node owns the scraper to stop it.
+     */
+    public void requestStop(String videoId) {
+        stopTopic.publish(videoId);
+    }
+
+    public void onStopRequest(Consumer<String> handler) {
+        stopTopic.addListener(String.class, (_, videoId) -> handler.accept(videoId));
+    }
+
+    // Snapshots
+
+    public void publishSnapshot(ScraperState state) {
+        ScraperSnapshot snapshot = ScraperSnapshot.of(state, nodeId, SNAPSHOT_RECENT_MESSAGES);
+        try {
+            String json = objectMapper.writeValueAsString(snapshot);
+            redisTemplate.opsForValue().set(SNAPSHOT_KEY + state.getVideoId(), json, SNAPSHOT_TTL);
+            redisTemplate.opsForSet().add(SNAPSHOT_INDEX_KEY, state.getVideoId());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize snapshot for video {}", state.getVideoId(), e);
+        }
+    }
+
+    public Optional<ScraperSnapshot> getSnapshot(String videoId) {
+        String json = redisTemplate.opsForValue().get(SNAPSHOT_KEY + videoId);
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(json, ScraperSnapshot.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable snapshot for video {}: {}", videoId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the snapshots of every scraper known to the cluster, pruning index entries whose
+     * snapshot already expired.
+     */
+    public Map<String, ScraperSnapshot> getAllSnapshots() {
+        Set<String> videoIds = redisTemplate.opsForSet().members(SNAPSHOT_INDEX_KEY);
+        if (videoIds == null || videoIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, ScraperSnapshot> snapshots = new TreeMap<>();
+        List<String> expired = new ArrayList<>();
+        for (String videoId : videoIds) {
+            getSnapshot(videoId).ifPresentOrElse(s -> snapshots.put(videoId, s), () -> expired.add(videoId));
+        }
+        if (!expired.isEmpty()) {
+            redisTemplate.opsForSet().remove(SNAPSHOT_INDEX_KEY, expired.toArray());
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,354 @@
+package csw.youtube.chat.live.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import csw.youtube.chat.live.model.ScraperEngine;
+import csw.youtube.chat.live.model.ScraperRequester;
+import csw.youtube.chat.live.model.ScraperTask;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Cluster-wide scraper work queue in Redis.
+ * <p>
+ * Tasks survive restarts: a task stays in {@code scraper:dispatch:tasks} from enqueue until the scraper
+ * finishes. Nodes pull from the pending set themselves (work stealing) when they have free slots,
+ * and a claimed task is only visible to its claimer for {@link #VISIBILITY_TIMEOUT} until the scraper
+ * actually starts. Tasks whose claim timed out, or whose owner node stopped heartbeating, are put back
+ * in front of the queue. A task that can't start yet (its previous owner still holds the lease) is put
+ * back with a delay instead, and only becomes claimable again once the delay is over. Each node
+ * advertises its free slots so the least-loaded node claims first. A claim skips tasks whose engine the
+ * node has no room for, so browser tasks waiting for slots don't hold up HTTP polling tasks behind them.
+ * <p>
+ * The pending set is ordered like weighted fair queueing: every requester has a virtual finish time
+ * that advances by {@code 1 / weight} per video it queues, starting no earlier than the cluster's
+ * virtual clock (the score of the last claimed task). A user who queues 50 videos therefore gets every
+ * other turn instead of the next 50, and higher tiers advance more slowly. Each additional requester
+ * asking for an already queued video moves it forward by {@link #DEMAND_BOOST}.
+ */
+@Slf4j
+@Service
+public class ScraperDispatchService {
+    public static final Duration VISIBILITY_TIMEOUT = Duration.ofMinutes(2);
+    // Longer than the scraper lease, so a dead node's leases are gone before its tasks are requeued
+    private static final Duration NODE_TTL = Duration.ofSeconds(45);
+    private static final int MAX_PLACEMENT_DEFERRALS = 3;
+    // How far into the queue a claim looks for a task of an engine that has room
+    private static final int CLAIM_SCAN_DEPTH = 100;
+    // In virtual time units: one extra requester is worth half a turn of an anonymous requester
+    private static final double DEMAND_BOOST = 0.5;
+    private static final Duration REQUESTERS_TTL = Duration.ofHours(6);
+
+    private static final String PENDING_KEY = "scraper:dispatch:pending";   // ZSET videoId -> order
+    private static final String TASKS_KEY = "scraper:dispatch:tasks";       // HASH videoId -> task json
+    private static final String INFLIGHT_KEY = "scraper:dispatch:inflight"; // ZSET videoId -> visibility deadline
+    private static final String CLAIMS_KEY = "scraper:dispatch:claims";     // HASH videoId -> nodeId
+    private static final String NODES_KEY = "scraper:dispatch:nodes";       // HASH nodeId -> free slots
+    private static final String NODE_ALIVE_KEY = "scraper:dispatch:node:";  // STRING with TTL per node
+    private static final String VIRTUAL_TIME_KEY = "scraper:dispatch:vtime"; // STRING, score of the last claim
+    private static final String FINISH_KEY = "scraper:dispatch:finish";     // HASH requester -> virtual finish time
+    private static final String DELAYED_KEY = "scraper:dispatch:delayed";   // ZSET videoId -> not before (millis)
+    private static final String REQUESTERS_KEY = "scraper:dispatch:requesters:"; // SET per video
+
+    // Returns 1 when queued, 2 when a new requester raised the demand of a queued video, 0 otherwise
+    private static final RedisScript<Long> ENQUEUE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('hexists', KEYS[2], ARGV[1]) == 1 then
+                if redis.call('zscore', KEYS[1], ARGV[1]) and redis.call('sadd', KEYS[8], ARGV[3]) == 1 then
+                    redis.call('zincrby', KEYS[1], -tonumber(ARGV[5]), ARGV[1])
+                    return 2
+                end
+                return 0
+            end
+            local now = tonumber(redis.call('get', KEYS[5]) or '0')
+            local last = tonumber(redis.call('hget', KEYS[6], ARGV[3]) or '0')
+            local finish = math.max(now, last) + tonumber(ARGV[4])
+            redis.call('hset', KEYS[6], ARGV[3], tostring(finish))
+            redis.call('hset', KEYS[2], ARGV[1], ARGV[2])
+            redis.call('zadd', KEYS[1], finish, ARGV[1])
+            redis.call('del', KEYS[8])
+            redis.call('sadd', KEYS[8], ARGV[3])
+            redis.call('pexpire', KEYS[8], ARGV[6])
+            return 1
+            """, Long.class);
+    // Moves delayed tasks due by ARGV[5] to the front, then claims the first of the leading ARGV[3] tasks whose
+    // engine is in ARGV[4] (",RUST,HTTP,"), and advances the virtual clock to its score (requeued tasks sit
+    // at -inf and don't move it)
+    private static final RedisScript<String> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            for _, videoId in ipairs(redis.call('zrangebyscore', KEYS[7], '-inf', ARGV[5])) do
+                redis.call('zrem', KEYS[7], videoId)
+                redis.call('zadd', KEYS[1], '-inf', videoId)
+            end
+            local head = redis.call('zrange', KEYS[1], 0, tonumber(ARGV[3]) - 1, 'WITHSCORES')
+            for i = 1, #head, 2 do
+                local videoId = head[i]
+                local task = redis.call('hget', KEYS[2], videoId)
+                local engine = task and cjson.decode(task).engine
+                if type(engine) ~= 'string' then engine = 'RUST' end
+                if string.find(ARGV[4], ',' .. engine .. ',', 1, true) then
+                    if head[i + 1] ~= '-inf' and tonumber(head[i + 1]) > tonumber(redis.call('get', KEYS[5]) or '0') then
+                        redis.call('set', KEYS[5], head[i + 1])
+                    end
+                    redis.call('zrem', KEYS[1], videoId)
+                    redis.call('zadd', KEYS[3], ARGV[2], videoId)
+                    redis.call('hset', KEYS[4], videoId, ARGV[1])
+                    return videoId
+                end
+            end
+            return false
+            """, String.class);
+    // Requeue only if the claim still belongs to the expected node, so concurrent reapers are harmless.
+    // A non-zero ARGV[4] parks the task in the delayed set until that time.
+    private static final RedisScript<Long> REQUEUE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('hget', KEYS[4], ARGV[1]) ~= ARGV[2] then return 0 end
+            redis.call('hdel', KEYS[4], ARGV[1])
+            redis.call('zrem', KEYS[3], ARGV[1])
+            if redis.call('hexists', KEYS[2], ARGV[1]) == 0 then return 0 end
+            if tonumber(ARGV[4]) > 0 then
+                redis.call('zadd', KEYS[7], ARGV[4], ARGV[1])
+            else
+                redis.call('zadd', KEYS[1], ARGV[3], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+    private static final List<String> KEYS =
+            List.of(PENDING_KEY, TASKS_KEY, INFLIGHT_KEY, CLAIMS_KEY, VIRTUAL_TIME_KEY, FINISH_KEY, DELAYED_KEY);
+
+    public enum EnqueueResult {
+        QUEUED,
+        DEMAND_RAISED, // already queued; another requester made it more urgent
+        DUPLICATE      // already queued by this requester, or already running
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private int placementDeferrals;
+
+    public ScraperDispatchService(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                  ScraperClusterService clusterService) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.nodeId = clusterService.getNodeId();
+    }
+
+    /**
+     * Queues a task at the requester's fair-share position, or raises the demand of an already queued one.
+     */
+    public EnqueueResult enqueue(ScraperTask task, ScraperRequester requester) {
+        List<String> keys = new ArrayList<>(KEYS);
+        keys.add(REQUESTERS_KEY + task.videoId());
+        try {
+            Long result = redisTemplate.execute(ENQUEUE_SCRIPT, keys,
+                    task.videoId(), objectMapper.writeValueAsString(task), requester.id(),
+                    String.valueOf(1.0 / requester.tier().weight()), String.valueOf(DEMAND_BOOST),
+                    String.valueOf(REQUESTERS_TTL.toMillis()));
+            return switch (result == null ? 0 : result.intValue()) {
+                case 1 -> EnqueueResult.QUEUED;
+                case 2 -> EnqueueResult.DEMAND_RAISED;
+                default -> EnqueueResult.DUPLICATE;
+            };
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize scraper task for video " + task.videoId(), e);
+        }
+    }
+
+    /**
+     * Claims the next task this node has room for. Engines draw on separate budgets, so a task is only
+     * claimed if its engine is in {@code engines}; tasks of other engines keep their place in the queue.
+     * When another live node advertises more free slots, this node steps aside from browser tasks a few
+     * times before stealing one anyway.
+     *
+     * @param engines   engines this node can start a scraper with right now
+     * @param freeSlots browser slots this node has available right now
+     */
+    public Optional<ScraperTask> claim(Set<ScraperEngine> engines, int freeSlots) {
+        Set<ScraperEngine> claimable = EnumSet.noneOf(ScraperEngine.class);
+        claimable.addAll(engines);
+        if (freeSlots <= 0) {
+            claimable.remove(ScraperEngine.RUST);
+        } else if (claimable.contains(ScraperEngine.RUST) && hasLessLoadedPeer(freeSlots)
+                && placementDeferrals < MAX_PLACEMENT_DEFERRALS) {
+            placementDeferrals++;
+            claimable.remove(ScraperEngine.RUST);
+        }
+        if (claimable.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        long deadline = now + VISIBILITY_TIMEOUT.toMillis();
+        String engineList = claimable.stream().map(Enum::name).collect(Collectors.joining(",", ",", ","));
+        String videoId = redisTemplate.execute(CLAIM_SCRIPT, KEYS, nodeId, String.valueOf(deadline),
+                String.valueOf(CLAIM_SCAN_DEPTH), engineList, String.valueOf(now));
+        if (videoId == null) {
+            return Optional.empty();
+        }
+
+        Optional<ScraperTask> task = readTask(videoId);
+        if (task.isEmpty()) {
+            complete(videoId);
+        } else if (task.get().engine() == ScraperEngine.RUST) {
+            placementDeferrals = 0;
+        }
+        return task;
+    }
+
+    /**
+     * The scraper started: the claim no longer times out, it's kept until {@link #complete} or the node dies.
+     */
+    public void acknowledge(String videoId) {
+        redisTemplate.opsForZSet().remove(INFLIGHT_KEY, videoId);
+    }
+
+    /**
+     * Puts a claimed task back in front of the queue.
+     */
+    public void requeue(String videoId) {
+        requeue(videoId, nodeId, 0);
+    }
+
+    /**
+     * Puts a claimed task back in front of the queue once {@code delay} has passed; until then no node
+     * claims it.
+     */
+    public void requeue(String videoId, Duration delay) {
+        requeue(videoId, nodeId, System.currentTimeMillis() + delay.toMillis());
+    }
+
+    /**
+     * Drops a task that hasn't been claimed yet.
+     *
+     * @return {@code false} if the video wasn't waiting in the queue
+     */
+    public boolean cancelPending(String videoId) {
+        Long removed = redisTemplate.opsForZSet().remove(PENDING_KEY, videoId);
+        if (removed == null || removed == 0) {
+            removed = redisTemplate.opsForZSet().remove(DELAYED_KEY, videoId);
+        }
+        if (removed == null || removed == 0) {
+            return false;
+        }
+        redisTemplate.opsForHash().delete(TASKS_KEY, videoId);
+        redisTemplate.delete(REQUESTERS_KEY + videoId);
+        return true;
+    }
+
+    public void complete(String videoId) {
+        redisTemplate.delete(REQUESTERS_KEY + videoId);
+        redisTemplate.opsForZSet().remove(PENDING_KEY, videoId);
+        redisTemplate.opsForZSet().remove(DELAYED_KEY, videoId);
+        redisTemplate.opsForZSet().remove(INFLIGHT_KEY, videoId);
+        redisTemplate.opsForHash().delete(CLAIMS_KEY, videoId);
+        redisTemplate.opsForHash().delete(TASKS_KEY, videoId);
+    }
+
+    public void advertise(int freeSlots) {
+        redisTemplate.opsForHash().put(NODES_KEY, nodeId, String.valueOf(freeSlots));
+        redisTemplate.opsForValue().set(NODE_ALIVE_KEY + nodeId, String.valueOf(freeSlots), NODE_TTL);
+    }
+
+    public void withdraw() {
+        redisTemplate.opsForHash().delete(NODES_KEY, nodeId);
+        redisTemplate.delete(NODE_ALIVE_KEY + nodeId);
+    }
+
+    public int getPendingCount() {
+        Long pending = redisTemplate.opsForZSet().zCard(PENDING_KEY);
+        Long delayed = redisTemplate.opsForZSet().zCard(DELAYED_KEY);
+        return (pending == null ? 0 : pending.intValue()) + (delayed == null ? 0 : delayed.intValue());
+    }
+
+    /**
+     * @return 1-based position of the video in the pending queue, empty if it isn't waiting
+     */
+    public OptionalInt getQueuePosition(String videoId) {
+        Long rank = redisTemplate.opsForZSet().rank(PENDING_KEY, videoId);
+        return rank == null ? OptionalInt.empty() : OptionalInt.of(rank.intValue() + 1);
+    }
+
+    /**
+     * Free slots advertised by every live node, this one included.
+     */
+    public Map<String, Integer> getClusterFreeSlots() {
+        Map<String, Integer> slots = new TreeMap<>();
+        redisTemplate.opsForHash().entries(NODES_KEY).forEach((node, free) -> {
+            if (isAlive(node.toString())) {
+                slots.put(node.toString(), Integer.parseInt(free.toString()));
+            }
+        });
+        return slots;
+    }
+
+    /**
+     * Requeues tasks whose claim wasn't acknowledged in time, or whose owner node stopped heartbeating.
+     */
+    @Scheduled(fixedRate = 15_000)
+    public void reapOrphanedTasks() {
+        long now = System.currentTimeMillis();
+        Set<String> expired = redisTemplate.opsForZSet().rangeByScore(INFLIGHT_KEY, 0, now);
+        Map<Object, Object> claims = redisTemplate.opsForHash().entries(CLAIMS_KEY);
+
+        claims.forEach((videoId, owner) -> {
+            boolean timedOut = expired != null && expired.contains(videoId.toString());
+            if (timedOut || !isAlive(owner.toString())) {
+                if (requeue(videoId.toString(), owner.toString(), 0)) {
+                    log.warn("Requeued scraper task for video {} (owner {} {})", videoId, owner,
+                            timedOut ? "didn't start it in time" : "is gone");
+                }
+            }
+        });
+
+        redisTemplate.opsForHash().keys(NODES_KEY).forEach(node -> {
+            if (!isAlive(node.toString())) {
+                redisTemplate.opsForHash().delete(NODES_KEY, node);
+            }
+        });
+
+        // A finish time behind the virtual clock behaves like no entry at all
+        String virtualTime = redisTemplate.opsForValue().get(VIRTUAL_TIME_KEY);
+        double now = virtualTime == null ? 0 : Double.parseDouble(virtualTime);
+        redisTemplate.opsForHash().entries(FINISH_KEY).forEach((requester, finish) -> {
+            if (Double.parseDouble(finish.toString()) <= now) {
+                redisTemplate.opsForHash().delete(FINISH_KEY, requester);
+            }
+        });
+    }
+
+    // notBefore is epoch millis, 0 for right away
+    private boolean requeue(String videoId, String owner, long notBefore) {
+        // -inf puts requeued work ahead of everything that was enqueued normally
+        Long requeued = redisTemplate.execute(REQUEUE_SCRIPT, KEYS, videoId, owner, "-inf",
+                String.valueOf(notBefore));
+        return requeued != null && requeued == 1L;
+    }
+
+    private boolean hasLessLoadedPeer(int freeSlots) {
+        return getClusterFreeSlots().entrySet().stream()
+                .anyMatch(e -> !e.getKey().equals(nodeId) && e.getValue() > freeSlots);
+    }
+
+    private boolean isAlive(String node) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(NODE_ALIVE_KEY + node));
+    }
+
+    private Optional<ScraperTask> readTask(String videoId) {
+        Object json = redisTemplate.opsForHash().get(TASKS_KEY, videoId);
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(json.toString(), ScraperTask.class));
+        } catch (JsonProcessingException e) {
+            log.error("Dropping unreadable scraper task for video {}", videoId, e);
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package csw.youtube.chat.live.service;
+
+import csw.youtube.chat.live.dto.ScraperProcessResources;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Tracks the process tree of every scraper on this node (the Rust binary and the Chrome processes it
+ * launches) and samples RSS and CPU time from /proc.
+ * <p>
+ * With {@code scraper.process.cgroup.enabled}, each tree is also moved into its own cgroup v2 directory
+ * under {@code scraper.process.cgroup.root} with {@code memory.max} and {@code cpu.max} set, so the kernel
+ * caps a runaway tab instead of the whole host paying for it. The root must be a delegated (writable)
+ * cgroup, e.g. a systemd slice with {@code Delegate=yes}. Without cgroups, {@code scraper.process.max-rss-mb}
+ * stops a scraper whose tree grows past the limit. The limits are per scraper: a tree that hosts several
+ * (a multiplex host) is tracked with that many shares, and gets that multiple of each limit.
+ */
+@Slf4j
+@Service
+public class ScraperProcessMonitor {
+    private static final Path PROC = Path.of("/proc");
+    private static final long PAGE_SIZE = 4096;
+    private static final long CLOCK_TICKS_PER_SECOND = 100; // USER_HZ on every mainstream Linux build
+    private static final long CPU_MAX_PERIOD_MICROS = 100_000;
+
+    private final boolean cgroupEnabled;
+    private final Path cgroupRoot;
+    private final long cgroupMemoryMaxBytes;
+    private final double cgroupCpuMaxCores;
+    private final long maxRssBytes;
+
+    private final Map<String, TrackedTree> trees = new ConcurrentHashMap<>();
+    // Cgroups of untracked scrapers whose processes hadn't all exited yet
+    private final Set<Path> staleCgroups = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<String> runawayHandler = _ -> {
+    };
+
+    private static final class TrackedTree {
+        final Process process;
+        final Path cgroup;
+        volatile int shares;
+        long lastCpuTicks = -1;
+        long lastSampleNanos;
+        long peakRssBytes;
+        // The handler is called once per tree; stopping it takes longer than a sampling interval
+        boolean runawayReported;
+        volatile ScraperProcessResources latest;
+
+        TrackedTree(Process process, Path cgroup, int shares) {
+            this.process = process;
+            this.cgroup = cgroup;
+            this.shares = shares;
+        }
+    }
+
+    public ScraperProcessMonitor(
+            @Value("${scraper.process.cgroup.enabled:false}") boolean cgroupEnabled,
+            @Value("${scraper.process.cgroup.root:/sys/fs/cgroup/ytchatx.slice}") String cgroupRoot,
+            @Value("${scraper.process.cgroup.memory-max-mb:1536}") long cgroupMemoryMaxMb,
+            @Value("${scraper.process.cgroup.cpu-max-cores:1.0}") double cgroupCpuMaxCores,
+            @Value("${scraper.process.max-rss-mb:0}") long maxRssMb) {
+        this.cgroupRoot = Path.of(cgroupRoot);
+        this.cgroupMemoryMaxBytes = cgroupMemoryMaxMb * 1024 * 1024;
+        this.cgroupCpuMaxCores = cgroupCpuMaxCores;
+        this.maxRssBytes = maxRssMb * 1024 * 1024;
+        this.cgroupEnabled = cgroupEnabled && prepareCgroupRoot();
+    }
+
+    /**
+     * Called with the video id of a scraper whose tree exceeded {@code scraper.process.max-rss-mb}.
+     */
+    public void onRunaway(Consumer<String> handler) {
+        this.runawayHandler = handler;
+    }
+
+    public void track(String videoId, Process process) {
+        track(videoId, process, 1);
+    }
+
+    /**
+     * Tracks a tree that runs {@code shares} scrapers.
+     */
+    public void track(String id, Process process, int shares) {
+        Path cgroup = cgroupEnabled ? createCgroup(id, shares) : null;
+        trees.put(id, new TrackedTree(process, cgroup, shares));
+        if (cgroup != null) {
+            moveIntoCgroup(cgroup, process.toHandle());
+        }
+    }
+
+    /**
+     * Changes the number of scrapers a tracked tree runs, and its limits with it.
+     */
+    public void setShares(String id, int shares) {
+        TrackedTree tree = trees.get(id);
+        if (tree == null || tree.shares == shares) {
+            return;
+        }
+        tree.shares = shares;
+        if (tree.cgroup != null) {
+            writeLimits(tree.cgroup, shares);
+        }
+    }
+
+    public void untrack(String videoId) {
+        TrackedTree tree = trees.remove(videoId);
+        if (tree != null && tree.cgroup != null && !removeCgroup(tree.cgroup)) {
+            staleCgroups.add(tree.cgroup);
+        }
+    }
+
+    public Optional<ScraperProcessResources> getResources(String videoId) {
+        return Optional.ofNullable(trees.get(videoId)).map(tree -> tree.latest);
+    }
+
+    public Map<String, ScraperProcessResources> getAllResources() {
+        Map<String, ScraperProcessResources> resources = new TreeMap<>();
+        trees.forEach((videoId, tree) -> {
+            if (tree.latest != null) {
+                resources.put(videoId, tree.latest);
+            }
+        });
+        return resources;
+    }
+
+    /**
+     * Waits up to {@code grace} for the scraper to exit on its own, then kills whatever is left of its
+     * tree. The descendants are captured up front because they're reparented once the root exits.
+     */
+    public void terminateTree(Process process, Duration grace) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        process.onExit()
+                .completeOnTimeout(process, grace.toMillis(), TimeUnit.MILLISECONDS)
+                .thenRun(() -> {
+                    if (process.isAlive()) {
+                        log.warn("Scraper process {} ignored the stop command; killing it", process.pid());
+                        process.destroyForcibly();
+                    }
+                    descendants.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+                });
+    }
+
+    /**
+     * Kills scraper processes left over from a previous JVM, together with their Chrome children.
+     * Matches on the executable name only, unlike {@code pkill -f} which also hits any process that
+     * merely mentions it in its arguments. Processes this JVM started itself are never orphans.
+     *
+     * @param executablePrefix file name prefix of the scraper binary (with or without {@code .exe})
+     * @return number of scraper processes killed
+     */
+    public int killOrphans(String executablePrefix) {
+        ProcessHandle self = ProcessHandle.current();
+        Set<Long> ours = new HashSet<>();
+        ours.add(self.pid());
+        self.descendants().forEach(h -> ours.add(h.pid()));
+        List<ProcessHandle> orphans = ProcessHandle.allProcesses()
+                .filter(h -> !ours.contains(h.pid()))
+                .filter(h -> h.info().command()
+                        .map(c -> Path.of(c).getFileName().toString().startsWith(executablePrefix))
+                        .orElse(false))
+                .toList();
+        for (ProcessHandle orphan : orphans) {
+            orphan.descendants().forEach(ProcessHandle::destroyForcibly);
+            orphan.destroyForcibly();
+        }
+        return orphans.size();
+    }
+
+    @Scheduled(fixedRate = 5_000)
+    public void sample() {
+        staleCgroups.removeIf(this::removeCgroup);
+        trees.forEach((videoId, tree) -> {
+            if (!tree.process.isAlive()) {
+                return;
+            }
+            ScraperProcessResources resources = sampleTree(tree);
+            tree.latest = resources;
+            long limit = maxRssBytes * tree.shares;
+            if (limit > 0 && resources.rssBytes() > limit && !tree.runawayReported) {
+                tree.runawayReported = true;
+                log.error("Scraper for video {} uses {} MB across {} processes (limit {} MB). Stopping it.",
+                        videoId, resources.rssBytes() / (1024 * 1024), resources.processCount(),
+                        limit / (1024 * 1024));
+                runawayHandler.accept(videoId);
+            }
+        });
+    }
+
+    private ScraperProcessResources sampleTree(TrackedTree tree) {
+        List<ProcessHandle> handles = Stream.concat(Stream.of(tree.process.toHandle()), tree.process.descendants())
+                .toList();
+        if (tree.cgroup != null) {
+            // Chrome may have been forked before the root was moved; sweep stragglers in
+            handles.forEach(h -> moveIntoCgroup(tree.cgroup, h));
+        }
+
+        long rss = 0;
+        long cpuTicks = 0;
+        for (ProcessHandle handle : handles) {
+            rss += readResidentBytes(handle.pid());
+            cpuTicks += readCpuTicks(handle.pid());
+        }
+
+        long now = System.nanoTime();
+        double cpuCores = 0;
+        if (tree.lastCpuTicks >= 0 && now > tree.lastSampleNanos) {
+            double cpuSeconds = (double) Math.max(0, cpuTicks - tree.lastCpuTicks) / CLOCK_TICKS_PER_SECOND;
+            cpuCores = cpuSeconds / ((now - tree.lastSampleNanos) / 1e9);
+        }
+        tree.lastCpuTicks = cpuTicks;
+        tree.lastSampleNanos = now;
+        tree.peakRssBytes = Math.max(tree.peakRssBytes, rss);
+
+        Long memoryLimit = null;
+        long oomKills = 0;
+        if (tree.cgroup != null) {
+            memoryLimit = cgroupMemoryMaxBytes * tree.shares;
+            oomKills = readKeyedValue(tree.cgroup.resolve("memory.events"), "oom_kill");
+        }
+        return new ScraperProcessResources(tree.process.pid(), handles.size(), rss, tree.peakRssBytes, cpuCores,
+                tree.cgroup != null ? tree.cgroup.toString() : null, memoryLimit, oomKills, Instant.now());
+    }
+
+    // cgroup v2
+
+    private boolean prepareCgroupRoot() {
+        try {
+            Files.createDirectories(cgroupRoot);
+            // Children only get memory.max/cpu.max when the parent delegates those controllers
+            Files.writeString(cgroupRoot.resolve("cgroup.subtree_control"), "+memory +cpu");
+            log.info("Scraper cgroups enabled under {} (memory.max {} MB, cpu.max {} cores)",
+                    cgroupRoot, cgroupMemoryMaxBytes / (1024 * 1024), cgroupCpuMaxCores);
+            return true;
+        } catch (IOException e) {
+            log.warn("Cgroup root {} isn't usable, scraper limits disabled: {}", cgroupRoot, e.getMessage());
+            return false;
+        }
+    }
+
+    private Path createCgroup(String videoId, int shares) {
+        Path cgroup = cgroupRoot.resolve("scraper-" + videoId);
+        try {
+            Files.createDirectories(cgroup);
+            writeLimitFiles(cgroup, shares);
+            return cgroup;
+        } catch (IOException e) {
+            log.warn("Couldn't create cgroup for video {}: {}", videoId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeLimits(Path cgroup, int shares) {
+        try {
+            writeLimitFiles(cgroup, shares);
+        } catch (IOException e) {
+            log.warn("Couldn't update the limits of {}: {}", cgroup, e.getMessage());
+        }
+    }
+
+    private void writeLimitFiles(Path cgroup, int shares) throws IOException {
+        Files.writeString(cgroup.resolve("memory.max"), String.valueOf(cgroupMemoryMaxBytes * shares));
+        long quota = Math.round(cgroupCpuMaxCores * shares * CPU_MAX_PERIOD_MICROS);
+        Files.writeString(cgroup.resolve("cpu.max"), quota + " " + CPU_MAX_PERIOD_MICROS);
+    }
+
+    private void moveIntoCgroup(Path cgroup, ProcessHandle handle) {
+        try {
+            Files.writeString(cgroup.resolve("cgroup.procs"), String.valueOf(handle.pid()));
+        } catch (IOException e) {
+            log.debug("Couldn't move pid {} into {}: {}", handle.pid(), cgroup, e.getMessage());
+        }
+    }
+
+    private boolean removeCgroup(Path cgroup) {
+        try {
+            // rmdir only succeeds once the cgroup has no processes left
+            Files.deleteIfExists(cgroup);
+            return true;
+        } catch (IOException e) {
+            log.debug("Cgroup {} not removed yet: {}", cgroup, e.getMessage());
+            return false;
+        }
+    }
+
+    // /proc
+
+    /**
+     * Resident memory of {@code root} and all its descendants, or 0 where /proc isn't available.
+     */
+    public static long treeResidentBytes(ProcessHandle root) {
+        return Stream.concat(Stream.of(root), root.descendants())
+                .mapToLong(h -> readResidentBytes(h.pid()))
+                .sum();
+    }
+
+    private static long readResidentBytes(long pid) {
+        try {
+            // statm: size resident shared ... (in pages)
+            String[] fields = Files.readString(PROC.resolve(pid + "/statm")).trim().split("\\s+");
+            return Long.parseLong(fields[1]) * PAGE_SIZE;
+        } catch (IOException | RuntimeException e) {
+            return 0; // process exited or not on Linux
+        }
+    }
+
+    private static long readCpuTicks(long pid) {
+        try {
+            // The command name (field 2) may contain spaces, so count fields after its closing ')'
+            String stat = Files.readString(PROC.resolve(pid + "/stat"));
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split("\\s+");
+            return Long.parseLong(fields[11]) + Long.parseLong(fields[12]); // utime + stime
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static long readKeyedValue(Path path, String key) {
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.map(line -> line.trim().split("\\s+"))
+                    .filter(fields -> fields.length >= 2 && fields[0].equals(key))
+                    .mapToLong(fields -> Long.parseLong(fields[1]))
+                    .findFirst()
+                    .orElse(0);
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package csw.youtube.chat.live.service;
+
+import com.github.pemistahl.lingua.api.Language;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@code scraper.warm-pool.size} Rust scrapers launched in {@code --standby} mode: Chrome is up
+ * and the process waits on stdin for a video id. Taking one skips the process spawn and browser launch,
+ * so a start costs mostly network time. The pool refills itself in the background after every take,
+ * and idle processes are recycled after {@code scraper.warm-pool.max-idle} so no stale browser is
+ * handed out.
+ * <p>
+ * Off by default: every standby process holds a browser's worth of memory without scraping anything.
+ */
+@Slf4j
+@Service
+public class ScraperWarmPool {
+    private static final Duration READY_TIMEOUT = Duration.ofSeconds(60);
+    private static final String WARM_ID_PREFIX = "warm-";
+
+    private final int size;
+    private final Duration maxIdle;
+    private final ScraperProcessMonitor processMonitor;
+
+    // Most recently warmed first, so the oldest ones age out at the tail
+    private final LinkedBlockingDeque<WarmProcess> ready = new LinkedBlockingDeque<>();
+    private final AtomicInteger warming = new AtomicInteger();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private volatile boolean shuttingDown;
+
+    /**
+     * A launched scraper waiting for its video. {@code output} has already consumed the "ready" line
+     * and must be used for the rest of the process output.
+     */
+    public record WarmProcess(String id, Process process, BufferedReader output, Instant readyAt) {
+    }
+
+    public ScraperWarmPool(
+            @Value("${scraper.warm-pool.size:0}") int size,
+            @Value("${scraper.warm-pool.max-idle:30m}") Duration maxIdle,
+            @Value("${scraper.multiplex.enabled:false}") boolean multiplexEnabled,
+            ScraperProcessMonitor processMonitor) {
+        // Multiplexed hosts are long-lived already
+        this.size = multiplexEnabled ? 0 : size;
+        this.maxIdle = maxIdle;
+        this.processMonitor = processMonitor;
+    }
+
+    public boolean isEnabled() {
+        return size > 0;
+    }
+
+    /**
+     * Fills the pool. Called by {@link YTRustScraperService} once its startup sweep of orphaned scraper
+     * processes is done, since that sweep matches standby processes too.
+     */
+    public void warmUp() {
+        replenish();
+    }
+
+    /**
+     * Whether {@code id} is one of the pool's idle processes as tracked by {@link ScraperProcessMonitor}.
+     */
+    public static boolean isStandbyId(String id) {
+        return id.startsWith(WARM_ID_PREFIX);
+    }
+
+    /**
+     * Takes a ready process, if any, and hands it the video. The pool refills in the background.
+     */
+    public Optional<WarmProcess> take(String videoId, Set<Language> skipLangs) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        WarmProcess warm;
+        while ((warm = ready.pollFirst()) != null) {
+            processMonitor.untrack(warm.id());
+            if (warm.process().isAlive() && assign(warm, videoId, skipLangs)) {
+                break;
+            }
+            warm.process().destroyForcibly();
+        }
+        replenish();
+        return Optional.ofNullable(warm);
+    }
+
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    /**
+     * Drops dead or stale standby processes and tops the pool back up.
+     */
+    @Scheduled(fixedRate = 30_000)
+    public void maintain() {
+        if (!isEnabled()) {
+            return;
+        }
+        Instant staleBefore = Instant.now().minus(maxIdle);
+        ready.removeIf(warm -> {
+            boolean stale = warm.readyAt().isBefore(staleBefore);
+            if (stale || !warm.process().isAlive()) {
+                retire(warm);
+                return true;
+            }
+            return false;
+        });
+        replenish();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        WarmProcess warm;
+        while ((warm = ready.pollFirst()) != null) {
+            retire(warm);
+        }
+    }
+
+    private synchronized void replenish() {
+        while (!shuttingDown && ready.size() + warming.get() < size) {
+            warming.incrementAndGet();
+            Thread.ofVirtual().name("scraper-warmup").start(this::launch);
+        }
+    }
+
+    private void launch() {
+        String id = WARM_ID_PREFIX + sequence.incrementAndGet();
+        try {
+            Process process = new ProcessBuilder(YTRustScraperService.RUST_SCRAPER_PATH, "--standby")
+                    .redirectErrorStream(true)
+                    .start();
+            processMonitor.track(id, process);
+
+            AtomicBoolean isReady = new AtomicBoolean(false);
+            CompletableFuture.delayedExecutor(READY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (!isReady.get()) {
+                    process.destroyForcibly(); // unblocks the readLine below
+                }
+            });
+
+            var output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = output.readLine()) != null && !line.contains("ready")) {
+                log.debug("Standby scraper {}: {}", id, line);
+            }
+            if (line == null) {
+                log.warn("Standby scraper {} exited before it was ready", id);
+                processMonitor.untrack(id);
+                return;
+            }
+            isReady.set(true);
+            ready.offerFirst(new WarmProcess(id, process, output, Instant.now()));
+            log.debug("Standby scraper {} ready (pid {})", id, process.pid());
+        } catch (IOException e) {
+            log.error("Failed to launch standby scraper", e);
+            processMonitor.untrack(id);
+        } finally {
+            warming.decrementAndGet();
+        }
+        if (shuttingDown) {
+            shutdown();
+        }
+    }
+
+    private boolean assign(WarmProcess warm, String videoId, Set<Language> skipLangs) {
+        String langs = skipLangs.stream().map(Enum::name).collect(Collectors.joining(","));
+        try {
+            // Not closed: closing stdin is the stop signal for a running scraper
+            OutputStream stdin = warm.process().getOutputStream();
+            stdin.write((videoId + " " + langs).trim().concat("\n").getBytes(StandardCharsets.UTF_8));
+            stdin.flush();
+            return true;
+        } catch (IOException e) {
+            log.warn("Standby scraper {} didn't accept video {}: {}", warm.id(), videoId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void retire(WarmProcess warm) {
+        processMonitor.untrack(warm.id());
+        // Closing stdin makes the standby process exit without picking up a video
+        try {
+            warm.process().getOutputStream().close();
+        } catch (IOException _) {
+            // already gone
+        }
+        processMonitor.terminateTree(warm.process(), YTRustScraperService.STOP_GRACE_PERIOD);
+    }
+}
@@ -1,18 +1,23 @@
 package csw.youtube.chat.live.service;
 
 import com.github.pemistahl.lingua.api.Language;
+import csw.youtube.chat.common.util.ResizableSemaphore;
+import csw.youtube.chat.live.dto.ScraperProcessResources;
+import csw.youtube.chat.live.dto.ScraperSnapshot;
 import csw.youtube.chat.live.dto.SimpleChatMessage;
+import csw.youtube.chat.live.model.ScraperEngine;
+import csw.youtube.chat.live.model.ScraperRequester;
 import csw.youtube.chat.live.model.ScraperState;
 import csw.youtube.chat.live.model.ScraperTask;
+import csw.youtube.chat.live.service.http.YTHttpChatPoller;
+import csw.youtube.chat.profanity.service.ProfanityCheckService;
 import csw.youtube.chat.profanity.service.ProfanityLogService;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RBlockingQueue;
-import org.redisson.api.RSemaphore;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -28,49 +33,91 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
  * Service for scraping YouTube Live Chat messages for a given video ID using
- * Redis for queueing.
+ * Redis for queueing (see {@link ScraperDispatchService}).
  */
 @Slf4j
 @Service
 public class YTRustScraperService {
     public static final String YOUTUBE_WATCH_URL = "https://www.youtube.com/watch?v=";
     private static final Duration FAILED_SCRAPER_CLEANUP_THRESHOLD = Duration.ofMinutes(5);
-    private static final int MAX_CONCURRENT_SCRAPERS = 5;
-    private static final String RUST_SCRAPER_PATH = "src/main/resources/ytchatx-scraper.exe";
+    private static final Duration DISPATCH_POLL_INTERVAL = Duration.ofMillis(500);
+    // How long a claimed task that couldn't start here stays unclaimable
+    private static final Duration REQUEUE_DELAY = Duration.ofSeconds(5);
+    static final Duration STOP_GRACE_PERIOD = Duration.ofSeconds(10);
+    static final String RUST_SCRAPER_PATH = "src/main/resources/ytchatx-scraper.exe";
     @Getter
     private final Map<String, ScraperState> scraperStates = new ConcurrentHashMap<>();
     private final ProfanityLogService profanityLogService;
+    private final ProfanityCheckService profanityCheckService;
+    private final ChatArchiveService chatArchiveService;
+    private final ChatBroadcastService chatBroadcastService;
     private final RankingService rankingService;
     private final Executor chatScraperExecutor;
     private final Map<String, Process> activeScrapers = new ConcurrentHashMap<>();
-    private final RBlockingQueue<ScraperTask> scraperQueue;
-    private final RSemaphore scraperSemaphore;
     private final StringRedisTemplate redisTemplate;
+    private final ScraperClusterService clusterService;
+    private final ScraperDispatchService dispatchService;
+    private final ScraperAdmissionController admissionController;
+    private final ScraperProcessMonitor processMonitor;
+    private final MultiplexScraperPool multiplexPool;
+    private final ScraperWarmPool warmPool;
+    private final YTHttpChatPoller httpChatPoller;
+    // Scrapers this node may run at once (advertised to the cluster as free slots), resized by admission control
+    private final ResizableSemaphore runningSlots;
+    // Chrome launches this node performs at once; released on the scraper's "initiated" line
+    private final Semaphore startPermits;
     private volatile boolean isShuttingDown = false;
     private Thread queueProcessorThread;
 
+    // Off-heap recent-message storage (see OffHeapMessageArena)
+    @Value("${scraper.offheap-messages.enabled:false}")
+    private boolean offHeapMessagesEnabled;
+    @Value("${scraper.offheap-messages.capacity-bytes:4194304}")
+    private long offHeapCapacityBytes;
+    @Value("${scraper.offheap-messages.max-messages:20000}")
+    private int offHeapMaxMessages;
+
     public YTRustScraperService(
             ProfanityLogService profanityLogService,
+            ProfanityCheckService profanityCheckService,
+            ChatArchiveService chatArchiveService,
+            ChatBroadcastService chatBroadcastService,
             RankingService rankingService,
             @Qualifier("chatScraperExecutor") Executor chatScraperExecutor,
-            RedissonClient redissonClient, StringRedisTemplate redisTemplate) {
+            StringRedisTemplate redisTemplate,
+            ScraperClusterService clusterService,
+            ScraperDispatchService dispatchService,
+            ScraperAdmissionController admissionController,
+            ScraperProcessMonitor processMonitor,
+            MultiplexScraperPool multiplexPool,
+            ScraperWarmPool warmPool,
+            YTHttpChatPoller httpChatPoller,
+            @Value("${scraper.max-running:30}") int maxRunningScrapers,
+            @Value("${scraper.max-concurrent-starts:5}") int maxConcurrentStarts) {
         this.profanityLogService = profanityLogService;
+        this.profanityCheckService = profanityCheckService;
+        this.chatArchiveService = chatArchiveService;
+        this.chatBroadcastService = chatBroadcastService;
+        this.clusterService = clusterService;
+        this.dispatchService = dispatchService;
         this.rankingService = rankingService;
         this.chatScraperExecutor = chatScraperExecutor;
-        this.scraperQueue = redissonClient.getBlockingQueue("scraperQueue");
         this.redisTemplate = redisTemplate;
-        this.scraperQueue.clear();
-
-        this.scraperSemaphore = redissonClient.getSemaphore("scraperSemaphore");
-        // Delete any old semaphore value so that we can set it freshly.
-        scraperSemaphore.delete();
-        scraperSemaphore.trySetPermits(MAX_CONCURRENT_SCRAPERS);
+        // Queued tasks live in Redis and survive restarts, so nothing is cleared here
+        this.admissionController = admissionController;
+        this.processMonitor = processMonitor;
+        this.multiplexPool = multiplexPool;
+        this.warmPool = warmPool;
+        this.httpChatPoller = httpChatPoller;
+        this.runningSlots = new ResizableSemaphore(maxRunningScrapers);
+        this.startPermits = new Semaphore(maxConcurrentStarts);
     }
 
     // Lifecycle Methods
@@ -88,6 +135,7 @@ public class YTRustScraperService {
                 .filter(entry -> isFailedAndExpired(entry.getValue(), now))
                 .forEach(entry -> {
                     scraperStates.remove(entry.getKey());
+                    entry.getValue().releaseMessageArena();
                     log.info("Removed failed scraper for video {} (exceeded timeout)", entry.getKey());
                 });
     }
@@ -97,6 +145,8 @@ public class YTRustScraperService {
         log.info("Checking for orphaned Rust scraper processes...");
         stopAllActiveScrapers();
         killOrphanedProcesses();
+        // Only now: the sweep above would kill standby processes launched earlier
+        warmPool.warmUp();
     }
 
     @PreDestroy
@@ -106,6 +156,8 @@ public class YTRustScraperService {
             queueProcessorThread.interrupt();
         }
         stopAllActiveScrapers();
+        dispatchService.withdraw();
+        scraperStates.values().forEach(ScraperState::releaseMessageArena);
     }
 
     // Core Functionality
@@ -113,11 +165,87 @@ public class YTRustScraperService {
     @PostConstruct
     public void startQueueProcessor() {
         queueProcessorThread = Thread.ofVirtual().start(this::processQueue);
+        clusterService.onStopRequest(videoId -> {
+            if (isRunningLocally(videoId)) {
+                log.info("Stop requested by another node for video {}", videoId);
+                stopRustScraper(videoId);
+            }
+        });
+        processMonitor.onRunaway(id -> {
+            // A multiplexed host carries many videos, so move them off it instead of stopping one
+            if (!multiplexPool.recycleHost(id)) {
+                stopRustScraper(id);
+            }
+        });
+    }
+
+    /**
+     * Renews the leases of scrapers running on this node and publishes their state snapshots
+     * so other nodes can serve reads. A scraper whose lease was lost is stopped.
+     */
+    @Scheduled(fixedRate = 10_000)
+    public void heartbeat() {
+        for (String videoId : getLocalVideoIds()) {
+            if (clusterService.renewLease(videoId)) {
+                // Only the lease holder publishes; anyone else would overwrite the owner's snapshot
+                Optional.ofNullable(scraperStates.get(videoId)).ifPresent(clusterService::publishSnapshot);
+            } else {
+                log.warn("Lost lease for video {} (owner is now {}). Stopping local scraper.",
+                        videoId, clusterService.getLeaseOwner(videoId).orElse("nobody"));
+                stopRustScraper(videoId);
+            }
+        }
+        // Queued here but picked up by another node: drop the local state so reads use the owner's snapshot
+        scraperStates.forEach((videoId, state) -> {
+            if (state.getStatus() == ScraperState.Status.QUEUED && isLeasedElsewhere(videoId)
+                    && scraperStates.remove(videoId, state)) {
+                state.releaseMessageArena();
+            }
+        });
+        dispatchService.advertise(getFreeSlots());
+    }
+
+    /**
+     * Resizes the running slots to what this node can currently afford.
+     */
+    @Scheduled(fixedRate = 10_000)
+    public void adjustRunningSlots() {
+        if (!admissionController.isEnabled()) {
+            return;
+        }
+        // Idle standby scrapers aren't in the running count, so they'd inflate the per-scraper cost
+        List<ScraperProcessResources> resources = processMonitor.getAllResources().entrySet().stream()
+                .filter(entry -> !ScraperWarmPool.isStandbyId(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        int limit = admissionController.evaluate(resources, getActiveScrapersCount(), runningSlots.getLimit());
+        if (limit != runningSlots.getLimit()) {
+            runningSlots.resize(limit);
+            dispatchService.advertise(getFreeSlots());
+        }
     }
 
     public void processChatMessages(String videoId, List<SimpleChatMessage> messages) {
-        ScraperState state = scraperStates.computeIfAbsent(videoId, ScraperState::new);
-        state.addRecentMessages(messages);
+        processChatMessages(videoId, getOrCreateScraperState(videoId), messages);
+    }
+
+    /**
+     * Bulk message pipeline (recent messages, message counts, profanity, language and keyword stats) for
+     * a scraper whose state isn't owned by this service, such as the Playwright engine's.
+     */
+    public void processChatMessages(String videoId, ScraperState state, List<SimpleChatMessage> messages) {
+        // Each message's language is detected once, and picks the dictionary for the single profanity scan
+        // that both masks the message and finds the hit to log
+        List<Language> languages = rankingService.detectLanguages(messages.stream()
+                .map(SimpleChatMessage::message)
+                .collect(Collectors.toList()));
+        // Recent messages end up in AI summaries and snapshots and are broadcast to viewers, so they are kept
+        // masked; the profanity log still sees the originals
+        List<SimpleChatMessage> masked = scanProfanity(videoId, messages, languages);
+        state.addRecentMessages(masked);
+        long receivedAt = System.currentTimeMillis();
+        chatArchiveService.append(videoId, messages, receivedAt);
+        chatScraperExecutor.execute(() -> chatBroadcastService.broadcast(videoId, state, masked, receivedAt));
 
         // Store message count stats (in a separate async task)
         chatScraperExecutor.execute(() -> {
@@ -133,60 +261,150 @@ public class YTRustScraperService {
             redisTemplate.opsForZSet().removeRangeByScore(key, 0, oneHourAgo);
         });
 
-        chatScraperExecutor.execute(() -> {
-            // Log profanity
-            messages.forEach(message -> {
-                profanityLogService.logIfProfane(message.username(), message.message());
-            });
-        });
-
-        // Batch update language stats instead of per-message
-        chatScraperExecutor.execute(() -> {
-            rankingService.updateLanguageStatsBatch(videoId, messages.stream()
-                    .map(SimpleChatMessage::message)
-                    .collect(Collectors.toList()));
-        });
+        // Batch update language stats
+        chatScraperExecutor.execute(() -> rankingService.recordLanguageStats(videoId, languages));
 
         // Bulk update keyword ranking (the main pipeline improvement)
         chatScraperExecutor.execute(() -> {
-            Set<Language> skipLangs = Optional.ofNullable(scraperStates.get(videoId))
-                    .map(ScraperState::getSkipLangs)
+            Set<Language> skipLangs = Optional.ofNullable(state.getSkipLangs())
                     .orElse(Collections.emptySet());
             rankingService.updateKeywordRankingBulk(videoId, messages, skipLangs);
         });
     }
 
+    // Masks each message and logs its hit, from one scan per message
+    private List<SimpleChatMessage> scanProfanity(String videoId, List<SimpleChatMessage> messages,
+                                                  List<Language> languages) {
+        ProfanityCheckService.MessageScanner scanner = profanityCheckService.newScanner();
+        List<SimpleChatMessage> masked = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            SimpleChatMessage message = messages.get(i);
+            ProfanityCheckService.ScanResult scan = scanner.scan(videoId, message.message(), languages.get(i));
+            if (scan.hit() != null) {
+                profanityLogService.logHit(videoId, message.username(), message.message(), scan.hit());
+            }
+            masked.add(scan.masked() == message.message() ? message
+                    : new SimpleChatMessage(message.username(), scan.masked()));
+        }
+        return masked;
+    }
+
+    /**
+     * Returns the local state, or a snapshot published by the owning node if the scraper runs elsewhere.
+     */
     public ScraperState getScraperState(String videoId) {
-        if (!scraperStates.containsKey(videoId)) {
-            log.warn("No ScraperState found for videoId='{}'. Existing keys: {}",
-                    videoId, getScraperStates().keySet());
+        ScraperState state = scraperStates.get(videoId);
+        if (state != null) {
+            return state;
         }
-        return scraperStates.get(videoId);
+        return clusterService.getSnapshot(videoId)
+                .map(ScraperSnapshot::toState)
+                .orElseGet(() -> {
+                    log.warn("No ScraperState found for videoId='{}' on any node. Local keys: {}",
+                            videoId, scraperStates.keySet());
+                    return null;
+                });
+    }
+
+    /**
+     * Scraper states across the cluster: snapshots from other nodes, overridden by local states.
+     */
+    public Map<String, ScraperState> getClusterScraperStates() {
+        Map<String, ScraperState> states = new TreeMap<>();
+        clusterService.getAllSnapshots().forEach((videoId, snapshot) -> states.put(videoId, snapshot.toState()));
+        states.putAll(scraperStates);
+        return states;
+    }
+
+    public ScraperState getOrCreateScraperState(String videoId) {
+        return scraperStates.computeIfAbsent(videoId, _ -> newScraperState(videoId, null));
     }
 
     public boolean startRustScraper(String videoId, Set<Language> skipLangs) {
+        return startRustScraper(videoId, skipLangs, ScraperRequester.SYSTEM);
+    }
+
+    /**
+     * Queues a scraper on behalf of {@code requester}. Asking for a video that is already queued
+     * counts as extra demand and moves it up the queue.
+     *
+     * @return {@code true} if a new scraper was queued
+     */
+    public boolean startRustScraper(String videoId, Set<Language> skipLangs, ScraperRequester requester) {
+        return startRustScraper(videoId, skipLangs, requester, ScraperEngine.RUST);
+    }
+
+    /**
+     * Same as {@link #startRustScraper(String, Set, ScraperRequester)}, reading the chat with {@code engine}.
+     */
+    public boolean startRustScraper(String videoId, Set<Language> skipLangs, ScraperRequester requester,
+                                    ScraperEngine engine) {
         validateVideoId(videoId);
 
-        var state = scraperStates.computeIfAbsent(videoId, _ -> new ScraperState(videoId, skipLangs));
+        var task = new ScraperTask(videoId, skipLangs, engine);
+        var state = scraperStates.computeIfAbsent(videoId, _ -> newScraperState(videoId, skipLangs));
         if (isScraperActive(state)) {
+            if (state.getStatus() == ScraperState.Status.QUEUED) {
+                switch (dispatchService.enqueue(task, requester)) {
+                    case QUEUED -> {
+                        // The local state was stale: its task already ran (or was dropped) elsewhere
+                        log.info("Requeued video {} over a stale local QUEUED state", videoId);
+                        return true;
+                    }
+                    case DEMAND_RAISED ->
+                            log.info("Raised demand for queued video {} (requested by {})", videoId, requester.id());
+                    case DUPLICATE -> {
+                    }
+                }
+            }
             log.warn("Scraper already running or queued for video {}", videoId);
             return false;
         }
-
+        if (offHeapMessagesEnabled) {
+            state.enableOffHeapMessages(offHeapCapacityBytes, offHeapMaxMessages); // re-arm after a previous run
+        }
+        if (dispatchService.enqueue(task, requester) != ScraperDispatchService.EnqueueResult.QUEUED) {
+            log.warn("Scraper already running or queued for video {} on another node", videoId);
+            return false;
+        }
         state.setStatus(ScraperState.Status.QUEUED);
-        return enqueueScraperTask(videoId, skipLangs, state);
+        return true;
     }
 
     // Private Helper Methods
 
+    private ScraperState newScraperState(String videoId, Set<Language> skipLangs) {
+        var state = new ScraperState(videoId, skipLangs);
+        if (offHeapMessagesEnabled) {
+            state.enableOffHeapMessages(offHeapCapacityBytes, offHeapMaxMessages);
+        }
+        return state;
+    }
+
     public String stopRustScraper(String videoId) {
+        if (multiplexPool.stop(videoId) || httpChatPoller.stop(videoId)) {
+            updateStateOnStop(videoId);
+            return "Scraper stopped for video ID: " + videoId;
+        }
         var process = activeScrapers.remove(videoId);
-        if (process == null)
+        if (process == null) {
+            if (dispatchService.cancelPending(videoId)) {
+                updateStateOnStop(videoId);
+                return "Queued scraper cancelled for video ID: " + videoId;
+            }
+            Optional<String> owner = clusterService.getLeaseOwner(videoId);
+            if (owner.isPresent()) {
+                clusterService.requestStop(videoId);
+                return "Stop requested for video ID: " + videoId + " (running on " + owner.get() + ")";
+            }
             return "No active scraper found for video ID: " + videoId;
+        }
 
 
         sendCommandToRust(process, "p\n");
         process.onExit().thenRun(() -> log.info("✅ Rust process for video {} exited cleanly.", videoId));
+        // Chrome children don't always follow the Rust process down
+        processMonitor.terminateTree(process, STOP_GRACE_PERIOD);
         updateStateOnStop(videoId);
         return "Scraper stopped for video ID: " + videoId;
     }
@@ -199,52 +417,44 @@ public class YTRustScraperService {
         return command;
     }
 
-    private void captureProcessOutput(String videoId, Process process, AtomicBoolean semaphoreReleased) {
-        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-            reader.lines().forEach(line -> {
-                // Debug log to inspect each line received
-                // log.debug("Scraper output for video {}: {}", videoId, line);
-
-                if (line.contains("initiated") && !semaphoreReleased.get()) {
-                    // log.info("Received 'initiated' signal from scraper for video {}. Releasing
-                    // semaphore.", videoId);
-                    scraperSemaphore.release();
-                    semaphoreReleased.set(true);
-                }
-                if (line.contains("❌ Maximum retries reached")) {
-                    log.error("Detected scraper failure for video {}. Stopping process.", videoId);
-                    stopRustScraper(videoId);
-                }
-                if (line.contains("Scraper encountered")) {
-                    log.error("No live chat found for video {}.", videoId);
-                    stopRustScraper(videoId);
-                }
-            });
+    private void captureProcessOutput(String videoId, BufferedReader output, AtomicBoolean startPermitReleased) {
+        try (var reader = output) {
+            reader.lines().forEach(line -> handleScraperLine(videoId, line, startPermitReleased));
         } catch (IOException e) {
             log.error("Error capturing output for {}", videoId, e);
             updateScraperStatusToFailed(videoId, "Communication with Rust scraper failed.");
         }
     }
 
-    private void cleanupState(String videoId) {
-        try {
-            Thread.sleep(Duration.ofMinutes(5).toMillis());
-            scraperStates.remove(videoId);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    private void handleScraperLine(String videoId, String line, AtomicBoolean startPermitReleased) {
+        // Debug log to inspect each line received
+        // log.debug("Scraper output for video {}: {}", videoId, line);
+
+        if (line.contains("initiated") && startPermitReleased.compareAndSet(false, true)) {
+            // log.info("Received 'initiated' signal from scraper for video {}. Releasing
+            // start permit.", videoId);
+            startPermits.release();
+        }
+        if (line.contains("❌ Maximum retries reached")) {
+            log.error("Detected scraper failure for video {}. Stopping process.", videoId);
+            stopRustScraper(videoId);
+        }
+        if (line.contains("Scraper encountered")) {
+            log.error("No live chat found for video {}.", videoId);
+            stopRustScraper(videoId);
         }
     }
 
-    private boolean enqueueScraperTask(String videoId, Set<Language> skipLangs, ScraperState state) {
+    private void cleanupState(String videoId) {
         try {
-            scraperQueue.put(new ScraperTask(videoId, skipLangs));
-            return true;
+            Thread.sleep(Duration.ofMinutes(5).toMillis());
+            ScraperState state = scraperStates.get(videoId);
+            // A restart in the meantime reuses the state, and its arena with it
+            if (state != null && !isScraperActive(state) && scraperStates.remove(videoId, state)) {
+                state.releaseMessageArena();
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            log.error("Failed to queue scraper for video {}", videoId, e);
-            state.setStatus(ScraperState.Status.FAILED);
-            state.setReason("Queueing failed: " + e.getMessage());
-            return false;
         }
     }
 
@@ -258,28 +468,42 @@ public class YTRustScraperService {
     }
 
     private void killOrphanedProcesses() {
-        try {
-            var os = System.getProperty("os.name").toLowerCase();
-            var pb = os.contains("win")
-                    ? new ProcessBuilder("taskkill", "/F", "/IM", "ytchatx-scraper.exe")
-                    : new ProcessBuilder("pkill", "-f", "ytchatx-scraper");
-            pb.start();
-            log.info("✅ Orphaned Chrome & Rust scraper processes killed.");
-        } catch (IOException e) {
-            log.error("❌ Failed to clean up orphaned Chrome processes.", e);
-        }
+        int killed = processMonitor.killOrphans("ytchatx-scraper");
+        log.info("✅ {} orphaned Rust scraper process trees killed.", killed);
     }
 
     private void processQueue() {
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                var task = scraperQueue.take();
-                scraperSemaphore.acquire();
-                if (!isShuttingDown) {
-                    chatScraperExecutor.execute(() -> runScraper(task));
-                } else {
-                    log.info("Skipping task execution due to shutdown: {}", task.videoId());
+                // A browser task is only claimed with its running slot and start permit already in hand, so its
+                // claim never waits out the visibility timeout. Browser and HTTP scrapers have separate budgets:
+                // a full browser side mustn't hold up polling.
+                int freeSlots = getFreeSlots();
+                boolean browserReady = !isShuttingDown && freeSlots > 0 && acquireBrowserStart();
+                Set<ScraperEngine> engines = EnumSet.noneOf(ScraperEngine.class);
+                if (browserReady) {
+                    engines.add(ScraperEngine.RUST);
                 }
+                if (httpChatPoller.hasCapacity()) {
+                    engines.add(ScraperEngine.HTTP);
+                }
+                Optional<ScraperTask> task = isShuttingDown || engines.isEmpty()
+                        ? Optional.empty()
+                        : dispatchService.claim(engines, freeSlots);
+                if (browserReady && task.map(t -> t.engine() != ScraperEngine.RUST).orElse(true)) {
+                    startPermits.release();
+                    runningSlots.release();
+                }
+                if (task.isEmpty()) {
+                    Thread.sleep(DISPATCH_POLL_INTERVAL.toMillis());
+                    continue;
+                }
+                if (task.get().engine() == ScraperEngine.HTTP) {
+                    startHttpScraper(task.get());
+                    continue;
+                }
+                dispatchService.advertise(getFreeSlots());
+                chatScraperExecutor.execute(() -> runScraper(task.get()));
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
@@ -288,36 +512,83 @@ public class YTRustScraperService {
         log.info("Scraper queue processor shut down");
     }
 
+    // Takes a running slot and a start permit without waiting; false (holding neither) if either is taken
+    private boolean acquireBrowserStart() {
+        if (!runningSlots.tryAcquire()) {
+            return false;
+        }
+        if (!startPermits.tryAcquire()) {
+            runningSlots.release();
+            return false;
+        }
+        return true;
+    }
+
+    // Polling needs no browser, so HTTP scrapers take neither a running slot nor a start permit
+    private void startHttpScraper(ScraperTask task) {
+        if (!httpChatPoller.hasCapacity()) {
+            log.warn("HTTP chat poller is full. Requeueing video {}.", task.videoId());
+            dispatchService.requeue(task.videoId(), REQUEUE_DELAY);
+            return;
+        }
+        chatScraperExecutor.execute(() -> runScraper(task));
+    }
+
     private void runScraper(ScraperTask task) {
         String videoId = task.videoId();
-        var state = scraperStates.get(videoId);
+        boolean holdsSlot = task.engine() != ScraperEngine.HTTP;
+        // The task may have been queued by another node, so the state isn't necessarily local
+        var state = scraperStates.computeIfAbsent(videoId, _ -> newScraperState(videoId, task.skipLangs()));
+        if (!clusterService.acquireLease(videoId)) {
+            // The previous owner's lease hasn't expired yet; try again once it has
+            log.warn("Scraper for video {} is still leased by {}. Requeueing in {}s.", videoId,
+                    clusterService.getLeaseOwner(videoId).orElse("another node"), REQUEUE_DELAY.toSeconds());
+            dispatchService.requeue(videoId, REQUEUE_DELAY);
+            if (holdsSlot) {
+                startPermits.release();
+                runningSlots.release();
+            }
+            return;
+        }
+        dispatchService.acknowledge(videoId);
         state.setStatus(ScraperState.Status.RUNNING);
         state.setThreadName(Thread.currentThread().getName());
         log.info("💽 Running scrapper for video {}...", videoId);
 
+        // Create an atomic flag to ensure the start permit is released only once.
+        AtomicBoolean startPermitReleased = new AtomicBoolean(!holdsSlot);
         try {
-            var process = new ProcessBuilder(buildCommand(videoId, task.skipLangs()))
-                    .redirectErrorStream(true)
-                    .start();
-            activeScrapers.put(videoId, process); // Thread-safe with ConcurrentHashMap
-
-            // Create an atomic flag to ensure semaphore is released only once.
-            AtomicBoolean semaphoreReleased = new AtomicBoolean(false);
-            // Capture output asynchronously and wait for the "initiated" message to release
-            // the semaphore.
-            Thread.ofVirtual().start(() -> captureProcessOutput(videoId, process, semaphoreReleased));
-
-            int exitCode = process.waitFor();
+            int exitCode;
+            if (task.engine() == ScraperEngine.HTTP) {
+                exitCode = httpChatPoller.poll(videoId, state, messages -> processChatMessages(videoId, messages));
+            } else if (multiplexPool.isEnabled()) {
+                exitCode = runMultiplexed(task, startPermitReleased);
+            } else {
+                exitCode = runProcess(task, startPermitReleased);
+            }
             state.setStatus(exitCode == 0 ? ScraperState.Status.COMPLETED : ScraperState.Status.FAILED);
-            if (exitCode != 0)
+            if (exitCode != 0 && task.engine() != ScraperEngine.HTTP) // the poller leaves its own reason
                 state.setReason("Process exited with code " + exitCode);
         } catch (Exception e) {
             log.error("Error running scraper for video {}", videoId, e);
             state.setStatus(ScraperState.Status.FAILED);
             state.setReason(e.getMessage());
-            scraperSemaphore.release();
         } finally {
             activeScrapers.remove(videoId);
+            processMonitor.untrack(videoId);
+            if (startPermitReleased.compareAndSet(false, true)) {
+                startPermits.release(); // the process died before reporting "initiated"
+            }
+            if (holdsSlot) {
+                runningSlots.release();
+            }
+            if (!isShuttingDown) {
+                dispatchService.complete(videoId);
+                dispatchService.advertise(getFreeSlots());
+            }
+            clusterService.releaseLease(videoId);
+            clusterService.publishSnapshot(state);
+            // The finished state (recent messages included) is still served until cleanupState drops it
             if (!isShuttingDown) {
                 if (state.getStatus() != ScraperState.Status.RUNNING) {
                     chatScraperExecutor.execute(() -> cleanupState(videoId));
@@ -326,6 +597,43 @@ public class YTRustScraperService {
         }
     }
 
+    private int runProcess(ScraperTask task, AtomicBoolean startPermitReleased) throws IOException, InterruptedException {
+        String videoId = task.videoId();
+        Process process;
+        BufferedReader output;
+        var warm = warmPool.take(videoId, task.skipLangs());
+        if (warm.isPresent()) {
+            process = warm.get().process();
+            output = warm.get().output();
+            // Chrome is already up, so this start doesn't count against the launch limit
+            if (startPermitReleased.compareAndSet(false, true)) {
+                startPermits.release();
+            }
+            log.debug("Video {} handed to standby scraper {}", videoId, warm.get().id());
+        } else {
+            process = new ProcessBuilder(buildCommand(videoId, task.skipLangs()))
+                    .redirectErrorStream(true)
+                    .start();
+            output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+        activeScrapers.put(videoId, process); // Thread-safe with ConcurrentHashMap
+        processMonitor.track(videoId, process);
+
+        // Capture output asynchronously and wait for the "initiated" message to release
+        // the start permit.
+        Thread.ofVirtual().start(() -> captureProcessOutput(videoId, output, startPermitReleased));
+
+        return process.waitFor();
+    }
+
+    // Same contract as runProcess, but the video is a tab in one of the shared scraper hosts
+    private int runMultiplexed(ScraperTask task, AtomicBoolean startPermitReleased) throws IOException {
+        String videoId = task.videoId();
+        return multiplexPool.start(videoId, task.skipLangs(),
+                line -> handleScraperLine(videoId, line, startPermitReleased),
+                () -> scraperStates.get(videoId)).join();
+    }
+
     private void sendCommandToRust(Process process, String command) {
         try (var writer = new OutputStreamWriter(process.getOutputStream())) {
             writer.write(command);
@@ -336,7 +644,23 @@ public class YTRustScraperService {
     }
 
     private void stopAllActiveScrapers() {
-        activeScrapers.keySet().forEach(this::stopRustScraper);
+        getLocalVideoIds().forEach(this::stopRustScraper);
+    }
+
+    private Set<String> getLocalVideoIds() {
+        Set<String> videoIds = new HashSet<>(activeScrapers.keySet());
+        videoIds.addAll(multiplexPool.getHostedVideoIds());
+        videoIds.addAll(httpChatPoller.getPolledVideoIds());
+        return videoIds;
+    }
+
+    private boolean isRunningLocally(String videoId) {
+        return activeScrapers.containsKey(videoId) || multiplexPool.isHosting(videoId)
+                || httpChatPoller.isPolling(videoId);
+    }
+
+    private boolean isLeasedElsewhere(String videoId) {
+        return clusterService.getLeaseOwner(videoId).filter(owner -> !owner.equals(clusterService.getNodeId())).isPresent();
     }
 
     private void updateScraperStatusToFailed(String videoId, String errorMessage) {
@@ -386,7 +710,16 @@ public class YTRustScraperService {
      * @return The number of tasks waiting in the queue
      */
     public int getQueueSize() {
-        return scraperQueue.size();
+        return dispatchService.getPendingCount();
+    }
+
+    /**
+     * Gets the position of a video in the scraper queue
+     *
+     * @return 1-based position, or 0 if the video isn't waiting in the queue
+     */
+    public int getQueuePosition(String videoId) {
+        return dispatchService.getQueuePosition(videoId).orElse(0);
     }
 
     /**
@@ -395,16 +728,21 @@ public class YTRustScraperService {
      * @return The number of currently running scrapers
      */
     public int getActiveScrapersCount() {
-        return activeScrapers.size();
+        return activeScrapers.size() + multiplexPool.getHostedVideoIds().size();
     }
 
     /**
-     * Gets the maximum number of concurrent scrapers allowed
+     * Gets the maximum number of concurrent scrapers allowed on this node
      *
      * @return The maximum number of concurrent scrapers
      */
     public int getMaxConcurrentScrapers() {
-        return MAX_CONCURRENT_SCRAPERS;
+        return runningSlots.getLimit();
+    }
+
+    // Negative while admission control has shrunk the limit below the running count
+    private int getFreeSlots() {
+        return Math.max(0, runningSlots.availablePermits());
     }
 
     public String sanitizeVideoId(String videoId) {
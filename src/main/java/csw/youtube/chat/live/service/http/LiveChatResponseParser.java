@@ -0,0 +1,108 @@
+package csw.youtube.chat.live.service.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import csw.youtube.chat.live.dto.RecentDonator;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a {@code get_live_chat} response with a streaming parser. The envelope can be large (tracking
+ * params, ticker items, framework updates), so only the chat item renderers and the continuation data
+ * are materialized as trees; everything else is walked past token by token or skipped whole.
+ */
+final class LiveChatResponseParser {
+
+    /**
+     * @param continuation token for the next poll, or {@code null} once the chat has ended
+     * @param timeoutMs    how long YouTube asks the client to wait before the next poll (0 if not given)
+     */
+    record Result(List<SimpleChatMessage> messages, List<RecentDonator> donations,
+                  String continuation, long timeoutMs) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    LiveChatResponseParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    Result parse(InputStream body) throws IOException {
+        List<SimpleChatMessage> messages = new ArrayList<>();
+        List<RecentDonator> donations = new ArrayList<>();
+        String continuation = null;
+        long timeoutMs = 0;
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME) {
+                    continue;
+                }
+                String field = parser.currentName();
+                switch (field) {
+                    case "liveChatTextMessageRenderer" -> {
+                        parser.nextToken();
+                        JsonNode item = parser.readValueAsTree();
+                        String text = runsToText(item.path("message"));
+                        if (!text.isEmpty()) {
+                            messages.add(new SimpleChatMessage(author(item), text));
+                        }
+                    }
+                    case "liveChatPaidMessageRenderer" -> {
+                        parser.nextToken();
+                        JsonNode item = parser.readValueAsTree();
+                        String text = runsToText(item.path("message"));
+                        donations.add(new RecentDonator(author(item),
+                                item.path("purchaseAmountText").path("simpleText").asText(""), text));
+                        if (!text.isEmpty()) {
+                            messages.add(new SimpleChatMessage(author(item), text));
+                        }
+                    }
+                    // Ticker items repeat paid messages already seen as chat items; the rest is UI state
+                    case "addLiveChatTickerItemAction", "frameworkUpdates", "trackingParams", "responseContext" -> {
+                        parser.nextToken();
+                        parser.skipChildren();
+                    }
+                    default -> {
+                        // invalidationContinuationData, timedContinuationData, reloadContinuationData, ...
+                        if (continuation == null && field.endsWith("ContinuationData")
+                                && parser.nextToken() == JsonToken.START_OBJECT) {
+                            JsonNode data = parser.readValueAsTree();
+                            continuation = data.path("continuation").textValue();
+                            timeoutMs = data.path("timeoutMs").asLong(0);
+                        }
+                    }
+                }
+            }
+        }
+        return new Result(messages, donations, continuation, timeoutMs);
+    }
+
+    private static String author(JsonNode item) {
+        return item.path("authorName").path("simpleText").asText("");
+    }
+
+    // Runs are text fragments and emojis; custom emojis are written as their :shortcut:
+    private static String runsToText(JsonNode message) {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode run : message.path("runs")) {
+            if (run.has("text")) {
+                text.append(run.get("text").asText());
+            } else if (run.has("emoji")) {
+                JsonNode emoji = run.get("emoji");
+                JsonNode shortcuts = emoji.path("shortcuts");
+                text.append(emoji.path("isCustomEmoji").asBoolean(false) && !shortcuts.isEmpty()
+                        ? shortcuts.get(0).asText()
+                        : emoji.path("emojiId").asText(""));
+            }
+        }
+        return text.toString().trim();
+    }
+}
@@ -0,0 +1,313 @@
+package csw.youtube.chat.live.service.http;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import csw.youtube.chat.live.dto.RecentDonator;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import csw.youtube.chat.live.dto.TopChatter;
+import csw.youtube.chat.live.model.ScraperState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static csw.youtube.chat.live.service.YTRustScraperService.YOUTUBE_WATCH_URL;
+
+/**
+ * Browserless scraper engine: follows a live chat by polling the same continuation endpoint the chat
+ * iframe uses ({@code youtubei/v1/live_chat/get_live_chat}) with {@link HttpClient}, one virtual thread
+ * per video. A poll is a few KB of JSON, so one JVM can follow hundreds of chats for what a single
+ * Chrome tab costs.
+ * <p>
+ * The first request loads the popout chat page to pick up the API key, client version and initial
+ * continuation. After that each response carries the next continuation and how long to wait for it;
+ * a response without one means the stream has ended.
+ */
+@Slf4j
+@Service
+public class YTHttpChatPoller {
+    private static final Pattern API_KEY = Pattern.compile("\"INNERTUBE_API_KEY\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern CLIENT_VERSION = Pattern.compile("\"INNERTUBE_CONTEXT_CLIENT_VERSION\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern CONTINUATION = Pattern.compile("\"continuation\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/133.0.0.0 Safari/537.36";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+    private static final Duration METRICS_INTERVAL = Duration.ofSeconds(10);
+    private static final int MAX_RECENT_DONATIONS = 10;
+    private static final int TOP_CHATTERS = 5;
+    // Per video; past this the chatters with the fewest messages are forgotten
+    private static final int MAX_TRACKED_CHATTERS = 10_000;
+    public static final int EXIT_FINISHED = 0;
+    public static final int EXIT_FAILED = 1;
+
+    private final String baseUrl;
+    private final int maxRunning;
+    private final Duration minPollInterval;
+    private final Duration maxPollInterval;
+    private final int maxConsecutiveErrors;
+    private final LiveChatResponseParser responseParser;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    // Thread polling each video; interrupting it stops the poll
+    private final Map<String, Thread> polling = new ConcurrentHashMap<>();
+
+    private record ChatSession(String apiKey, String clientVersion, String continuation) {
+    }
+
+    public YTHttpChatPoller(
+            @Value("${scraper.http.base-url:https://www.youtube.com}") String baseUrl,
+            @Value("${scraper.http.max-running:500}") int maxRunning,
+            @Value("${scraper.http.min-poll-interval:1s}") Duration minPollInterval,
+            @Value("${scraper.http.max-poll-interval:10s}") Duration maxPollInterval,
+            @Value("${scraper.http.max-consecutive-errors:5}") int maxConsecutiveErrors,
+            ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.maxRunning = maxRunning;
+        this.minPollInterval = minPollInterval;
+        this.maxPollInterval = maxPollInterval;
+        this.maxConsecutiveErrors = maxConsecutiveErrors;
+        this.objectMapper = objectMapper;
+        this.responseParser = new LiveChatResponseParser(objectMapper);
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    public boolean hasCapacity() {
+        return polling.size() < maxRunning;
+    }
+
+    public boolean isPolling(String videoId) {
+        return polling.containsKey(videoId);
+    }
+
+    public Set<String> getPolledVideoIds() {
+        return Set.copyOf(polling.keySet());
+    }
+
+    /**
+     * @return {@code false} if this node isn't polling the video
+     */
+    public boolean stop(String videoId) {
+        Thread thread = polling.remove(videoId);
+        if (thread == null) {
+            return false;
+        }
+        thread.interrupt();
+        return true;
+    }
+
+    /**
+     * Follows the chat on the calling thread until it ends, {@link #stop} is called, or polling keeps
+     * failing. Messages go to {@code sink} one response at a time; metadata and throughput are written
+     * to {@code state} directly.
+     *
+     * @return {@link #EXIT_FINISHED} when the chat ended or was stopped, {@link #EXIT_FAILED} otherwise
+     */
+    public int poll(String videoId, ScraperState state, Consumer<List<SimpleChatMessage>> sink) {
+        if (polling.putIfAbsent(videoId, Thread.currentThread()) != null) {
+            throw new IllegalStateException("Video " + videoId + " is already polled on this node");
+        }
+        try {
+            ChatSession session = openChat(videoId);
+            if (session == null) {
+                state.setReason("No live chat found. The video may not be live or chat is disabled.");
+                return EXIT_FAILED;
+            }
+            fetchMetadata(videoId, state);
+            log.info("Polling live chat of video {} over HTTP", videoId);
+            return followChat(videoId, session, state, sink);
+        } catch (InterruptedException e) {
+            return EXIT_FINISHED; // stopped
+        } catch (IOException e) {
+            log.error("Couldn't open live chat of video {}: {}", videoId, e.getMessage());
+            state.setReason("Live chat request failed: " + e.getMessage());
+            return EXIT_FAILED;
+        } finally {
+            polling.remove(videoId, Thread.currentThread());
+            Thread.interrupted(); // don't leak a stop() interrupt into the pooled thread
+        }
+    }
+
+    private int followChat(String videoId, ChatSession session, ScraperState state,
+                           Consumer<List<SimpleChatMessage>> sink) throws InterruptedException {
+        Map<String, Integer> chatterCounts = new HashMap<>();
+        Deque<RecentDonator> donations = new ArrayDeque<>(MAX_RECENT_DONATIONS);
+        String continuation = session.continuation();
+        long intervalMessages = 0;
+        long intervalStart = System.nanoTime();
+        int errors = 0;
+
+        while (polling.get(videoId) == Thread.currentThread()) {
+            LiveChatResponseParser.Result result;
+            try {
+                result = fetchContinuation(session, continuation);
+                errors = 0;
+            } catch (IOException e) {
+                if (++errors >= maxConsecutiveErrors) {
+                    log.error("Giving up on live chat of video {} after {} failed polls: {}",
+                            videoId, errors, e.getMessage());
+                    state.setReason("Live chat polling failed: " + e.getMessage());
+                    return EXIT_FAILED;
+                }
+                log.warn("Live chat poll for video {} failed ({}/{}): {}",
+                        videoId, errors, maxConsecutiveErrors, e.getMessage());
+                Thread.sleep(maxPollInterval.multipliedBy(errors).toMillis());
+                continue;
+            }
+
+            if (!result.messages().isEmpty()) {
+                result.messages().forEach(m -> chatterCounts.merge(m.username(), 1, Integer::sum));
+                intervalMessages += result.messages().size();
+                state.getTotalMessages().addAndGet(result.messages().size());
+                sink.accept(result.messages());
+            }
+            for (RecentDonator donation : result.donations()) {
+                if (donations.size() == MAX_RECENT_DONATIONS) {
+                    donations.pollFirst();
+                }
+                donations.addLast(donation);
+            }
+
+            if (System.nanoTime() - intervalStart >= METRICS_INTERVAL.toNanos()) {
+                recordInterval(state, intervalMessages, chatterCounts, donations);
+                intervalMessages = 0;
+                intervalStart = System.nanoTime();
+            }
+
+            if (result.continuation() == null) {
+                log.info("Live chat of video {} ended", videoId);
+                recordInterval(state, intervalMessages, chatterCounts, donations);
+                return EXIT_FINISHED;
+            }
+            continuation = result.continuation();
+            Thread.sleep(clampPollInterval(result.timeoutMs()));
+        }
+        return EXIT_FINISHED;
+    }
+
+    private ChatSession openChat(String videoId) throws IOException, InterruptedException {
+        HttpRequest request = requestBuilder(baseUrl + "/live_chat?is_popout=1&v=" + encode(videoId))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("live_chat page returned HTTP " + response.statusCode());
+        }
+        String html = response.body();
+        String apiKey = find(API_KEY, html);
+        String continuation = find(CONTINUATION, html);
+        if (apiKey == null || continuation == null) {
+            return null;
+        }
+        return new ChatSession(apiKey, Objects.requireNonNullElse(find(CLIENT_VERSION, html), "2.20250101.00.00"),
+                continuation);
+    }
+
+    private LiveChatResponseParser.Result fetchContinuation(ChatSession session, String continuation)
+            throws IOException, InterruptedException {
+        Map<String, Object> body = Map.of(
+                "context", Map.of("client", Map.of("clientName", "WEB", "clientVersion", session.clientVersion())),
+                "continuation", continuation);
+        HttpRequest request = requestBuilder(baseUrl + "/youtubei/v1/live_chat/get_live_chat?prettyPrint=false&key="
+                + encode(session.apiKey()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("get_live_chat returned HTTP " + response.statusCode());
+            }
+            return responseParser.parse(in);
+        }
+    }
+
+    // Title and channel are not on the chat page; oEmbed has both and needs no key
+    private void fetchMetadata(String videoId, ScraperState state) throws InterruptedException {
+        HttpRequest request = requestBuilder(baseUrl + "/oembed?format=json&url=" + encode(YOUTUBE_WATCH_URL + videoId))
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                log.warn("oEmbed returned HTTP {} for video {}", response.statusCode(), videoId);
+                return;
+            }
+            JsonNode oembed = objectMapper.readTree(response.body());
+            state.setVideoTitle(oembed.path("title").asText(null));
+            state.setChannelName(oembed.path("author_name").asText(null));
+        } catch (IOException e) {
+            log.warn("Couldn't fetch metadata for video {}: {}", videoId, e.getMessage());
+        }
+    }
+
+    private void recordInterval(ScraperState state, long count, Map<String, Integer> chatterCounts,
+                                Deque<RecentDonator> donations) {
+        state.setLastThroughput(count);
+        if (count > state.getMaxThroughput()) state.setMaxThroughput(count);
+
+        long intervals = state.getIntervalsCount().incrementAndGet();
+        double newAvg = intervals == 1 ? count : (state.getAverageThroughput() * (intervals - 1) + count) / intervals;
+        state.setAverageThroughput(newAvg);
+
+        if (chatterCounts.size() > MAX_TRACKED_CHATTERS) {
+            // Keep the busiest half; a top chatter is far above the cut, a newcomer starts over
+            int cut = chatterCounts.values().stream()
+                    .sorted(Comparator.reverseOrder())
+                    .skip(MAX_TRACKED_CHATTERS / 2)
+                    .findFirst()
+                    .orElse(0);
+            chatterCounts.values().removeIf(messages -> messages <= cut);
+        }
+        if (!chatterCounts.isEmpty()) {
+            state.setTopChatters(chatterCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(TOP_CHATTERS)
+                    .map(e -> new TopChatter(e.getKey(), e.getValue()))
+                    .toList());
+        }
+        if (!donations.isEmpty()) {
+            state.setRecentDonations(List.copyOf(donations));
+        }
+    }
+
+    private long clampPollInterval(long timeoutMs) {
+        long millis = timeoutMs > 0 ? timeoutMs : minPollInterval.toMillis();
+        return Math.clamp(millis, minPollInterval.toMillis(), maxPollInterval.toMillis());
+    }
+
+    private HttpRequest.Builder requestBuilder(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Language", "en-US,en;q=0.9");
+    }
+
+    private static String find(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
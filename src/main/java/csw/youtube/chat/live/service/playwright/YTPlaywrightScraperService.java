@@ -1,26 +1,39 @@
 package csw.youtube.chat.live.service.playwright;
 
 import com.github.pemistahl.lingua.api.Language;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.playwright.APIResponse;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Route;
 import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.WaitUntilState;
 import csw.youtube.chat.live.js.YouTubeChatScriptProvider;
 import csw.youtube.chat.live.model.ScraperState;
-import csw.youtube.chat.live.service.RankingService;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import csw.youtube.chat.live.service.YTRustScraperService;
 import csw.youtube.chat.playwright.PlaywrightBrowserManager;
-import csw.youtube.chat.profanity.service.ProfanityLogService;
+import csw.youtube.chat.playwright.PlaywrightTab;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import static csw.youtube.chat.live.js.YouTubeChatScriptProvider.getMutationObserverScript;
 import static csw.youtube.chat.live.service.YTRustScraperService.YOUTUBE_WATCH_URL;
@@ -31,6 +44,19 @@ import static csw.youtube.chat.live.service.YTRustScraperService.validateVideoId
 public class YTPlaywrightScraperService {
     private static final int POLL_INTERVAL_MS = 1000;
     private static final int PLAYWRIGHT_TIMEOUT_MS = 10000;
+    private static final String LIVE_CHAT_URL = "https://www.youtube.com/live_chat?is_popout=1&v=";
+    private static final String OEMBED_URL = "https://www.youtube.com/oembed?format=json&url=";
+    /*
+     * Never needed to read chat: artwork, avatars and fonts, plus the ads, telemetry and player the watch
+     * page pulls in regardless. Only requests matching this are routed at all (the browser evaluates it,
+     * so it's written to be valid JavaScript too); chat requests go straight out and keep the HTTP cache.
+     */
+    private static final Pattern BLOCKED_URLS = Pattern.compile(String.join("|",
+            "^https://(?:i\\.ytimg\\.com|yt[34]\\.ggpht\\.com|fonts\\.gstatic\\.com)/",
+            "\\.(?:png|jpe?g|gif|webp|svg|ico|woff2?|ttf)(?:\\?|$)",
+            "googlesyndication\\.com|doubleclick\\.net|googleadservices\\.com|/pagead/",
+            "/api/stats/|/youtubei/v1/log_event|/ptracking|/generate_204",
+            "/s/player/|/youtubei/v1/player|googlevideo\\.com/videoplayback"));
 
     @Getter
     private final Map<String, CompletableFuture<Void>> activeFutures = new ConcurrentHashMap<>();
@@ -39,18 +65,24 @@ public class YTPlaywrightScraperService {
     @Getter
     private final Map<String, String> videoThreadNames = new ConcurrentHashMap<>();
 
-    private final ProfanityLogService profanityLogService;
-    private final RankingService rankingService;
+    private final YTRustScraperService scraperService;
     private final PlaywrightBrowserManager playwrightBrowserManager;
     private final Executor chatScraperExecutor;
+    private final ObjectMapper objectMapper;
+    private final boolean leanMode;
+    // Throughput logging and chat presence checks for every running tab
+    private final ScheduledExecutorService monitorScheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("playwright-monitor").factory());
 
     public YTPlaywrightScraperService(
-            ProfanityLogService profanityLogService,
-            RankingService rankingService,
+            YTRustScraperService scraperService,
             @Qualifier("chatScraperExecutor") Executor chatScraperExecutor,
-            PlaywrightBrowserManager playwrightBrowserManager) {
-        this.profanityLogService = profanityLogService;
-        this.rankingService = rankingService;
+            PlaywrightBrowserManager playwrightBrowserManager,
+            ObjectMapper objectMapper,
+            @Value("${scraper.playwright.lean-mode:true}") boolean leanMode) {
+        this.scraperService = scraperService;
+        this.objectMapper = objectMapper;
+        this.leanMode = leanMode;
         this.chatScraperExecutor = chatScraperExecutor;
         this.playwrightBrowserManager = playwrightBrowserManager;
     }
@@ -71,23 +103,25 @@ public class YTPlaywrightScraperService {
         var scraperFuture = new CompletableFuture<Void>();
         activeFutures.put(videoId, scraperFuture);
 
-        chatScraperExecutor.execute(() -> {
-            try {
-                playwrightBrowserManager.withPage(page -> {
-                    try {
-                        scrapeChat(page, videoId, state, scraperFuture, skipLangs);
-                    } catch (Exception e) {
-                        handleException(videoId, e, scraperFuture, state);
-                    }
-                });
-            } catch (Exception outerEx) {
-                handleException(videoId, outerEx, scraperFuture, state);
-            }
-        });
+        try {
+            playwrightBrowserManager.openTab()
+                    .thenAccept(tab -> scrapeChat(tab, videoId, state, scraperFuture))
+                    .exceptionally(ex -> {
+                        handleException(videoId, unwrap(ex), scraperFuture, state);
+                        return null;
+                    });
+        } catch (Exception e) {
+            handleException(videoId, e, scraperFuture, state);
+        }
 
         return scraperFuture;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        monitorScheduler.shutdownNow();
+    }
+
     public String stopScraper(String videoId) {
         var future = activeFutures.remove(videoId);
         if (future == null) return "No active scraper found for video ID: " + videoId;
@@ -100,14 +134,6 @@ public class YTPlaywrightScraperService {
 
     // Private Helper Methods
 
-    private void closePageSafely(Page page, String videoId) {
-        try {
-            page.close();
-        } catch (Exception closeEx) {
-            log.warn("Error closing page for video {}: {}", videoId, closeEx.getMessage());
-        }
-    }
-
     private void extractAndSetVideoInfo(Page page, String videoId, ScraperState state) {
         var videoTitle = extractVideoTitle(page);
         var channelName = extractChannelName(page);
@@ -128,8 +154,9 @@ public class YTPlaywrightScraperService {
         return page.evaluate(YouTubeChatScriptProvider.extractVideoTitle()).toString();
     }
 
-    private void handleException(String videoId, Exception ex, CompletableFuture<Void> scraperFuture, ScraperState state) {
+    private void handleException(String videoId, Throwable ex, CompletableFuture<Void> scraperFuture, ScraperState state) {
         log.error("Error in scrapeChannel for video {}", videoId, ex);
+        activeFutures.remove(videoId, scraperFuture);
         scraperFuture.completeExceptionally(ex);
         state.setStatus(ScraperState.Status.FAILED);
         state.setReason("Outer error: " + ex.getMessage());
@@ -149,9 +176,11 @@ public class YTPlaywrightScraperService {
         return state;
     }
 
-    private boolean isChatPresent(Page page, String videoId) {
+    private boolean isChatPresent(Page page, String videoId, boolean popout) {
         try {
-            return page.frameLocator("iframe#chatframe").owner().count() > 0;
+            return popout
+                    ? page.locator("yt-live-chat-renderer").count() > 0
+                    : page.frameLocator("iframe#chatframe").owner().count() > 0;
         } catch (Exception e) {
             log.warn("Error checking chat iframe presence for video {}: {}", videoId, e.getMessage());
             return false;
@@ -171,6 +200,62 @@ public class YTPlaywrightScraperService {
         }
     }
 
+    /**
+     * Where the chat lives in the tab: the popout chat document, or the chat iframe of the watch page.
+     */
+    private record ChatView(Locator body, Locator messages, boolean popout) {
+    }
+
+    private ChatView openWatchPage(Page page, String videoId, ScraperState state) {
+        navigateToVideo(page, videoId);
+        extractAndSetVideoInfo(page, videoId, state);
+
+        var chatFrameLocator = page.frameLocator("iframe#chatframe");
+        return new ChatView(chatFrameLocator.locator("body"),
+                chatFrameLocator.locator("div#items yt-live-chat-text-message-renderer"), false);
+    }
+
+    /**
+     * Blocks images, fonts and heavy scripts, then opens the popout chat directly so no player
+     * is ever loaded. Falls back to the (still filtered) watch page if the popout shows no chat.
+     */
+    private ChatView openLeanChat(Page page, String videoId, ScraperState state) {
+        page.route(BLOCKED_URLS, Route::abort);
+
+        page.navigate(LIVE_CHAT_URL + videoId,
+                new Page.NavigateOptions().setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+        try {
+            page.waitForSelector("yt-live-chat-renderer",
+                    new Page.WaitForSelectorOptions().setTimeout(PLAYWRIGHT_TIMEOUT_MS));
+        } catch (PlaywrightException e) {
+            log.warn("Popout chat unavailable for video {}; falling back to the watch page", videoId);
+            return openWatchPage(page, videoId, state);
+        }
+        fetchOEmbedMetadata(page, videoId, state);
+
+        return new ChatView(page.locator("body"),
+                page.locator("div#items yt-live-chat-text-message-renderer"), true);
+    }
+
+    // The popout chat has no title or channel, and oEmbed serves both without loading a page
+    private void fetchOEmbedMetadata(Page page, String videoId, ScraperState state) {
+        try {
+            APIResponse response = page.request().get(OEMBED_URL
+                    + URLEncoder.encode(YOUTUBE_WATCH_URL + videoId, StandardCharsets.UTF_8));
+            if (!response.ok()) {
+                log.warn("oEmbed returned HTTP {} for video {}", response.status(), videoId);
+                return;
+            }
+            JsonNode oembed = objectMapper.readTree(response.body());
+            state.setVideoTitle(oembed.path("title").asText(""));
+            state.setChannelName(oembed.path("author_name").asText(""));
+            log.info("Video Title: '{}', Channel Name: '{}' for video {}",
+                    state.getVideoTitle(), state.getChannelName(), videoId);
+        } catch (IOException | PlaywrightException e) {
+            log.warn("Couldn't fetch metadata for video {}: {}", videoId, e.getMessage());
+        }
+    }
+
     private void navigateToVideo(Page page, String videoId) {
         var fullUrl = YOUTUBE_WATCH_URL + videoId;
         page.navigate(fullUrl);
@@ -178,79 +263,108 @@ public class YTPlaywrightScraperService {
         waitForChatIframe(page);
     }
 
-    private void scrapeChat(Page page, String videoId, ScraperState state, CompletableFuture<Void> scraperFuture, Set<Language> skipLangs) {
-        try {
-            navigateToVideo(page, videoId);
-            extractAndSetVideoInfo(page, videoId, state);
-
-            var chatFrameLocator = page.frameLocator("iframe#chatframe");
-            var chatBodyLocator = chatFrameLocator.locator("body");
-            var chatMessagesLocator = chatFrameLocator.locator("div#items yt-live-chat-text-message-renderer");
-            var iframePage = chatBodyLocator.page();
-            waitForInitialMessages(chatMessagesLocator);
-
+    /**
+     * Sets the tab up on the browser's thread, then returns. From there on the tab only costs the browser
+     * thread a presence check per poll interval; messages arrive through the exposed callback.
+     */
+    private void scrapeChat(PlaywrightTab tab, String videoId, ScraperState state,
+                            CompletableFuture<Void> scraperFuture) {
+        var messagesPerInterval = new AtomicInteger(0);
+        state.setThreadName(tab.getBrowserName());
+
+        tab.call(page -> {
+            ChatView chat = leanMode ? openLeanChat(page, videoId, state) : openWatchPage(page, videoId, state);
+            waitForInitialMessages(chat.messages());
+
+            setupChatScripts(page, chat.body(), messagesPerInterval, videoId, state);
+            return chat;
+        }).whenComplete((chat, ex) -> {
+            if (ex != null) {
+                failScrape(videoId, unwrap(ex), scraperFuture, state);
+                return;
+            }
+            if (scraperFuture.isDone()) {
+                return; // stopped while the tab was being set up
+            }
             state.setStatus(ScraperState.Status.RUNNING);
 
-            var messagesPerInterval = new AtomicInteger(0);
-            setupChatScripts(iframePage, chatBodyLocator, messagesPerInterval, videoId, state, skipLangs);
-
-            try (var scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory())) {
-                var logTask = scheduler.scheduleAtFixedRate(
-                        () -> logThroughput(messagesPerInterval, videoId),
-                        10, 10, TimeUnit.SECONDS
-                );
-
-                while (!scraperFuture.isDone()) {
-                    page.waitForTimeout(POLL_INTERVAL_MS);
-                    if (!isChatPresent(page, videoId)) {
-                        log.warn("❌ Chat iframe disappeared for video {}. Stopping scraper...", videoId);
-                        scraperFuture.complete(null);
-                    }
+            var logTask = monitorScheduler.scheduleAtFixedRate(
+                    () -> logThroughput(messagesPerInterval, videoId), 10, 10, TimeUnit.SECONDS);
+            var presenceTask = monitorScheduler.scheduleAtFixedRate(() -> tab.call(page -> isChatPresent(page, videoId, chat.popout()))
+                    .exceptionally(_ -> false)
+                    .thenAccept(present -> {
+                        if (!present && scraperFuture.complete(null)) {
+                            log.warn("❌ Chat iframe disappeared for video {}. Stopping scraper...", videoId);
+                        }
+                    }), POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+            scraperFuture.whenComplete((_, scrapeEx) -> {
+                logTask.cancel(false);
+                presenceTask.cancel(false);
+                if (scrapeEx == null) {
+                    state.setStatus(ScraperState.Status.COMPLETED);
+                    log.info("Scraper for video {} completed normally.", videoId);
                 }
+            });
+        });
 
-                logTask.cancel(false);
-                scheduler.shutdown();
-            }
+        // Closed once the scrape ends for any reason, including a failed setup
+        scraperFuture.whenComplete((_, _) -> {
+            activeFutures.remove(videoId, scraperFuture);
+            tab.close();
+        });
+    }
 
-            if (!scraperFuture.isCompletedExceptionally()) {
-                scraperFuture.complete(null);
-                state.setStatus(ScraperState.Status.COMPLETED);
-                log.info("Scraper for video {} completed normally.", videoId);
-            }
-        } catch (PlaywrightException pwe) {
+    private void failScrape(String videoId, Throwable ex, CompletableFuture<Void> scraperFuture, ScraperState state) {
+        if (ex instanceof PlaywrightException pwe) {
             handlePlaywrightException(videoId, pwe);
-            scraperFuture.completeExceptionally(pwe);
-            state.setStatus(ScraperState.Status.FAILED);
             state.setReason(parsePlaywrightError(pwe));
-        } catch (Exception ex) {
+        } else {
             log.error("Error in scraping logic for videoId={}: {}", videoId, ex.getMessage(), ex);
-            scraperFuture.completeExceptionally(ex);
-            state.setStatus(ScraperState.Status.FAILED);
             state.setReason("General error: " + ex.getMessage());
-        } finally {
-            closePageSafely(page, videoId);
         }
+        state.setStatus(ScraperState.Status.FAILED);
+        scraperFuture.completeExceptionally(ex);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
     }
 
     private void setupChatScripts(Page iframePage, Locator chatBodyLocator, AtomicInteger messagesPerInterval,
-                                  String videoId, ScraperState state, Set<Language> skipLangs) {
+                                  String videoId, ScraperState state) {
         iframePage.evaluate(YouTubeChatScriptProvider.getExposeHandlerScript());
         iframePage.evaluate(YouTubeChatScriptProvider.getChatActivationScript());
 
+        // Called once per flush with every message since the previous one
         iframePage.exposeFunction("_ytChatHandler_onNewMessages", (args) -> {
-            var username = (String) args[0];
-            var messageText = (String) args[1];
-            messagesPerInterval.incrementAndGet();
-            state.getTotalMessages().incrementAndGet();
+            List<SimpleChatMessage> messages = toChatMessages(args[0]);
+            if (messages.isEmpty()) {
+                return null;
+            }
+            messagesPerInterval.addAndGet(messages.size());
+            state.getTotalMessages().addAndGet(messages.size());
 
-            profanityLogService.logIfProfane(username, messageText);
-            chatScraperExecutor.execute(() -> rankingService.updateKeywordRanking(videoId, messageText, skipLangs));
+            // Runs on the browser thread, which every other tab of this browser shares
+            chatScraperExecutor.execute(() -> scraperService.processChatMessages(videoId, state, messages));
             return null;
         });
 
         chatBodyLocator.evaluate(getMutationObserverScript());
     }
 
+    // The page sends a JSON array of [username, messageText] pairs
+    private static List<SimpleChatMessage> toChatMessages(Object batch) {
+        if (!(batch instanceof List<?> pairs)) {
+            return List.of();
+        }
+        return pairs.stream()
+                .filter(pair -> pair instanceof List<?> fields && fields.size() == 2)
+                .map(pair -> (List<?>) pair)
+                .map(fields -> new SimpleChatMessage(String.valueOf(fields.get(0)), String.valueOf(fields.get(1))))
+                .toList();
+    }
+
     private void updateStateOnStop(String videoId) {
         var state = scraperStates.get(videoId);
         if (state != null) {
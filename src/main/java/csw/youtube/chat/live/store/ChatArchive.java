@@ -0,0 +1,580 @@
+package csw.youtube.chat.live.store;
+
+import csw.youtube.chat.live.dto.ArchivePage;
+import csw.youtube.chat.live.dto.ArchivedMessage;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only archive of one video's chat, as numbered segment files in its own directory.
+ * <p>
+ * The active segment ({@code NNNNNNNN.seg}) is a fixed-size file mapped into memory; records are appended
+ * sequentially and each one's length is written last, so after a crash the segment is recovered by scanning
+ * up to the first record without a length. A record is {@code int length, long timestamp,
+ * short username length, username, message}, UTF-8 and little-endian, where the length counts the bytes
+ * after itself. Every {@value #INDEX_INTERVAL_BYTES} bytes, the timestamp and offset of a record go into a
+ * sparse in-memory index.
+ * <p>
+ * When the next record doesn't fit, the segment is sealed: its records are deflated in blocks of about
+ * {@value #BLOCK_BYTES} bytes into {@code NNNNNNNN.zseg}, with the first timestamp and the file offset of
+ * each block in {@code NNNNNNNN.idx}, and the mapped file is deleted. A read binary searches the indexes for
+ * the timestamp, so it only touches (and inflates) the blocks it returns.
+ * <p>
+ * Timestamps never decrease within an archive (a batch older than the last one gets the last one's
+ * timestamp), which is what makes the indexes searchable. Every message of a batch shares its timestamp,
+ * so reads page with a cursor instead: {@code <segment>-<offset>}, the position of a record in its
+ * segment's uncompressed data, which stays the same when the segment is sealed.
+ */
+@Slf4j
+public class ChatArchive implements AutoCloseable {
+    private static final int SEGMENT_MAGIC = 0x43485347; // "CHSG"
+    private static final int SEALED_MAGIC = 0x4348535A; // "CHSZ"
+    private static final int INDEX_MAGIC = 0x43485349; // "CHSI"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES + Short.BYTES;
+    private static final int MAX_USERNAME_BYTES = 0xFFFF;
+    private static final int INDEX_INTERVAL_BYTES = 4096;
+    private static final int BLOCK_BYTES = 64 * 1024;
+    // Index file: header, then per block its first timestamp, offset, compressed and raw length
+    private static final int INDEX_HEADER_BYTES = 24;
+    private static final int INDEX_ENTRY_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT =
+            ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final List<SealedSegment> sealedSegments = new ArrayList<>();
+
+    private long activeSequence;
+    private Arena activeArena;
+    private MemorySegment active;
+    private long writePosition;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    // Sparse index of the active segment
+    private long[] indexTimestamps = new long[64];
+    private long[] indexOffsets = new long[64];
+    private int indexSize;
+    private long nextIndexAt;
+
+    private boolean closed;
+
+    /**
+     * Where a sealed segment's blocks start and which timestamps they cover.
+     */
+    private record SealedSegment(long sequence, long lastTimestamp, long[] firstTimestamps, long[] offsets,
+                                 int[] compressedLengths, int[] rawLengths, long[] rawStarts) {
+    }
+
+    // One read: where it starts, and the cursor past the last record it took
+    private static final class PageReader {
+        final long fromTimestamp;
+        final long fromSequence;
+        final long fromOffset;
+        final int limit;
+        final List<ArchivedMessage> messages;
+        long nextSequence;
+        long nextOffset;
+
+        PageReader(long fromTimestamp, long fromSequence, long fromOffset, int limit) {
+            this.fromTimestamp = fromTimestamp;
+            this.fromSequence = fromSequence;
+            this.fromOffset = fromOffset;
+            this.limit = limit;
+            this.messages = new ArrayList<>(Math.clamp(limit, 0, 1024));
+        }
+
+        boolean isFull() {
+            return messages.size() >= limit;
+        }
+
+        boolean accepts(long sequence, long offset, long time) {
+            return time >= fromTimestamp
+                    && (sequence > fromSequence || sequence == fromSequence && offset >= fromOffset);
+        }
+    }
+
+    private ChatArchive(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens the archive in {@code directory}, creating it if needed. Segments left unsealed by an earlier
+     * run are sealed, except the newest, which is recovered and appended to.
+     *
+     * @param segmentBytes size at which the active segment is sealed
+     */
+    public static ChatArchive open(Path directory, long segmentBytes) throws IOException {
+        if (segmentBytes < HEADER_BYTES + RECORD_HEADER_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size out of range: " + segmentBytes);
+        }
+        Files.createDirectories(directory);
+        ChatArchive archive = new ChatArchive(directory, segmentBytes);
+        archive.recover();
+        return archive;
+    }
+
+    /**
+     * Appends the messages of one batch, all with the same timestamp.
+     */
+    public synchronized void append(List<SimpleChatMessage> messages, long timestamp) throws IOException {
+        if (closed) {
+            return;
+        }
+        long time = Math.max(timestamp, lastTimestamp);
+        for (SimpleChatMessage message : messages) {
+            byte[] username = encode(message.username());
+            byte[] text = encode(message.message());
+            long recordBytes = (long) RECORD_HEADER_BYTES + username.length + text.length;
+            if (username.length > MAX_USERNAME_BYTES || HEADER_BYTES + recordBytes > segmentBytes) {
+                log.debug("Dropping chat message larger than an archive segment ({} bytes)", recordBytes);
+                continue;
+            }
+            if (writePosition + recordBytes > segmentBytes) {
+                roll();
+            }
+            if (writePosition >= nextIndexAt) {
+                addIndexEntry(time, writePosition);
+                nextIndexAt = writePosition + INDEX_INTERVAL_BYTES;
+            }
+
+            long position = writePosition + Integer.BYTES;
+            active.set(LONG, position, time);
+            active.set(SHORT, position + Long.BYTES, (short) username.length);
+            position += Long.BYTES + Short.BYTES;
+            MemorySegment.copy(username, 0, active, ValueLayout.JAVA_BYTE, position, username.length);
+            MemorySegment.copy(text, 0, active, ValueLayout.JAVA_BYTE, position + username.length, text.length);
+            // Written last: a record without its length is where recovery stops
+            active.set(INT, writePosition, (int) (recordBytes - Integer.BYTES));
+            writePosition += recordBytes;
+        }
+        lastTimestamp = time;
+    }
+
+    /**
+     * Reads messages in order, starting with the first one at or after {@code fromTimestamp}.
+     */
+    public List<ArchivedMessage> read(long fromTimestamp, int limit) throws IOException {
+        return readPage(fromTimestamp, limit).messages();
+    }
+
+    /**
+     * Like {@link #read(long, int)}, with the cursor to continue from.
+     *
+     * @throws ClosedChannelException if the archive was closed
+     */
+    public synchronized ArchivePage readPage(long fromTimestamp, int limit) throws IOException {
+        return read(new PageReader(fromTimestamp, 0, 0, limit));
+    }
+
+    /**
+     * Reads messages in order, starting at a cursor returned by an earlier read.
+     *
+     * @throws IllegalArgumentException if {@code cursor} isn't a cursor
+     * @throws ClosedChannelException   if the archive was closed
+     */
+    public synchronized ArchivePage readPage(String cursor, int limit) throws IOException {
+        int dash = cursor.indexOf('-');
+        long sequence;
+        long offset;
+        try {
+            sequence = Long.parseLong(cursor.substring(0, Math.max(dash, 0)));
+            offset = Long.parseLong(cursor.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (sequence < 0 || offset < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return read(new PageReader(Long.MIN_VALUE, sequence, offset, limit));
+    }
+
+    private ArchivePage read(PageReader reader) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        // Nothing after the last record read means nothing up to the end of the archive
+        reader.nextSequence = activeSequence;
+        reader.nextOffset = writePosition;
+        if (reader.limit > 0) {
+            readRecords(reader);
+        }
+        return new ArchivePage(reader.messages, reader.nextSequence + "-" + reader.nextOffset);
+    }
+
+    private void readRecords(PageReader reader) throws IOException {
+        for (SealedSegment segment : sealedSegments) {
+            if (segment.sequence() >= reader.fromSequence && segment.lastTimestamp() >= reader.fromTimestamp) {
+                readSealed(segment, reader);
+                if (reader.isFull()) {
+                    return;
+                }
+            }
+        }
+        if (activeSequence < reader.fromSequence) {
+            return;
+        }
+        // Index entries are record boundaries; start at the later of the entries for the time and the cursor
+        int byTime = lastBefore(indexTimestamps, indexSize, reader.fromTimestamp);
+        int byOffset = activeSequence == reader.fromSequence
+                ? lastAtOrBefore(indexOffsets, indexSize, reader.fromOffset) : -1;
+        int entry = Math.max(byTime, byOffset);
+        long start = entry < 0 ? HEADER_BYTES : indexOffsets[entry];
+        scanRecords(active, start, writePosition, activeSequence, 0, reader);
+    }
+
+    /**
+     * Writes the active segment's changes to disk.
+     */
+    public synchronized void force() {
+        if (!closed) {
+            active.force();
+        }
+    }
+
+    public synchronized int getSealedSegmentCount() {
+        return sealedSegments.size();
+    }
+
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Flushes and unmaps the active segment without sealing it; the next {@link #open} continues it.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        active.force();
+        activeArena.close();
+    }
+
+    private void recover() throws IOException {
+        TreeMap<Long, Path> unsealed = new TreeMap<>();
+        TreeMap<Long, Path> indexes = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(".seg")) {
+                    unsealed.put(sequenceOf(name), file);
+                } else if (name.endsWith(".idx")) {
+                    indexes.put(sequenceOf(name), file);
+                }
+            }
+        }
+        for (Map.Entry<Long, Path> index : indexes.entrySet()) {
+            SealedSegment segment = readIndex(index.getKey(), index.getValue());
+            sealedSegments.add(segment);
+            lastTimestamp = Math.max(lastTimestamp, segment.lastTimestamp());
+            // Sealed, but the process stopped before the mapped file was deleted
+            Path leftover = unsealed.remove(index.getKey());
+            if (leftover != null) {
+                Files.delete(leftover);
+            }
+        }
+
+        long next = indexes.isEmpty() ? 0 : indexes.lastKey() + 1;
+        if (!unsealed.isEmpty()) {
+            next = Math.max(next, unsealed.lastKey());
+        }
+        for (long sequence : unsealed.keySet()) {
+            if (sequence != next) {
+                mapActive(sequence);
+                sealActive();
+            }
+        }
+        sealedSegments.sort(Comparator.comparingLong(SealedSegment::sequence));
+        mapActive(next);
+    }
+
+    private void mapActive(long sequence) throws IOException {
+        Path file = segmentFile(sequence, ".seg");
+        boolean exists = Files.exists(file);
+        activeSequence = sequence;
+        activeArena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes, activeArena);
+        } catch (IOException | RuntimeException e) {
+            activeArena.close();
+            throw e;
+        }
+        indexSize = 0;
+        nextIndexAt = HEADER_BYTES;
+        writePosition = HEADER_BYTES;
+
+        if (!exists || active.get(INT, 0) != SEGMENT_MAGIC) {
+            active.set(INT, 0, SEGMENT_MAGIC);
+            active.set(INT, Integer.BYTES, FORMAT_VERSION);
+            return;
+        }
+        // Rebuild the write position and the sparse index from the records
+        long position = HEADER_BYTES;
+        int length;
+        while (position + RECORD_HEADER_BYTES <= segmentBytes
+                && (length = active.get(INT, position)) > 0
+                && position + Integer.BYTES + length <= segmentBytes) {
+            long time = active.get(LONG, position + Integer.BYTES);
+            if (position >= nextIndexAt) {
+                addIndexEntry(time, position);
+                nextIndexAt = position + INDEX_INTERVAL_BYTES;
+            }
+            lastTimestamp = Math.max(lastTimestamp, time);
+            position += Integer.BYTES + length;
+        }
+        writePosition = position;
+    }
+
+    private void roll() throws IOException {
+        sealActive();
+        mapActive(activeSequence + 1);
+    }
+
+    // Deflates the active segment into a sealed one, then unmaps and deletes it
+    private void sealActive() throws IOException {
+        Path data = segmentFile(activeSequence, ".zseg");
+        Path index = segmentFile(activeSequence, ".idx");
+        Path dataTmp = directory.resolve(data.getFileName() + ".tmp");
+        Path indexTmp = directory.resolve(index.getFileName() + ".tmp");
+
+        if (writePosition > HEADER_BYTES) {
+            List<long[]> blocks = new ArrayList<>();
+            long segmentLast = Long.MIN_VALUE;
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (FileChannel out = FileChannel.open(dataTmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(SEALED_MAGIC).putInt(FORMAT_VERSION).clear();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                long outPosition = HEADER_BYTES;
+                byte[] compressed = new byte[BLOCK_BYTES];
+
+                long blockStart = HEADER_BYTES;
+                long position = HEADER_BYTES;
+                while (position < writePosition) {
+                    int recordBytes = Integer.BYTES + active.get(INT, position);
+                    segmentLast = active.get(LONG, position + Integer.BYTES);
+                    // Blocks end on record boundaries; a record larger than a block gets a block of its own
+                    if (position > blockStart && position + recordBytes - blockStart > BLOCK_BYTES) {
+                        outPosition += writeBlock(out, deflater, blockStart, position, compressed, blocks, outPosition);
+                        blockStart = position;
+                    }
+                    position += recordBytes;
+                }
+                writeBlock(out, deflater, blockStart, position, compressed, blocks, outPosition);
+                out.force(true);
+            } finally {
+                deflater.end();
+            }
+
+            ByteBuffer indexBytes = ByteBuffer.allocate(INDEX_HEADER_BYTES + blocks.size() * INDEX_ENTRY_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            indexBytes.putInt(INDEX_MAGIC).putInt(FORMAT_VERSION).putInt(blocks.size()).putInt(0).putLong(segmentLast);
+            for (long[] block : blocks) {
+                indexBytes.putLong(block[0]).putLong(block[1]).putInt((int) block[2]).putInt((int) block[3]);
+            }
+            Files.write(indexTmp, indexBytes.array());
+
+            // Data first: an index is only ever next to a complete sealed file
+            Files.move(dataTmp, data, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(indexTmp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            sealedSegments.add(readIndex(activeSequence, index));
+        }
+
+        activeArena.close();
+        Files.delete(segmentFile(activeSequence, ".seg"));
+        log.debug("Sealed chat archive segment {} of {}", activeSequence, directory.getFileName());
+    }
+
+    // Deflates the records in [from, to) of the active segment; returns the compressed size
+    private long writeBlock(FileChannel out, Deflater deflater, long from, long to, byte[] buffer,
+                            List<long[]> blocks, long outPosition) throws IOException {
+        byte[] raw = active.asSlice(from, to - from).toArray(ValueLayout.JAVA_BYTE);
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        long written = 0;
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+            while (chunk.hasRemaining()) {
+                written += out.write(chunk);
+            }
+        }
+        blocks.add(new long[]{active.get(LONG, from + Integer.BYTES), outPosition, written, raw.length});
+        return written;
+    }
+
+    private SealedSegment readIndex(long sequence, Path index) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(index)).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.remaining() < INDEX_HEADER_BYTES || bytes.getInt() != INDEX_MAGIC || bytes.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a chat archive index: " + index);
+        }
+        int blocks = bytes.getInt();
+        bytes.getInt();
+        long last = bytes.getLong();
+        if (bytes.remaining() != blocks * INDEX_ENTRY_BYTES) {
+            throw new IOException("Truncated chat archive index: " + index);
+        }
+        long[] firstTimestamps = new long[blocks];
+        long[] offsets = new long[blocks];
+        int[] compressedLengths = new int[blocks];
+        int[] rawLengths = new int[blocks];
+        // Blocks are consecutive slices of the segment's records
+        long[] rawStarts = new long[blocks];
+        long rawStart = HEADER_BYTES;
+        for (int i = 0; i < blocks; i++) {
+            firstTimestamps[i] = bytes.getLong();
+            offsets[i] = bytes.getLong();
+            compressedLengths[i] = bytes.getInt();
+            rawLengths[i] = bytes.getInt();
+            rawStarts[i] = rawStart;
+            rawStart += rawLengths[i];
+        }
+        return new SealedSegment(sequence, last, firstTimestamps, offsets, compressedLengths, rawLengths, rawStarts);
+    }
+
+    private void readSealed(SealedSegment segment, PageReader reader) throws IOException {
+        int blocks = segment.firstTimestamps().length;
+        int block = Math.max(lastBefore(segment.firstTimestamps(), blocks, reader.fromTimestamp), 0);
+        if (segment.sequence() == reader.fromSequence) {
+            block = Math.max(block, lastAtOrBefore(segment.rawStarts(), blocks, reader.fromOffset));
+        }
+        Inflater inflater = new Inflater();
+        try (FileChannel channel = FileChannel.open(segmentFile(segment.sequence(), ".zseg"), StandardOpenOption.READ)) {
+            for (; block < blocks && !reader.isFull(); block++) {
+                ByteBuffer compressed = ByteBuffer.allocate(segment.compressedLengths()[block]);
+                long position = segment.offsets()[block];
+                while (compressed.hasRemaining()) {
+                    if (channel.read(compressed, position + compressed.position()) < 0) {
+                        throw new IOException("Truncated chat archive segment " + segment.sequence());
+                    }
+                }
+                byte[] raw = new byte[segment.rawLengths()[block]];
+                inflater.reset();
+                inflater.setInput(compressed.array());
+                if (inflater.inflate(raw) != raw.length) {
+                    throw new IOException("Short block in chat archive segment " + segment.sequence());
+                }
+                scanRecords(MemorySegment.ofArray(raw), 0, raw.length, segment.sequence(), segment.rawStarts()[block],
+                        reader);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block in chat archive segment " + segment.sequence(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Records in [position, end) of data, which starts at segmentOffset of segment sequence's records
+    private static void scanRecords(MemorySegment data, long position, long end, long sequence, long segmentOffset,
+                                    PageReader reader) {
+        while (position < end && !reader.isFull()) {
+            int length = data.get(INT, position);
+            long time = data.get(LONG, position + Integer.BYTES);
+            long next = position + Integer.BYTES + length;
+            if (reader.accepts(sequence, segmentOffset + position, time)) {
+                int usernameLength = Short.toUnsignedInt(data.get(SHORT, position + Integer.BYTES + Long.BYTES));
+                long usernameAt = position + RECORD_HEADER_BYTES;
+                int textLength = length - (RECORD_HEADER_BYTES - Integer.BYTES) - usernameLength;
+                reader.messages.add(new ArchivedMessage(time, decode(data, usernameAt, usernameLength),
+                        decode(data, usernameAt + usernameLength, textLength)));
+                reader.nextSequence = sequence;
+                reader.nextOffset = segmentOffset + next;
+            }
+            position = next;
+        }
+    }
+
+    private void addIndexEntry(long time, long offset) {
+        if (indexSize == indexTimestamps.length) {
+            indexTimestamps = Arrays.copyOf(indexTimestamps, indexSize * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+        }
+        indexTimestamps[indexSize] = time;
+        indexOffsets[indexSize] = offset;
+        indexSize++;
+    }
+
+    // Last entry with a timestamp before the given one (records with an equal timestamp may precede an entry
+    // with that timestamp), or -1
+    private static int lastBefore(long[] timestamps, int size, long timestamp) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    // Last entry at or before the given offset, or -1
+    private static int lastAtOrBefore(long[] offsets, int size, long offset) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    private Path segmentFile(long sequence, String extension) {
+        return directory.resolve(String.format("%08d%s", sequence, extension));
+    }
+
+    private static long sequenceOf(String fileName) {
+        return Long.parseLong(fileName.substring(0, fileName.indexOf('.')));
+    }
+
+    private static String decode(MemorySegment data, long offset, int length) {
+        if (length == 0) {
+            return "";
+        }
+        return new String(data.asSlice(offset, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,188 @@
+package csw.youtube.chat.live.store;
+
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap ring buffer of recent chat messages for a single video.
+ * <p>
+ * Username and message text are appended as UTF-8 into one {@link MemorySegment};
+ * the heap only keeps primitive offset/length/timestamp arrays, so the number of
+ * live objects (and ZGC marking work) stays flat no matter how chatty a stream is.
+ * Text is decoded only when it's read, and {@link #close()} frees the whole arena at once.
+ */
+@Slf4j
+public class OffHeapMessageArena implements AutoCloseable {
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long capacityBytes;
+    private final int maxMessages;
+
+    // Ring index: slot i describes one record in the segment
+    private final long[] offsets; // absolute (monotonic) byte position of the record
+    private final int[] usernameLengths;
+    private final int[] messageLengths;
+    private final long[] timestamps;
+
+    private int head; // slot of the oldest record
+    private int count;
+    private long writePosition; // absolute byte position, physical offset = writePosition % capacityBytes
+    private boolean closed;
+
+    public OffHeapMessageArena(long capacityBytes, int maxMessages) {
+        if (capacityBytes <= 0 || maxMessages <= 0) {
+            throw new IllegalArgumentException("Arena capacity and max messages must be positive.");
+        }
+        this.capacityBytes = capacityBytes;
+        this.maxMessages = maxMessages;
+        this.arena = Arena.ofShared();
+        this.segment = arena.allocate(capacityBytes);
+        this.offsets = new long[maxMessages];
+        this.usernameLengths = new int[maxMessages];
+        this.messageLengths = new int[maxMessages];
+        this.timestamps = new long[maxMessages];
+    }
+
+    public synchronized void append(List<SimpleChatMessage> messages, long timestamp) {
+        if (closed) {
+            return;
+        }
+        for (SimpleChatMessage message : messages) {
+            appendOne(message, timestamp);
+        }
+    }
+
+    private void appendOne(SimpleChatMessage message, long timestamp) {
+        byte[] username = encode(message.username());
+        byte[] text = encode(message.message());
+        int recordLength = username.length + text.length;
+        if (recordLength > capacityBytes) {
+            log.debug("Dropping chat message larger than the arena ({} bytes)", recordLength);
+            return;
+        }
+
+        // Records never wrap: if the tail of the segment is too small, continue at its start
+        long physical = writePosition % capacityBytes;
+        if (physical + recordLength > capacityBytes) {
+            writePosition += capacityBytes - physical;
+            physical = 0;
+        }
+
+        // Evict whatever the new record is about to overwrite (and keep the index bounded)
+        long end = writePosition + recordLength;
+        while (count > 0 && (count == maxMessages || offsets[head] < end - capacityBytes)) {
+            evictOldest();
+        }
+
+        MemorySegment.copy(username, 0, segment, ValueLayout.JAVA_BYTE, physical, username.length);
+        MemorySegment.copy(text, 0, segment, ValueLayout.JAVA_BYTE, physical + username.length, text.length);
+
+        int slot = (head + count) % maxMessages;
+        offsets[slot] = writePosition;
+        usernameLengths[slot] = username.length;
+        messageLengths[slot] = text.length;
+        timestamps[slot] = timestamp;
+        count++;
+        writePosition = end;
+    }
+
+    /**
+     * Drops every message older than the given epoch millis.
+     */
+    public synchronized void evictOlderThan(long cutoffMillis) {
+        while (count > 0 && timestamps[head] < cutoffMillis) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Decodes only the text of the last {@code limit} messages and joins them.
+     */
+    public synchronized String joinRecentMessages(int limit, String delimiter) {
+        if (closed || count == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        int from = Math.max(0, count - limit);
+        for (int i = from; i < count; i++) {
+            int slot = (head + i) % maxMessages;
+            if (i > from) {
+                sb.append(delimiter);
+            }
+            sb.append(decode(offsets[slot] + usernameLengths[slot], messageLengths[slot]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes the last {@code limit} messages (username and text).
+     */
+    public synchronized List<SimpleChatMessage> getRecentMessages(int limit) {
+        if (closed || count == 0) {
+            return List.of();
+        }
+        int from = Math.max(0, count - limit);
+        List<SimpleChatMessage> result = new ArrayList<>(count - from);
+        for (int i = from; i < count; i++) {
+            int slot = (head + i) % maxMessages;
+            result.add(new SimpleChatMessage(
+                    decode(offsets[slot], usernameLengths[slot]),
+                    decode(offsets[slot] + usernameLengths[slot], messageLengths[slot])));
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return count == 0 ? 0 : writePosition - offsets[head];
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Releases the native memory in one go. Further appends are ignored.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        count = 0;
+        arena.close();
+    }
+
+    private void evictOldest() {
+        head = (head + 1) % maxMessages;
+        count--;
+    }
+
+    private String decode(long absoluteOffset, int length) {
+        if (length == 0) {
+            return "";
+        }
+        long physical = absoluteOffset % capacityBytes;
+        byte[] bytes = segment.asSlice(physical, length).toArray(ValueLayout.JAVA_BYTE);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
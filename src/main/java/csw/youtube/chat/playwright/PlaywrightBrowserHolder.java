@@ -10,6 +10,8 @@ public class PlaywrightBrowserHolder implements AutoCloseable {
     private final Playwright playwright;
     private final Browser browser;
     private final Thread bindingThread;
+    // Blank tab whose waits let Playwright deliver events while the owning thread is otherwise idle
+    private Page idlePage;
 
     public PlaywrightBrowserHolder() {
         this.bindingThread = Thread.currentThread(); // Store thread affinity at creation
@@ -77,6 +79,19 @@ public class PlaywrightBrowserHolder implements AutoCloseable {
         return context.newPage();
     }
 
+    /**
+     * Blocks for up to {@code millis} while Playwright dispatches pending events (exposed function calls,
+     * console messages, page crashes) for every page of this browser. Callbacks only ever run inside a
+     * Playwright call on the owning thread, so an idle owner must keep calling this.
+     */
+    public void dispatchEvents(double millis) {
+        checkThreadSafety();
+        if (idlePage == null || idlePage.isClosed()) {
+            idlePage = browser.newPage();
+        }
+        idlePage.waitForTimeout(millis);
+    }
+
     public boolean isHealthy() {
         checkThreadSafety();
         return browser.isConnected();
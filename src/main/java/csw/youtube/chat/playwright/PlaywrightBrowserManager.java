@@ -3,70 +3,135 @@ package csw.youtube.chat.playwright;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.Page;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 
+/**
+ * Fixed pool of browsers, each owned by a {@link PlaywrightBrowserThread}. A scrape gets a tab (its own
+ * {@link BrowserContext}) in the least-loaded browser rather than a browser of its own, so a video costs
+ * one renderer instead of a whole Chromium. Browsers are launched on demand, up to
+ * {@code scraper.playwright.browsers}, each holding at most {@code scraper.playwright.tabs-per-browser} tabs.
+ */
 @Slf4j
 @Component
 public class PlaywrightBrowserManager {
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/133.0.0 Safari/537.36";
 
-    private static final ThreadLocal<PlaywrightBrowserHolder> holderThreadLocal = new ThreadLocal<>();
+    private final int maxBrowsers;
+    private final int tabsPerBrowser;
+    private final List<PlaywrightBrowserThread> browsers = new ArrayList<>();
+    private int browserSequence;
+
+    public PlaywrightBrowserManager(
+            @Value("${scraper.playwright.browsers:2}") int maxBrowsers,
+            @Value("${scraper.playwright.tabs-per-browser:10}") int tabsPerBrowser) {
+        this.maxBrowsers = maxBrowsers;
+        this.tabsPerBrowser = tabsPerBrowser;
+    }
 
     /**
-     * Lazily create (or retrieve existing) BrowserHolder pinned to this thread.
-     * In practice, with virtual threads, each request will get its own thread
-     * and thus its own holder, which won't be reused.
+     * Opens a tab in a fresh context. Fails with {@link RejectedExecutionException} when every browser
+     * is at its tab limit.
      */
-    private PlaywrightBrowserHolder getOrCreateHolder() {
-        PlaywrightBrowserHolder holder = holderThreadLocal.get();
-        if (holder == null) {
-            holder = new PlaywrightBrowserHolder();
-            holderThreadLocal.set(holder);
-            log.info("Created new BrowserHolder for thread: {}", Thread.currentThread().getName());
-        }
-        return holder;
+    public CompletableFuture<PlaywrightTab> openTab() {
+        PlaywrightBrowserThread browser = reserveTab();
+        return browser.getStarted()
+                .thenCompose(_ -> browser.submit(() -> {
+                    BrowserContext context = browser.getHolder().createContext(contextOptions());
+                    return new PlaywrightTab(browser, context, context.newPage());
+                }))
+                .whenComplete((_, ex) -> {
+                    if (ex != null) {
+                        browser.releaseTab();
+                    }
+                });
     }
 
     /**
-     * Provide a Page to the given consumer, pinned to the thread's Holder.
+     * Provide a Page to the given consumer and close it afterward. The consumer runs on the browser's
+     * thread and holds it for its whole duration, so long-running scrapes should use {@link #openTab}.
      */
     public void withPage(Consumer<Page> pageConsumer) {
-        PlaywrightBrowserHolder holder = getOrCreateHolder();
-
-        Browser.NewContextOptions contextOptions = new Browser.NewContextOptions()
-                .setViewportSize(1280, 720)
-                .setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) Chrome/133.0.0 Safari/537.36")
-                .setJavaScriptEnabled(true);
-
-        // Create a fresh context/page each time, but same thread & same holder
-        try (BrowserContext ctx = holder.createContext(contextOptions);
-             Page page = ctx.newPage()) {
-            try {
-                pageConsumer.accept(page);
-            } catch (Exception e) {
-                log.error("Error during page operation on thread {}", Thread.currentThread().getName(), e);
-                throw e;
-            }
-        } catch (Exception e) {
-            log.error("Error creating or using page in PlaywrightBrowserHolder on thread {}", Thread.currentThread().getName(), e);
+        PlaywrightTab tab;
+        try {
+            tab = openTab().join();
+        } catch (CompletionException | RejectedExecutionException e) {
+            log.error("Error creating page", e);
             throw new RuntimeException("Failed browser operation", e);
         }
+        try {
+            tab.call(page -> {
+                pageConsumer.accept(page);
+                return null;
+            }).join();
+        } catch (CompletionException e) {
+            log.error("Error during page operation on {}", tab.getBrowserName(), e.getCause());
+            throw new RuntimeException("Failed browser operation", e.getCause());
+        } finally {
+            tab.close();
+        }
     }
 
     /**
-     * Optionally close the BrowserHolder for this current thread.
-     * With virtual threads, once the thread ends, there's no re-use anyway;
-     * so usually just let it die. But if I prefer, I can call this
-     * at the end of logic to ensure a clean close.
+     * Open tabs per browser thread, for the stats endpoint.
      */
-    public void closeHolderForCurrentThread() {
-        PlaywrightBrowserHolder holder = holderThreadLocal.get();
-        if (holder != null) {
-            holder.close();
-            holderThreadLocal.remove();
-            log.info("Closed BrowserHolder for thread: {}", Thread.currentThread().getName());
+    public synchronized Map<String, Integer> getOpenTabs() {
+        Map<String, Integer> tabs = new TreeMap<>();
+        browsers.forEach(b -> tabs.put(b.getName(), b.getOpenTabs()));
+        return tabs;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        browsers.forEach(PlaywrightBrowserThread::shutdown);
+        browsers.clear();
+    }
+
+    private synchronized PlaywrightBrowserThread reserveTab() {
+        browsers.removeIf(b -> {
+            boolean dead = !b.isAlive() && b.getStarted().isDone();
+            if (dead) {
+                log.warn("Browser thread {} has exited; dropping it from the pool", b.getName());
+            }
+            return dead;
+        });
+
+        Optional<PlaywrightBrowserThread> leastLoaded = browsers.stream()
+                .filter(b -> b.getOpenTabs() < tabsPerBrowser)
+                .min(Comparator.comparingInt(PlaywrightBrowserThread::getOpenTabs));
+        // Spread tabs over all allowed browsers before doubling up
+        boolean launch = browsers.size() < maxBrowsers
+                && leastLoaded.map(b -> b.getOpenTabs() > 0).orElse(true);
+        PlaywrightBrowserThread browser = launch ? launchBrowser() : leastLoaded.orElseThrow(() ->
+                new RejectedExecutionException("All " + browsers.size() + " browsers are at "
+                        + tabsPerBrowser + " tabs"));
+        if (!browser.tryReserveTab(tabsPerBrowser)) {
+            // Only this method reserves, under the lock, so a slot seen free is still free
+            throw new IllegalStateException("Tab slot of " + browser.getName() + " vanished");
         }
+        return browser;
+    }
+
+    private PlaywrightBrowserThread launchBrowser() {
+        var browser = new PlaywrightBrowserThread("playwright-browser-" + (++browserSequence));
+        browser.start();
+        browsers.add(browser);
+        log.info("Launched {} ({} of {} browsers)", browser.getName(), browsers.size(), maxBrowsers);
+        return browser;
+    }
+
+    private static Browser.NewContextOptions contextOptions() {
+        return new Browser.NewContextOptions()
+                .setViewportSize(1280, 720)
+                .setUserAgent(USER_AGENT)
+                .setJavaScriptEnabled(true);
     }
 }
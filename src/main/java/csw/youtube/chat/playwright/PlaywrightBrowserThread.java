@@ -0,0 +1,130 @@
+package csw.youtube.chat.playwright;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform thread that owns one {@link PlaywrightBrowserHolder} and runs every call against it. Playwright
+ * objects are bound to the thread that created them, so work for this browser's tabs is queued here
+ * instead of being run by the caller. Between tasks the thread keeps pumping Playwright events so the
+ * chat callbacks of idle tabs still fire.
+ */
+@Slf4j
+public class PlaywrightBrowserThread extends Thread {
+    private static final long IDLE_POLL_MS = 100;
+    private static final double EVENT_PUMP_MS = 50;
+
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    private final CompletableFuture<Void> started = new CompletableFuture<>();
+    private final AtomicInteger openTabs = new AtomicInteger();
+    private volatile boolean running = true;
+    private PlaywrightBrowserHolder holder;
+
+    public PlaywrightBrowserThread(String name) {
+        super(name);
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        try {
+            holder = new PlaywrightBrowserHolder();
+            started.complete(null);
+        } catch (Exception e) {
+            log.error("Failed to launch browser on {}", getName(), e);
+            started.completeExceptionally(e);
+            return;
+        }
+
+        while (running) {
+            try {
+                Runnable task = openTabs.get() > 0
+                        ? tasks.poll()
+                        : tasks.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                } else if (openTabs.get() > 0) {
+                    holder.dispatchEvents(EVENT_PUMP_MS);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                log.error("Browser task failed on {}", getName(), e);
+            }
+        }
+
+        // Fail whatever was queued after shutdown so no caller waits forever
+        Runnable pending;
+        while ((pending = tasks.poll()) != null) {
+            pending.run();
+        }
+        Thread.interrupted(); // the browser can't be closed with the interrupt still pending
+        holder.close();
+    }
+
+    /**
+     * Completes once the browser is up, or exceptionally if it couldn't be launched.
+     */
+    public CompletableFuture<Void> getStarted() {
+        return started;
+    }
+
+    /**
+     * Runs {@code task} on this thread.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new RejectedExecutionException(getName() + " is shut down"));
+            return result;
+        }
+        tasks.add(() -> {
+            if (!running) {
+                result.completeExceptionally(new RejectedExecutionException(getName() + " is shut down"));
+                return;
+            }
+            try {
+                result.complete(task.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Must only be called on this thread, from a submitted task.
+     */
+    PlaywrightBrowserHolder getHolder() {
+        if (Thread.currentThread() != this) {
+            throw new IllegalStateException("Browser of " + getName() + " used from " + Thread.currentThread().getName());
+        }
+        return holder;
+    }
+
+    public int getOpenTabs() {
+        return openTabs.get();
+    }
+
+    boolean tryReserveTab(int limit) {
+        int tabs;
+        do {
+            tabs = openTabs.get();
+            if (tabs >= limit) {
+                return false;
+            }
+        } while (!openTabs.compareAndSet(tabs, tabs + 1));
+        return true;
+    }
+
+    void releaseTab() {
+        openTabs.decrementAndGet();
+    }
+
+    public void shutdown() {
+        running = false;
+        interrupt();
+    }
+}
@@ -0,0 +1,50 @@
+package csw.youtube.chat.playwright;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * One video's page in its own {@link BrowserContext} of a shared browser. The page may only be touched
+ * from the browser's thread, so every access goes through {@link #call}.
+ */
+public final class PlaywrightTab implements AutoCloseable {
+    private final PlaywrightBrowserThread owner;
+    private final BrowserContext context;
+    private final Page page;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    PlaywrightTab(PlaywrightBrowserThread owner, BrowserContext context, Page page) {
+        this.owner = owner;
+        this.context = context;
+        this.page = page;
+    }
+
+    /**
+     * Runs {@code action} with the page on the browser's thread.
+     */
+    public <T> CompletableFuture<T> call(Function<Page, T> action) {
+        return owner.submit(() -> action.apply(page));
+    }
+
+    public String getBrowserName() {
+        return owner.getName();
+    }
+
+    /**
+     * Closes the context (and with it the page) on the browser's thread and frees the tab slot.
+     * Doesn't wait, so it's safe to call from a chat callback.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            owner.submit(() -> {
+                context.close();
+                return null;
+            }).whenComplete((_, _) -> owner.releaseTab());
+        }
+    }
+}
@@ -3,8 +3,13 @@ package csw.youtube.chat.playwright;
 import com.sun.management.OperatingSystemMXBean;
 import csw.youtube.chat.live.dto.KeywordRankingPair;
 import csw.youtube.chat.live.dto.ScraperMetrics;
+import csw.youtube.chat.live.dto.ScraperProcessResources;
 import csw.youtube.chat.live.model.ScraperState;
+import csw.youtube.chat.live.service.MultiplexScraperPool;
 import csw.youtube.chat.live.service.RankingService;
+import csw.youtube.chat.live.service.ScraperAdmissionController;
+import csw.youtube.chat.live.service.ScraperProcessMonitor;
+import csw.youtube.chat.live.service.ScraperWarmPool;
 import csw.youtube.chat.live.service.YTRustScraperService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
@@ -24,6 +29,11 @@ public class ScraperStatsEndpoint {
 
     private final YTRustScraperService ytRustScraperService;
     private final RankingService rankingService;
+    private final ScraperAdmissionController admissionController;
+    private final ScraperProcessMonitor processMonitor;
+    private final MultiplexScraperPool multiplexPool;
+    private final ScraperWarmPool warmPool;
+    private final PlaywrightBrowserManager playwrightBrowserManager;
 
     @ReadOperation
     public Map<String, Object> getScraperStats() {
@@ -41,7 +51,7 @@ public class ScraperStatsEndpoint {
 
         // read everything into a list so we can custom-sort
         List<Map.Entry<String, ScraperMetrics>> statsList = new ArrayList<>();
-        for (Map.Entry<String, ScraperState> entry : ytRustScraperService.getScraperStates().entrySet()) {
+        for (Map.Entry<String, ScraperState> entry : ytRustScraperService.getClusterScraperStates().entrySet()) {
             String videoId = entry.getKey();
             ScraperState state = entry.getValue();
 
@@ -129,6 +139,31 @@ public class ScraperStatsEndpoint {
         response.put("cpuUsage", cpuUsage);
         response.put("memUsage", usedMemoryMB);
         response.put("runningScraperCount", runningScraperCount);
+        response.put("maxConcurrentScrapers", ytRustScraperService.getMaxConcurrentScrapers());
+        // Latest admission control round on this node (null until the first one ran)
+        response.put("admission", admissionController.getLastDecision());
+
+        // Scraper process trees on this node (Rust + Chrome), heaviest first
+        Map<String, ScraperProcessResources> processes = new LinkedHashMap<>();
+        processMonitor.getAllResources().entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(
+                        Comparator.comparingLong(ScraperProcessResources::rssBytes).reversed()))
+                .forEach(e -> processes.put(e.getKey(), e.getValue()));
+        response.put("scraperRssMb", processes.values().stream()
+                .mapToLong(ScraperProcessResources::rssBytes).sum() / (1024.0 * 1024.0));
+        response.put("scraperCpuCores", processes.values().stream()
+                .mapToDouble(ScraperProcessResources::cpuCores).sum());
+        response.put("processes", processes);
+        if (multiplexPool.isEnabled()) {
+            response.put("multiplexHosts", multiplexPool.getPlacement());
+        }
+        if (warmPool.isEnabled()) {
+            response.put("warmScrapers", warmPool.getReadyCount());
+        }
+        Map<String, Integer> playwrightTabs = playwrightBrowserManager.getOpenTabs();
+        if (!playwrightTabs.isEmpty()) {
+            response.put("playwrightTabs", playwrightTabs);
+        }
         response.put("scrapers", sortedStats);
 
         return response;
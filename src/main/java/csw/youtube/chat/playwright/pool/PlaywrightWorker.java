@@ -3,20 +3,40 @@ package csw.youtube.chat.playwright.pool;
 import com.microsoft.playwright.*;
 import com.microsoft.playwright.options.LoadState;
 import csw.youtube.chat.live.js.YouTubeChatScriptProvider;
+import csw.youtube.chat.live.service.ScraperProcessMonitor;
+import lombok.extern.slf4j.Slf4j;
 
-import java.util.List;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+@Slf4j
 public class PlaywrightWorker extends Thread {
+    // Serializes the pool's driver launches so each worker can tell which new child process is its own
+    private static final Object DRIVER_LAUNCH_LOCK = new Object();
+    // Playwright for Java runs its driver as "node <driver dir>/package/cli.js run-driver"
+    private static final String DRIVER_ARGUMENT = "run-driver";
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
     private final BlockingQueue<Callable<Object>> taskQueue = new LinkedBlockingQueue<>();
     private final CountDownLatch initialized = new CountDownLatch(1);
+    private final AtomicInteger tasksCompleted = new AtomicInteger();
+    private final Instant createdAt = Instant.now();
     private Playwright playwright;
     private Browser browser;
     private BrowserContext context;
     private Page page;
+    // Playwright driver process; Chromium runs below it
+    private volatile ProcessHandle driverProcess;
+    private volatile Exception initFailure;
     private volatile boolean running = true;
 
     public PlaywrightWorker() {
+        super("playwright-worker-" + SEQUENCE.incrementAndGet());
         setDaemon(true);
         start(); // start the thread so that run() is executed
         try {
@@ -25,45 +45,59 @@ public class PlaywrightWorker extends Thread {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Worker initialization interrupted", e);
         }
+        if (initFailure != null) {
+            throw new IllegalStateException("Worker " + getName() + " failed to launch its browser", initFailure);
+        }
     }
 
     @Override
     public void run() {
         // Initialize Playwright and browser on this dedicated thread.
-        playwright = Playwright.create();
-        browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
-                .setHeadless(false)
-                .setArgs(List.of(
-                        "--remote-debugging-port=0",
-                        "--disable-popup-blocking",
-                        "--disable-crash-reporter",
-                        "--disable-sync-preferences",
-                        "--disable-background-timer-throttling",
-                        "--disable-renderer-backgrounding",
-                        "--no-sandbox",
-                        "--disable-extensions",
-                        "--disable-gpu",
-                        "--disable-dev-shm-usage",
-                        "--disable-setuid-sandbox",
-                        "--disable-accelerated-2d-canvas",
-                        "--disable-web-security",
-                        "--disable-default-apps",
-                        "--disable-sync",
-                        "--disable-translate",
-                        "--metrics-recording-only",
-                        "--mute-audio",
-                        "--no-first-run",
-                        "--disable-backgrounding-occluded-windows",
-                        "--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/133.0.0.0 Safari/537.36"
-                ))
-                .setTimeout(30000)
-                .setIgnoreDefaultArgs(List.of("--enable-automation"))
-                .setSlowMo(0));
-        context = browser.newContext();
-        page = context.newPage();
-
-        // Signal that initialization is complete.
-        initialized.countDown();
+        try {
+            synchronized (DRIVER_LAUNCH_LOCK) {
+                Set<Long> before = childPids();
+                playwright = Playwright.create();
+                driverProcess = findDriver(before);
+            }
+            browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                    .setHeadless(false)
+                    .setArgs(List.of(
+                            "--remote-debugging-port=0",
+                            "--disable-popup-blocking",
+                            "--disable-crash-reporter",
+                            "--disable-sync-preferences",
+                            "--disable-background-timer-throttling",
+                            "--disable-renderer-backgrounding",
+                            "--no-sandbox",
+                            "--disable-extensions",
+                            "--disable-gpu",
+                            "--disable-dev-shm-usage",
+                            "--disable-setuid-sandbox",
+                            "--disable-accelerated-2d-canvas",
+                            "--disable-web-security",
+                            "--disable-default-apps",
+                            "--disable-sync",
+                            "--disable-translate",
+                            "--metrics-recording-only",
+                            "--mute-audio",
+                            "--no-first-run",
+                            "--disable-backgrounding-occluded-windows",
+                            "--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/133.0.0.0 Safari/537.36"
+                    ))
+                    .setTimeout(30000)
+                    .setIgnoreDefaultArgs(List.of("--enable-automation"))
+                    .setSlowMo(0));
+            context = browser.newContext();
+            page = context.newPage();
+        } catch (Exception e) {
+            initFailure = e;
+            running = false;
+            closeQuietly();
+            return;
+        } finally {
+            // Signal that initialization is complete (or failed).
+            initialized.countDown();
+        }
 
         // Main loop: process tasks submitted to this worker.
         while (running) {
@@ -73,18 +107,29 @@ public class PlaywrightWorker extends Thread {
                     try {
                         task.call();
                     } catch (Exception e) {
-                        e.printStackTrace(); // log as needed
+                        log.error("Task failed on {}", getName(), e);
                     }
                 }
             } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
                 break;
             }
         }
+        Thread.interrupted();
+        closeQuietly();
     }
 
     // Submit a task and block until it’s done.
     public <T> T submit(Callable<T> task) throws Exception {
+        return submit(task, null);
+    }
+
+    /**
+     * Like {@link #submit(Callable)}, giving up after {@code timeout} ({@code null} waits forever).
+     */
+    public <T> T submit(Callable<T> task, Duration timeout) throws Exception {
+        if (!running) {
+            throw new RejectedExecutionException(getName() + " is shut down");
+        }
         CompletableFuture<T> result = new CompletableFuture<>();
         taskQueue.offer(() -> {
             try {
@@ -92,10 +137,18 @@ public class PlaywrightWorker extends Thread {
                 result.complete(value);
             } catch (Exception e) {
                 result.completeExceptionally(e);
+            } finally {
+                tasksCompleted.incrementAndGet();
             }
             return null;
         });
-        return result.get(); // waits for task completion
+        try {
+            return timeout == null
+                    ? result.get() // waits for task completion
+                    : result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
     }
 
     // Convenience method for a Runnable.
@@ -121,22 +174,102 @@ public class PlaywrightWorker extends Thread {
             page.navigate("about:blank", new Page.NavigateOptions().setTimeout(10000));
             page.waitForLoadState(LoadState.LOAD, new Page.WaitForLoadStateOptions().setTimeout(10000));
             return null;
-        });
+        }, Duration.ofSeconds(25));
+    }
+
+    /**
+     * Whether the thread, browser and page still respond, within {@code timeout}.
+     */
+    public boolean isHealthy(Duration timeout) {
+        if (!running || !isAlive()) {
+            return false;
+        }
+        try {
+            return submit(() -> browser.isConnected() && !page.isClosed()
+                    && Integer.valueOf(1).equals(page.evaluate("1")), timeout);
+        } catch (Exception e) {
+            log.warn("Health check of {} failed: {}", getName(), e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Tasks run so far, including failed ones.
+     */
+    public int getTasksCompleted() {
+        return tasksCompleted.get();
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Resident memory of this worker's driver and browser processes, if they could be identified.
+     */
+    public Optional<Long> getResidentBytes() {
+        ProcessHandle driver = driverProcess;
+        if (driver == null || !driver.isAlive()) {
+            return Optional.empty();
+        }
+        return Optional.of(ScraperProcessMonitor.treeResidentBytes(driver));
     }
 
     // Shutdown this worker and release its resources.
     public void shutdownWorker() {
+        // Stopping the loop makes the thread close the browser on its way out
         running = false;
-        try {
-            submit(() -> {
-                context.close();
-                browser.close();
-                playwright.close();
-                return null;
+        this.interrupt();
+        ProcessHandle driver = driverProcess;
+        if (driver != null) {
+            // In case the browser hangs on close, don't leak it
+            driver.onExit().completeOnTimeout(driver, 30, TimeUnit.SECONDS).thenRun(() -> {
+                driver.descendants().forEach(ProcessHandle::destroyForcibly);
+                driver.destroyForcibly();
             });
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (context != null) context.close();
+            if (browser != null) browser.close();
+            if (playwright != null) playwright.close();
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Error closing {}: {}", getName(), e.getMessage());
         }
-        this.interrupt();
+    }
+
+    /**
+     * The driver among the children started since {@code before}. Other code launches children without
+     * the lock (scrapers, standby and multiplexed hosts, other Playwright instances), so only a Playwright
+     * driver qualifies, and if more than one appeared none is taken: a wrong guess would have its tree
+     * killed in {@link #shutdownWorker()}.
+     */
+    private ProcessHandle findDriver(Set<Long> before) {
+        List<ProcessHandle> candidates = ProcessHandle.current().children()
+                .filter(h -> !before.contains(h.pid()))
+                .filter(PlaywrightWorker::isPlaywrightDriver)
+                .toList();
+        if (candidates.size() != 1) {
+            log.warn("Couldn't tell the driver process of {} apart ({} candidates); " +
+                    "its memory won't be tracked", getName(), candidates.size());
+            return null;
+        }
+        return candidates.getFirst();
+    }
+
+    private static boolean isPlaywrightDriver(ProcessHandle handle) {
+        ProcessHandle.Info info = handle.info();
+        boolean node = info.command()
+                .map(command -> Path.of(command).getFileName().toString().toLowerCase(Locale.ROOT))
+                .filter(name -> name.equals("node") || name.equals("node.exe"))
+                .isPresent();
+        // Arguments aren't available on every platform (e.g. Windows); the executable name always is
+        return node && info.arguments().map(args -> Arrays.asList(args).contains(DRIVER_ARGUMENT)).orElse(true);
+    }
+
+    private static Set<Long> childPids() {
+        return ProcessHandle.current().children().map(ProcessHandle::pid).collect(Collectors.toSet());
     }
 }
@@ -1,39 +1,237 @@
 package csw.youtube.chat.playwright.pool;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Pool of {@link PlaywrightWorker}s that replaces its own workers: a worker is recycled after
+ * {@code scraper.worker-pool.max-tasks} tasks or once its browser grows past
+ * {@code scraper.worker-pool.max-rss-mb}, and discarded when a reset or health check fails. Replacements
+ * come from {@code scraper.worker-pool.spares} pre-launched workers, so acquiring never waits for a
+ * browser launch unless spares ran out. A pooled worker whose replacement fails to launch is launched
+ * again by the next health check, so failed launches never shrink the pool for good. Enabled with
+ * {@code scraper.worker-pool.enabled}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "scraper.worker-pool.enabled", havingValue = "true")
 public class PlaywrightWorkerPool {
+    private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(10);
+
     private final BlockingQueue<PlaywrightWorker> pool;
+    private final BlockingQueue<PlaywrightWorker> spares = new LinkedBlockingQueue<>();
+    private final Set<PlaywrightWorker> busy = ConcurrentHashMap.newKeySet();
+    private final int poolSize;
+    private final int spareCount;
+    private final int maxTasksPerWorker;
+    private final long maxRssBytes;
+    // Workers (pooled or spare) being launched right now
+    private final AtomicInteger launching = new AtomicInteger();
+    // Pooled workers whose replacement failed to launch, relaunched by the next health check
+    private final AtomicInteger missing = new AtomicInteger();
+    private volatile boolean shuttingDown;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer acquireTimer;
+
+    public PlaywrightWorkerPool(
+            @Value("${scraper.poolSize:2}") int poolSize,
+            @Value("${scraper.worker-pool.spares:1}") int spareCount,
+            @Value("${scraper.worker-pool.max-tasks:200}") int maxTasksPerWorker,
+            @Value("${scraper.worker-pool.max-rss-mb:1024}") long maxRssMb,
+            MeterRegistry meterRegistry) {
+        this.poolSize = poolSize;
+        this.spareCount = spareCount;
+        this.maxTasksPerWorker = maxTasksPerWorker;
+        this.maxRssBytes = maxRssMb * 1024 * 1024;
+        this.meterRegistry = meterRegistry;
 
-    public PlaywrightWorkerPool(@Value("${scraper.poolSize:2}") int poolSize) {
         pool = new LinkedBlockingQueue<>();
         for (int i = 0; i < poolSize; i++) {
             pool.offer(new PlaywrightWorker());
         }
+        replenishSpares();
+
+        acquireTimer = Timer.builder("playwright.pool.acquire")
+                .description("Time spent waiting for a Playwright worker")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("playwright.pool.idle", pool, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("playwright.pool.busy", busy, Set::size).register(meterRegistry);
+        Gauge.builder("playwright.pool.spares", spares, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("playwright.pool.missing", missing, AtomicInteger::get)
+                .description("Pooled workers lost to failed launches and not yet replaced")
+                .register(meterRegistry);
+        Gauge.builder("playwright.pool.occupancy", this, p -> (double) p.busy.size() / p.poolSize)
+                .description("Share of pooled workers currently in use")
+                .register(meterRegistry);
     }
 
     public PlaywrightWorker acquireWorker() throws InterruptedException {
-        return pool.take();
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                PlaywrightWorker worker = pool.take();
+                if (worker.isAlive()) {
+                    busy.add(worker);
+                    return worker;
+                }
+                retire(worker, "dead");
+            }
+        } finally {
+            acquireTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        }
     }
 
     public void releaseWorker(PlaywrightWorker worker) {
+        busy.remove(worker);
         try {
             worker.resetPage();
         } catch (Exception e) {
-            // Log the error and decide whether to discard the worker
-            e.printStackTrace();
+            log.warn("Resetting {} failed, discarding it: {}", worker.getName(), e.toString());
+            retire(worker, "reset-failed");
+            return;
+        }
+        String recycleReason = recycleReason(worker);
+        if (recycleReason != null) {
+            retire(worker, recycleReason);
+            return;
         }
         pool.offer(worker);
     }
 
+    /**
+     * Checks idle workers one at a time (so the pool never loses more than one to the check) and replaces
+     * those that don't answer or have outgrown their limits, then relaunches pooled workers that failed to
+     * launch before.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void checkHealth() {
+        if (shuttingDown) {
+            return;
+        }
+        List<PlaywrightWorker> idle = new ArrayList<>();
+        pool.drainTo(idle, 1);
+        int checked = 0;
+        while (!idle.isEmpty() && checked < poolSize) {
+            PlaywrightWorker worker = idle.removeFirst();
+            checked++;
+            String reason = worker.isHealthy(HEALTH_CHECK_TIMEOUT) ? recycleReason(worker) : "unhealthy";
+            if (reason != null) {
+                retire(worker, reason);
+            } else {
+                pool.offer(worker);
+            }
+            pool.drainTo(idle, 1);
+        }
+        // Whatever was drained but not checked this round goes straight back
+        idle.forEach(pool::offer);
+
+        spares.removeIf(spare -> {
+            if (spare.isHealthy(HEALTH_CHECK_TIMEOUT)) {
+                return false;
+            }
+            log.warn("Spare {} is unhealthy, replacing it", spare.getName());
+            spare.shutdownWorker();
+            return true;
+        });
+        for (int relaunch = missing.getAndSet(0); relaunch > 0; relaunch--) {
+            launchInBackground(pool);
+        }
+        replenishSpares();
+    }
+
     @PreDestroy
     public void shutdown() {
+        shuttingDown = true;
         for (PlaywrightWorker worker : pool) {
             worker.shutdownWorker();
         }
+        spares.forEach(PlaywrightWorker::shutdownWorker);
+        busy.forEach(PlaywrightWorker::shutdownWorker);
+    }
+
+    private String recycleReason(PlaywrightWorker worker) {
+        if (worker.getTasksCompleted() >= maxTasksPerWorker) {
+            return "max-tasks";
+        }
+        if (maxRssBytes > 0 && worker.getResidentBytes().orElse(0L) > maxRssBytes) {
+            return "max-rss";
+        }
+        return null;
+    }
+
+    /**
+     * Shuts the worker down and puts a spare in its place, or launches a replacement if none is ready.
+     */
+    private void retire(PlaywrightWorker worker, String reason) {
+        log.info("Recycling {} after {} tasks ({})", worker.getName(), worker.getTasksCompleted(), reason);
+        Counter.builder("playwright.pool.recycled")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        worker.shutdownWorker();
+        if (shuttingDown) {
+            return;
+        }
+
+        PlaywrightWorker spare = spares.poll();
+        if (spare != null && spare.isAlive()) {
+            pool.offer(spare);
+        } else {
+            if (spare != null) {
+                spare.shutdownWorker();
+            }
+            launchInBackground(pool);
+        }
+        replenishSpares();
+    }
+
+    private synchronized void replenishSpares() {
+        // Replacements in flight for the pool count too, so a burst of retirements doesn't launch twice
+        // as many browsers; the next health check tops the spares up
+        while (!shuttingDown && spares.size() + launching.get() < spareCount) {
+            launchInBackground(spares);
+        }
+    }
+
+    private void launchInBackground(BlockingQueue<PlaywrightWorker> target) {
+        launching.incrementAndGet();
+        Thread.ofVirtual().name("playwright-worker-launcher").start(() -> {
+            try {
+                PlaywrightWorker worker = new PlaywrightWorker();
+                if (shuttingDown) {
+                    worker.shutdownWorker();
+                } else {
+                    target.offer(worker);
+                }
+            } catch (Exception e) {
+                if (target == pool) {
+                    missing.incrementAndGet();
+                    log.error("Failed to launch a pooled Playwright worker; the next health check retries", e);
+                } else {
+                    log.error("Failed to launch a Playwright worker", e);
+                }
+            } finally {
+                launching.decrementAndGet();
+            }
+        });
     }
-}
\ No newline at end of file
+}
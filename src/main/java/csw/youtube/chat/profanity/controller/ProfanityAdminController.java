@@ -0,0 +1,87 @@
+package csw.youtube.chat.profanity.controller;
+
+import csw.youtube.chat.common.annotation.ApiV1;
+import csw.youtube.chat.common.config.security.SecurityExpression;
+import csw.youtube.chat.profanity.service.ProfanityCheckService;
+import csw.youtube.chat.profanity.service.ProfanityRollupService;
+import csw.youtube.chat.profanity.service.ScanPolicy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@ApiV1
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/profanity")
+public class ProfanityAdminController {
+    private final ProfanityCheckService profanityCheckService;
+    private final ProfanityRollupService profanityRollupService;
+    private final SecurityExpression securityExpression;
+
+    @GetMapping("/dictionary")
+    public ResponseEntity<?> getDictionary(Authentication authentication) {
+        if (!securityExpression.isAdminOrManager(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(profanityCheckService.getDictionaryInfo());
+    }
+
+    @GetMapping("/videos/{videoId}/policy")
+    public ResponseEntity<?> getScanPolicy(@PathVariable String videoId, Authentication authentication) {
+        if (!securityExpression.isAdminOrManager(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(Map.of("videoId", videoId, "policy", profanityCheckService.getScanPolicy(videoId)));
+    }
+
+    /**
+     * Switches a video between exact and fuzzy (misspelling tolerant) profanity matching.
+     */
+    @PutMapping("/videos/{videoId}/policy")
+    public ResponseEntity<?> setScanPolicy(@PathVariable String videoId, @RequestParam ScanPolicy policy,
+                                           Authentication authentication) {
+        if (!securityExpression.isAdminOrManager(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        profanityCheckService.setScanPolicy(videoId, policy);
+        return ResponseEntity.ok(Map.of("videoId", videoId, "policy", policy));
+    }
+
+    /**
+     * Total hits, hits per minute over the last {@code minutes} and the {@code top} offenders of a video.
+     * Counts lag by up to one rollup flush.
+     */
+    @GetMapping("/videos/{videoId}/rollup")
+    public ResponseEntity<?> getRollup(@PathVariable String videoId,
+                                       @RequestParam(defaultValue = "60") int minutes,
+                                       @RequestParam(defaultValue = "10") int top,
+                                       Authentication authentication) {
+        if (!securityExpression.isAdminOrManager(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (minutes < 1 || minutes > 24 * 60 || top < 1 || top > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "minutes must be 1-1440 and top 1-100"));
+        }
+        return ResponseEntity.ok(profanityRollupService.getRollup(videoId, minutes, top));
+    }
+
+    /**
+     * Rebuilds the trie from the current word list; responds once the new dictionary is live.
+     */
+    @PostMapping("/reload")
+    public CompletableFuture<ResponseEntity<?>> reload(Authentication authentication) {
+        if (!securityExpression.isAdminOrManager(authentication)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        return profanityCheckService.reload()
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> ResponseEntity.internalServerError().body(Map.of(
+                        "error", "Reload failed, the previous dictionary is still in use: "
+                                + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()))));
+    }
+}
@@ -0,0 +1,30 @@
+package csw.youtube.chat.profanity.dto;
+
+import java.util.List;
+
+/**
+ * Profanity hits of one video during one moderation feed window, one entry per user.
+ *
+ * @param windowStart  epoch millis of the first hit in the window
+ * @param windowEnd    epoch millis of the last hit in the window
+ * @param droppedHits  hits left out because the window already had its maximum number of users
+ */
+public record ModerationBatch(
+        String videoId,
+        long windowStart,
+        long windowEnd,
+        List<UserHits> users,
+        int droppedHits) {
+
+    /**
+     * @param hits    profane messages from the user in the window
+     * @param words   distinct dictionary words matched, in order of first appearance
+     * @param message the user's latest profane message, unmasked
+     * @param begin   start of the match in {@code message}
+     * @param end     end of the match in {@code message}
+     * @param lastHit epoch millis of the latest message
+     */
+    public record UserHits(String username, int hits, List<String> words, String message, int begin, int end,
+                           long lastHit) {
+    }
+}
@@ -0,0 +1,24 @@
+package csw.youtube.chat.profanity.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Profanity counts of one video, as of the last rollup flush.
+ *
+ * @param totalHits    hits since the video was first tracked
+ * @param perMinute    hits per minute over the requested window, oldest first
+ * @param topOffenders users with the most hits, most first
+ */
+public record ProfanityRollup(
+        String videoId,
+        long totalHits,
+        List<MinuteHits> perMinute,
+        List<UserHits> topOffenders) {
+
+    public record MinuteHits(Instant minute, long hits) {
+    }
+
+    public record UserHits(String username, long hits, Instant lastHit) {
+    }
+}
@@ -15,6 +15,8 @@ public class ProfanityLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    private String videoId;
+
     private String username;
 
     @Column(columnDefinition = "TEXT")
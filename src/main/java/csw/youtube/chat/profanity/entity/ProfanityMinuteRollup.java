@@ -0,0 +1,37 @@
+package csw.youtube.chat.profanity.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Profanity hits per minute of a video's chat, accumulated by {@code ProfanityRollupService}.
+ */
+@Entity
+@Table(name = "profanity_rollup_minute")
+@IdClass(ProfanityMinuteRollup.Key.class)
+@Data
+@NoArgsConstructor
+public class ProfanityMinuteRollup {
+    @Id
+    @Column(length = 20)
+    private String videoId;
+
+    // Start of the minute
+    @Id
+    private Instant minute;
+
+    private long hits;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String videoId;
+        private Instant minute;
+    }
+}
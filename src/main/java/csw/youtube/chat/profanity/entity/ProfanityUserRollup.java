@@ -0,0 +1,38 @@
+package csw.youtube.chat.profanity.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Profanity hits per user in a video's chat, accumulated by {@code ProfanityRollupService}.
+ */
+@Entity
+@Table(name = "profanity_rollup_user", indexes = @Index(name = "idx_profanity_rollup_user_hits", columnList = "video_id, hits"))
+@IdClass(ProfanityUserRollup.Key.class)
+@Data
+@NoArgsConstructor
+public class ProfanityUserRollup {
+    @Id
+    @Column(length = 20)
+    private String videoId;
+
+    @Id
+    private String username;
+
+    private long hits;
+
+    private Instant lastHit;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String videoId;
+        private String username;
+    }
+}
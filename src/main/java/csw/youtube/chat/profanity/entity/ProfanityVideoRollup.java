@@ -0,0 +1,24 @@
+package csw.youtube.chat.profanity.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Profanity hits per video, accumulated by {@code ProfanityRollupService}.
+ */
+@Entity
+@Table(name = "profanity_rollup_video")
+@Data
+@NoArgsConstructor
+public class ProfanityVideoRollup {
+    @Id
+    @Column(length = 20)
+    private String videoId;
+
+    private long hits;
+
+    private Instant lastHit;
+}
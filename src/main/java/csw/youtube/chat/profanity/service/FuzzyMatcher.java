@@ -0,0 +1,191 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.DAT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds bad words misspelled by up to {@code maxDistance} edits (insertions, deletions or substitutions of
+ * one character), e.g. "fuk" or "시벌" for distance 1.
+ * <p>
+ * From each position in the text, the trie is walked together with a Levenshtein automaton for the text
+ * that follows, kept as one row of the edit distance table per trie depth. A branch is dropped as soon as
+ * every cell of its row exceeds the distance, so the walk only visits prefixes that are still within reach;
+ * once the remaining budget is spent, only children that continue the text exactly are followed instead of
+ * all children.
+ * <p>
+ * Like Lucene's fuzzy query, the first {@code prefixLength} characters have to match exactly. Otherwise
+ * every start position would expand the top levels of the trie in full (hundreds of first syllables, each
+ * with its own children), and walks could only start where the text has a character that begins a word.
+ * Words shorter than {@code minWordLength} are only matched exactly (by the regular trie scan), since one
+ * edit away from a short word is most of the language.
+ */
+public final class FuzzyMatcher {
+    private final DAT<String> trie;
+    private final int maxDistance;
+    private final int minWordLength;
+    private final int prefixLength;
+    private final int maxKeyLength;
+    private final int[] childOffsets;
+    private final int[] childCodes;
+
+    /**
+     * @param maxDistance   1 or 2
+     * @param minWordLength shortest word matched with edits, more than {@code maxDistance}
+     * @param prefixLength  leading characters that must match exactly
+     */
+    public FuzzyMatcher(DAT<String> trie, int maxDistance, int minWordLength, int prefixLength) {
+        if (maxDistance < 1 || maxDistance > 2) {
+            throw new IllegalArgumentException("maxDistance must be 1 or 2, got " + maxDistance);
+        }
+        this.trie = trie;
+        this.maxDistance = maxDistance;
+        this.minWordLength = Math.max(minWordLength, maxDistance + 1);
+        this.prefixLength = Math.max(prefixLength, 0);
+        this.maxKeyLength = trie.getMaxKeyLength();
+        DAT.Children children = trie.children();
+        this.childOffsets = children.offsets();
+        this.childCodes = children.codes();
+    }
+
+    /**
+     * @return the leftmost hit, with offsets into {@code text} and the dictionary word as its value, or null
+     */
+    public DAT.Hit<String> findFirst(CharSequence text) {
+        List<DAT.Hit<String>> first = new ArrayList<>(1);
+        findAll(text, (begin, end, word) -> !first.add(new DAT.Hit<>(begin, end, word)));
+        return first.isEmpty() ? null : first.getFirst();
+    }
+
+    /**
+     * Reports the leftmost hit, then the leftmost one starting after it ends, and so on, until {@code onHit}
+     * returns false.
+     */
+    public void findAll(CharSequence text, DAT.IHitCancellable<String> onHit) {
+        int length = text.length();
+        int[] codes = new int[length];
+        for (int i = 0; i < length; i++) {
+            codes[i] = trie.code(text.charAt(i));
+        }
+        // A key can match at most maxDistance more characters than it has
+        int window = maxKeyLength + maxDistance;
+        int[] rows = new int[(maxKeyLength + 1) * (window + 1)];
+
+        for (int start = 0; start < length; start++) {
+            if (prefixLength > 0 && (codes[start] == 0 || trie.child(0, codes[start]) == -1)) {
+                continue;
+            }
+            Walk walk = new Walk(codes, start, Math.min(window, length - start), rows);
+            for (int j = 0; j <= walk.width; j++) {
+                rows[j] = j;
+            }
+            DAT.Hit<String> hit = walk.expand(0, 0);
+            if (hit != null) {
+                if (!onHit.hit(hit.begin(), hit.end(), hit.value())) {
+                    return;
+                }
+                start = Math.max(start, hit.end() - 1);
+            }
+        }
+    }
+
+    /**
+     * The trie walk from one start position; row {@code d} holds the edit distances between the trie path of
+     * depth {@code d} and each prefix of the text from {@code start}.
+     */
+    private final class Walk {
+        private final int[] codes;
+        private final int start;
+        private final int width;
+        private final int[] rows;
+
+        Walk(int[] codes, int start, int width, int[] rows) {
+            this.codes = codes;
+            this.start = start;
+            this.width = width;
+            this.rows = rows;
+        }
+
+        DAT.Hit<String> expand(int state, int depth) {
+            if (depth == maxKeyLength) {
+                return null;
+            }
+            int row = depth * (width + 1);
+            int min = Integer.MAX_VALUE;
+            for (int j = 0; j <= width; j++) {
+                min = Math.min(min, rows[row + j]);
+            }
+
+            if (depth < prefixLength) {
+                return depth < width && codes[start + depth] != 0 ? descend(state, depth, codes[start + depth]) : null;
+            }
+            if (min < maxDistance) {
+                // Edits left: any child may still be within reach
+                for (int i = childOffsets[state]; i < childOffsets[state + 1]; i++) {
+                    DAT.Hit<String> hit = descend(state, depth, childCodes[i]);
+                    if (hit != null) {
+                        return hit;
+                    }
+                }
+                return null;
+            }
+            // Budget spent: only a child matching the next text character keeps a cell in reach
+            for (int j = 0; j < width; j++) {
+                int code = codes[start + j];
+                if (rows[row + j] != maxDistance || code == 0 || seenBefore(row, j, code)) {
+                    continue;
+                }
+                DAT.Hit<String> hit = descend(state, depth, code);
+                if (hit != null) {
+                    return hit;
+                }
+            }
+            return null;
+        }
+
+        private boolean seenBefore(int row, int j, int code) {
+            for (int i = 0; i < j; i++) {
+                if (rows[row + i] == maxDistance && codes[start + i] == code) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private DAT.Hit<String> descend(int state, int depth, int code) {
+            int child = trie.child(state, code);
+            if (child == -1) {
+                return null;
+            }
+            int row = depth * (width + 1);
+            int next = row + width + 1;
+            rows[next] = depth + 1;
+            int min = rows[next];
+            for (int j = 1; j <= width; j++) {
+                int substitute = rows[row + j - 1] + (codes[start + j - 1] == code ? 0 : 1);
+                int value = Math.min(substitute, Math.min(rows[row + j], rows[next + j - 1]) + 1);
+                rows[next + j] = value;
+                min = Math.min(min, value);
+            }
+            if (min > maxDistance) {
+                return null;
+            }
+
+            int key;
+            if (depth + 1 >= minWordLength && (key = trie.keyAt(child)) >= 0) {
+                // Closest end of the match; longest on ties, so the whole misspelling is covered
+                int best = -1;
+                for (int j = 1; j <= width; j++) {
+                    if (rows[next + j] <= maxDistance && (best < 0 || rows[next + j] <= rows[next + best])) {
+                        best = j;
+                    }
+                }
+                if (best > 0) {
+                    return new DAT.Hit<>(start, start + best, trie.get(key));
+                }
+            }
+            return expand(child, depth + 1);
+        }
+    }
+}
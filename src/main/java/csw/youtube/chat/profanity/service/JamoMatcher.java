@@ -0,0 +1,218 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.DAT;
+import csw.youtube.chat.common.util.FirstCharFilter;
+import csw.youtube.chat.common.util.HangulJamo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches bad words the way Korean chat spells them to get past an exact filter: spaced or dotted out
+ * ("시 발", "시.발"), partly typed as jamo ("ㅅㅣ발"), or as initial consonants only ("ㅅㅂ").
+ * <p>
+ * Text is decomposed to jamo (see {@link HangulJamo}) and separators are skipped while it is fed, one
+ * character at a time, to two automata: one over the decomposed words and one over the initial consonants
+ * of all-Hangul words. There is a single pass over the text and no normalized copy of it; a small ring of
+ * original offsets maps a hit back to the text it came from.
+ * <p>
+ * A decomposed hit has to start and end on syllable boundaries, so "바라" doesn't match "발" through the
+ * ㄹ of 라. An initial consonant hit needs at least one consonant that was typed as such, so ordinary
+ * words like "수박" don't match "ㅅㅂ".
+ */
+public final class JamoMatcher {
+    // Initial consonant keys shorter than this match far too much ordinary text
+    private static final int MIN_CHOSEONG_LENGTH = 2;
+
+    private static final int START = 1;
+    private static final int END = 2;
+    private static final int TYPED = 4;
+
+    // Either may be null when no word produced a key for it
+    private final DAT<String> jamoTrie;
+    private final DAT<String> choseongTrie;
+    private final FirstCharFilter prefilter;
+    private final int ringMask;
+
+    /**
+     * @param jamoTrie     built from {@link #jamoKeys(Collection)}, or null
+     * @param choseongTrie built from {@link #choseongKeys(Collection)}, or null
+     */
+    public JamoMatcher(DAT<String> jamoTrie, DAT<String> choseongTrie) {
+        this.jamoTrie = jamoTrie;
+        this.choseongTrie = choseongTrie;
+
+        BitSet firstChars = new BitSet(Character.MAX_VALUE + 1);
+        int maxKeyLength = 1;
+        for (DAT<String> trie : Arrays.asList(jamoTrie, choseongTrie)) {
+            if (trie == null) {
+                continue;
+            }
+            maxKeyLength = Math.max(maxKeyLength, trie.getMaxKeyLength());
+            for (char c : trie.getFirstChars()) {
+                firstChars.set(c);
+                if (HangulJamo.isConsonant(c)) {
+                    // A key starting with a consonant can also start at any syllable that begins with it
+                    for (char s = HangulJamo.FIRST_SYLLABLE; s <= HangulJamo.LAST_SYLLABLE; s++) {
+                        if (HangulJamo.choseong(s) == c) {
+                            firstChars.set(s);
+                        }
+                    }
+                }
+            }
+        }
+        char[] sorted = new char[firstChars.cardinality()];
+        int n = 0;
+        for (int c = firstChars.nextSetBit(0); c >= 0; c = firstChars.nextSetBit(c + 1)) {
+            sorted[n++] = (char) c;
+        }
+        this.prefilter = new FirstCharFilter(sorted);
+        this.ringMask = Integer.highestOneBit(maxKeyLength * 2 - 1) - 1;
+    }
+
+    /**
+     * Decomposed form of each word, mapped to the word.
+     */
+    public static Map<String, String> jamoKeys(Collection<String> words) {
+        Map<String, String> keys = new TreeMap<>();
+        for (String word : words) {
+            String key = HangulJamo.decompose(word);
+            if (!key.isEmpty()) {
+                keys.putIfAbsent(key, word);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Initial consonants of each all-Hangul word, mapped to the word.
+     */
+    public static Map<String, String> choseongKeys(Collection<String> words) {
+        Map<String, String> keys = new TreeMap<>();
+        for (String word : words) {
+            String key = HangulJamo.choseongOf(word);
+            if (key != null && key.length() >= MIN_CHOSEONG_LENGTH) {
+                keys.putIfAbsent(key, word);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return the first hit, with offsets into {@code text} and the dictionary word as its value, or null
+     */
+    public DAT.Hit<String> findFirst(CharSequence text) {
+        return findFirst(text, text.toString().toCharArray());
+    }
+
+    /**
+     * Same as {@link #findFirst(CharSequence)}, for a caller that already copied {@code text} to the start of
+     * {@code chars}, so the prefilter can scan it with vector lanes.
+     */
+    public DAT.Hit<String> findFirst(CharSequence text, char[] chars) {
+        List<DAT.Hit<String>> first = new ArrayList<>(1);
+        findAll(text, chars, (begin, end, word) -> !first.add(new DAT.Hit<>(begin, end, word)));
+        return first.isEmpty() ? null : first.getFirst();
+    }
+
+    /**
+     * Reports every hit in order of where it ends, the same way {@link #findFirst(CharSequence, char[])}
+     * finds the first one, until {@code onHit} returns false.
+     */
+    public void findAll(CharSequence text, char[] chars, DAT.IHitCancellable<String> onHit) {
+        int from = prefilter.firstCandidate(chars, text.length());
+        if (from < 0) {
+            return;
+        }
+        Scan jamo = jamoTrie != null ? new Scan(jamoTrie, ringMask, false) : null;
+        Scan choseong = choseongTrie != null ? new Scan(choseongTrie, ringMask, true) : null;
+
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (HangulJamo.isSeparator(c)) {
+                continue;
+            }
+            boolean more = true;
+            if (HangulJamo.isSyllable(c)) {
+                char jong = HangulJamo.jongseong(c);
+                if (jamo != null) {
+                    more = report(jamo.feed(HangulJamo.choseong(c), i, START), onHit)
+                            && report(jamo.feed(HangulJamo.jungseong(c), i, jong == '\0' ? END : 0), onHit)
+                            && (jong == '\0' || report(jamo.feed(jong, i, END), onHit));
+                }
+                if (more && choseong != null) {
+                    more = report(choseong.feed(HangulJamo.choseong(c), i, START | END), onHit);
+                }
+            } else {
+                // Typed jamo and everything else stand on their own
+                if (jamo != null) {
+                    more = report(jamo.feed(c, i, START | END), onHit);
+                }
+                if (more && choseong != null) {
+                    more = report(choseong.feed(c, i, START | END | (HangulJamo.isConsonant(c) ? TYPED : 0)), onHit);
+                }
+            }
+            if (!more) {
+                return;
+            }
+        }
+    }
+
+    // Whether to go on
+    private static boolean report(DAT.Hit<String> hit, DAT.IHitCancellable<String> onHit) {
+        return hit == null || onHit.hit(hit.begin(), hit.end(), hit.value());
+    }
+
+    /**
+     * One automaton being fed the normalized stream, with the original offset and flags of the last few units.
+     */
+    private static final class Scan {
+        private final DAT<String> trie;
+        private final int mask;
+        private final boolean requireTyped;
+        private final int[] origins;
+        private final byte[] flags;
+        private int state;
+        private int count;
+
+        Scan(DAT<String> trie, int mask, boolean requireTyped) {
+            this.trie = trie;
+            this.mask = mask;
+            this.requireTyped = requireTyped;
+            this.origins = new int[mask + 1];
+            this.flags = new byte[mask + 1];
+        }
+
+        DAT.Hit<String> feed(char unit, int origin, int unitFlags) {
+            int slot = count++ & mask;
+            origins[slot] = origin;
+            flags[slot] = (byte) unitFlags;
+            state = trie.step(state, unit);
+            if ((unitFlags & END) == 0) {
+                return null;
+            }
+            for (int output = trie.firstOutput(state); output != -1; output = trie.nextOutput(output)) {
+                int key = trie.outputKeyIndex(output);
+                int first = count - trie.keyLength(key);
+                if ((flags[first & mask] & START) != 0 && (!requireTyped || typedSince(first))) {
+                    return new DAT.Hit<>(origins[first & mask], origin + 1, trie.get(key));
+                }
+            }
+            return null;
+        }
+
+        private boolean typedSince(int first) {
+            for (int i = first; i < count; i++) {
+                if ((flags[i & mask] & TYPED) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.DAT;
+import csw.youtube.chat.profanity.dto.ModerationBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes profanity hits to moderators subscribed to {@code /live/moderation/{videoId}}.
+ * <p>
+ * Hits come from the scan that masks each message on ingest, through {@link ProfanityLogService}, and are
+ * collected per video for
+ * {@code profanity.moderation.window-ms}, one entry per user, so a user repeating the same word shows up
+ * once with a count instead of flooding the feed. A window keeps at most
+ * {@code profanity.moderation.max-users-per-window} users; hits from further users are only counted, so
+ * a raid costs a fixed amount of memory per video until the next flush.
+ */
+@Slf4j
+@Service
+public class ModerationFeedService {
+    public static final String DESTINATION_PREFIX = "/live/moderation/";
+    // Distinct words kept per user and window
+    private static final int MAX_WORDS = 5;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int maxUsersPerWindow;
+
+    // Open windows; each is only touched inside compute() or after being removed, so never concurrently
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private final Counter publishedCounter;
+    private final Counter droppedCounter;
+    private final Counter batchCounter;
+
+    public ModerationFeedService(
+            SimpMessagingTemplate messagingTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${profanity.moderation.max-users-per-window:100}") int maxUsersPerWindow) {
+        this.messagingTemplate = messagingTemplate;
+        this.maxUsersPerWindow = maxUsersPerWindow;
+
+        publishedCounter = Counter.builder("profanity.moderation.hits").register(meterRegistry);
+        droppedCounter = Counter.builder("profanity.moderation.dropped").register(meterRegistry);
+        batchCounter = Counter.builder("profanity.moderation.batches").register(meterRegistry);
+    }
+
+    /**
+     * Adds a hit to the video's current window.
+     *
+     * @param hit the match found in {@code message}
+     */
+    public void publish(String videoId, String username, String message, DAT.Hit<String> hit, long timestamp) {
+        windows.compute(videoId, (id, window) -> {
+            if (window == null) {
+                window = new Window(timestamp);
+            }
+            if (window.add(username, message, hit, timestamp, maxUsersPerWindow)) {
+                publishedCounter.increment();
+            } else {
+                droppedCounter.increment();
+            }
+            return window;
+        });
+    }
+
+    /**
+     * Closes every open window and sends it to the video's moderators.
+     */
+    @Scheduled(fixedDelayString = "${profanity.moderation.window-ms:250}")
+    public void flush() {
+        for (String videoId : windows.keySet()) {
+            Window window = windows.remove(videoId);
+            if (window == null) {
+                continue;
+            }
+            try {
+                messagingTemplate.convertAndSend(DESTINATION_PREFIX + videoId, window.toBatch(videoId));
+                batchCounter.increment();
+            } catch (MessagingException e) {
+                log.warn("Failed to send moderation batch for video {}: {}", videoId, e.getMessage());
+            }
+        }
+    }
+
+    int getOpenWindowCount() {
+        return windows.size();
+    }
+
+    private static final class Window {
+        private final long start;
+        private long end;
+        private final Map<String, UserEntry> users = new LinkedHashMap<>();
+        private int dropped;
+
+        Window(long start) {
+            this.start = start;
+            this.end = start;
+        }
+
+        // false if the hit was dropped
+        boolean add(String username, String message, DAT.Hit<String> hit, long timestamp, int maxUsers) {
+            UserEntry entry = users.get(username);
+            if (entry == null) {
+                if (users.size() >= maxUsers) {
+                    dropped++;
+                    return false;
+                }
+                entry = new UserEntry();
+                users.put(username, entry);
+            }
+            entry.hits++;
+            if (entry.words.size() < MAX_WORDS && !entry.words.contains(hit.value())) {
+                entry.words.add(hit.value());
+            }
+            entry.message = message;
+            entry.begin = hit.begin();
+            entry.end = hit.end();
+            entry.lastHit = timestamp;
+            end = Math.max(end, timestamp);
+            return true;
+        }
+
+        ModerationBatch toBatch(String videoId) {
+            List<ModerationBatch.UserHits> hits = new ArrayList<>(users.size());
+            users.forEach((username, entry) -> hits.add(new ModerationBatch.UserHits(username, entry.hits,
+                    List.copyOf(entry.words), entry.message, entry.begin, entry.end, entry.lastHit)));
+            return new ModerationBatch(videoId, start, end, hits, dropped);
+        }
+    }
+
+    private static final class UserEntry {
+        private int hits;
+        private final List<String> words = new ArrayList<>(2);
+        private String message;
+        private int begin;
+        private int end;
+        private long lastHit;
+    }
+}
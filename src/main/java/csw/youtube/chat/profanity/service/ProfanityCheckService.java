@@ -1,65 +1,666 @@
 package csw.youtube.chat.profanity.service;
 
+import com.github.pemistahl.lingua.api.Language;
 import csw.youtube.chat.common.util.DAT;
+import csw.youtube.chat.common.util.FirstCharFilter;
+import csw.youtube.chat.common.util.PrivateFiles;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import lombok.Getter;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.TreeMap;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
 
+/**
+ * Profanity matching against the bad word dictionary.
+ * <p>
+ * The dictionary is {@code badwords.txt} on the classpath, or the file at {@code profanity.dictionary-path}.
+ * A file dictionary is watched (unless {@code profanity.dictionary-watch} is off) and reloaded when it
+ * changes; {@link #reload()} does the same on demand. Reloads build the new trie on a background thread
+ * and publish it with a single volatile write, so matching never waits and never sees a half-built trie.
+ * A dictionary that fails to load leaves the current one in place.
+ * <p>
+ * Text that the exact trie doesn't match also goes through a {@link JamoMatcher} (unless
+ * {@code profanity.jamo.enabled} is off), which catches spaced out, jamo and initial consonant spellings.
+ * Videos switched to {@link ScanPolicy#FUZZY} (see {@link ScanPolicyStore}) are also checked for misspellings
+ * with a {@link FuzzyMatcher}.
+ * <p>
+ * A {@code [LANGUAGE]} line (a Lingua language name, e.g. {@code [KOREAN]}) starts a section of words for
+ * that language; words before the first section apply to every language. Each language gets its own, smaller
+ * automata (its section plus the shared words), picked by the language detected for the message, so a
+ * Korean word can't fire inside an English message. Text of unknown language or in more than one script is
+ * checked against all the words.
+ * <p>
+ * {@link #newScanner()} checks a message and rewrites every bad word it finds to asterisks in one go, for
+ * the ingest path: the masked copy goes to viewers and the hit to the log (masking is skipped when
+ * {@code profanity.mask.enabled} is off).
+ */
 @Slf4j
 @Service
 public class ProfanityCheckService {
 
     private static final String BAD_WORDS_FILE = "/badwords.txt";
-    private DAT<String> trie;
+    private static final Pattern SECTION = Pattern.compile("\\[([A-Za-z_]+)]");
+    // Editors save in bursts (truncate, write, rename); wait for the file to settle
+    private static final Duration RELOAD_DEBOUNCE = Duration.ofMillis(500);
+    private static final char MASK_CHAR = '*';
 
-    @Getter
-    private List<String> badWords;
+    /**
+     * Summary of the dictionary currently in use.
+     */
+    public record DictionaryInfo(int words, int alphabetSize, int arraySize, boolean mapped, long checksum,
+                                 Set<Language> languages, Instant loadedAt, long loadMillis) {
+    }
+
+    // The automata for one set of words; prefilter and jamoMatcher are null when disabled. The fuzzy matcher
+    // indexes the children of every state, which reads the whole trie (mapped image or not), so it's only
+    // built the first time a FUZZY video needs it.
+    private final class Partition {
+        private final DAT<String> trie;
+        private final FirstCharFilter prefilter;
+        private final JamoMatcher jamoMatcher;
+        private final long checksum;
+        private volatile FuzzyMatcher fuzzyMatcher;
+
+        Partition(DAT<String> trie, FirstCharFilter prefilter, JamoMatcher jamoMatcher, long checksum) {
+            this.trie = trie;
+            this.prefilter = prefilter;
+            this.jamoMatcher = jamoMatcher;
+            this.checksum = checksum;
+        }
+
+        DAT<String> trie() {
+            return trie;
+        }
+
+        FirstCharFilter prefilter() {
+            return prefilter;
+        }
+
+        JamoMatcher jamoMatcher() {
+            return jamoMatcher;
+        }
+
+        long checksum() {
+            return checksum;
+        }
+
+        FuzzyMatcher fuzzyMatcher() {
+            FuzzyMatcher matcher = fuzzyMatcher;
+            if (matcher == null) {
+                synchronized (this) {
+                    matcher = fuzzyMatcher;
+                    if (matcher == null) {
+                        matcher = new FuzzyMatcher(trie, fuzzyMaxDistance, fuzzyMinWordLength, fuzzyPrefixLength);
+                        fuzzyMatcher = matcher;
+                    }
+                }
+            }
+            return matcher;
+        }
+    }
+
+    // Everything derived from one version of the word list, swapped as a unit. shared is the union when the
+    // list has no sections, and null when every word is in a section.
+    private record Dictionary(List<String> words, Partition union, Partition shared,
+                              Map<Language, Partition> languages, DictionaryInfo info) {
+    }
+
+    // The word list as read: the words before any section, and each section's words
+    private record WordList(List<String> shared, Map<Language, List<String>> sections) {
+        List<String> all() {
+            Set<String> all = new LinkedHashSet<>(shared);
+            sections.values().forEach(all::addAll);
+            return List.copyOf(all);
+        }
+    }
+
+    private volatile Dictionary dictionary;
+    // findProfanity's scanners, so each thread reuses its buffers
+    private final ThreadLocal<MessageScanner> detectors = ThreadLocal.withInitial(MessageScanner::new);
+
+    // Prebuilt trie image, rewritten whenever the word list changes; null disables images
+    private final Path imagePath;
+    // Dictionary file; null means the classpath resource
+    private final Path dictionaryPath;
+    private final boolean watchDictionary;
+    private final boolean prefilterEnabled;
+    private final boolean jamoEnabled;
+    private final int fuzzyMaxDistance;
+    private final int fuzzyMinWordLength;
+    private final int fuzzyPrefixLength;
+    private final boolean maskEnabled;
+
+    private final ScanPolicyStore scanPolicies;
+
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("profanity-reload").daemon().factory());
+    private ScheduledFuture<?> scheduledReload;
+    private WatchService watchService;
+
+    private final Timer loadTimer;
+    private final Counter reloadSuccessCounter;
+    private final Counter reloadFailureCounter;
+    private final Counter maskedCounter;
+
+    public ProfanityCheckService(
+            @Value("${profanity.trie.image-path:${user.home}/.ytchatx/badwords.dat}") String imagePath,
+            @Value("${profanity.dictionary-path:}") String dictionaryPath,
+            @Value("${profanity.dictionary-watch:true}") boolean watchDictionary,
+            @Value("${profanity.prefilter.enabled:true}") boolean prefilterEnabled,
+            @Value("${profanity.jamo.enabled:true}") boolean jamoEnabled,
+            @Value("${profanity.fuzzy.max-distance:1}") int fuzzyMaxDistance,
+            @Value("${profanity.fuzzy.min-word-length:3}") int fuzzyMinWordLength,
+            @Value("${profanity.fuzzy.prefix-length:1}") int fuzzyPrefixLength,
+            @Value("${profanity.mask.enabled:true}") boolean maskEnabled,
+            ScanPolicyStore scanPolicies,
+            MeterRegistry meterRegistry) {
+        this.imagePath = imagePath.isBlank() ? null : Path.of(imagePath);
+        this.dictionaryPath = dictionaryPath.isBlank() ? null : Path.of(dictionaryPath).toAbsolutePath();
+        this.watchDictionary = watchDictionary;
+        this.prefilterEnabled = prefilterEnabled;
+        this.jamoEnabled = jamoEnabled;
+        this.fuzzyMaxDistance = fuzzyMaxDistance;
+        this.fuzzyMinWordLength = fuzzyMinWordLength;
+        this.fuzzyPrefixLength = fuzzyPrefixLength;
+        this.maskEnabled = maskEnabled;
+        this.scanPolicies = scanPolicies;
+
+        loadTimer = Timer.builder("profanity.dictionary.load")
+                .description("Time to read the word list and build or map its trie")
+                .register(meterRegistry);
+        reloadSuccessCounter = Counter.builder("profanity.dictionary.reloads").tag("result", "success")
+                .register(meterRegistry);
+        reloadFailureCounter = Counter.builder("profanity.dictionary.reloads").tag("result", "failure")
+                .register(meterRegistry);
+        maskedCounter = Counter.builder("profanity.mask.masked")
+                .description("Messages with at least one bad word masked")
+                .register(meterRegistry);
+        Gauge.builder("profanity.dictionary.words", this, s -> s.dictionary == null ? 0 : s.dictionary.info().words())
+                .register(meterRegistry);
+        Gauge.builder("profanity.dictionary.array.size", this,
+                        s -> s.dictionary == null ? 0 : s.dictionary.info().arraySize())
+                .register(meterRegistry);
+    }
 
     @PostConstruct
     public void init() throws IOException {
         log.info("Initializing Profanity Service...");
-        this.badWords = loadBadWords();
-        this.trie = buildTrie(this.badWords);
+        this.dictionary = loadDictionary();
+        if (prefilterEnabled && !FirstCharFilter.isVectorized()) {
+            log.info("jdk.incubator.vector isn't available; the profanity prefilter uses its scalar scan. " +
+                    "Start the JVM with --add-modules=jdk.incubator.vector to vectorize it.");
+        }
         log.info("Profanity Service initialized successfully.");
-        assert (trie != null) : "Trie should not be null.";
+        if (dictionaryPath != null && watchDictionary) {
+            startWatching();
+        }
     }
 
-    private List<String> loadBadWords() throws IOException {
-        log.info("Loading bad words from file: {}", BAD_WORDS_FILE);
-        ClassPathResource resource = new ClassPathResource(BAD_WORDS_FILE);
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                Objects.requireNonNull(resource.getInputStream()), StandardCharsets.UTF_8))) {
+    @PreDestroy
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Error closing dictionary watcher: {}", e.getMessage());
+            }
+        }
+    }
+
+    public List<String> getBadWords() {
+        return dictionary.words();
+    }
+
+    public DictionaryInfo getDictionaryInfo() {
+        return dictionary.info();
+    }
+
+    /**
+     * Reloads the dictionary in the background; the future completes once the new trie is live, or
+     * exceptionally if it couldn't be loaded (the current one stays in use).
+     */
+    public CompletableFuture<DictionaryInfo> reload() {
+        CompletableFuture<DictionaryInfo> result = new CompletableFuture<>();
+        reloadExecutor.execute(() -> {
+            try {
+                result.complete(reloadNow());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public ScanPolicy getScanPolicy(String videoId) {
+        return scanPolicies.get(videoId);
+    }
+
+    public void setScanPolicy(String videoId, ScanPolicy policy) {
+        scanPolicies.set(videoId, policy);
+        log.info("Profanity scan policy for video {} set to {}.", videoId, policy);
+    }
+
+    public boolean containsProfanity(String text) {
+        return findProfanity(text) != null;
+    }
+
+    /**
+     * Checks a chat message of {@code videoId} with that video's {@link ScanPolicy}.
+     *
+     * @param language the language detected for the message, or null if it wasn't detected
+     */
+    public boolean containsProfanity(String videoId, String text, Language language) {
+        return findProfanity(videoId, text, language) != null;
+    }
+
+    /**
+     * Finds the first bad word of a chat message of {@code videoId}, with that video's {@link ScanPolicy}.
+     *
+     * @param language the language detected for the message, or null if it wasn't detected
+     */
+    public DAT.Hit<String> findProfanity(String videoId, String text, Language language) {
+        return findProfanity(text, language, getScanPolicy(videoId));
+    }
+
+    public DAT.Hit<String> findProfanity(String text) {
+        return findProfanity(text, null, ScanPolicy.EXACT);
+    }
 
-            return reader.lines()
-                    .filter(word -> !word.trim().isEmpty()) // added trim
-                    .distinct()
-                    .collect(Collectors.toList());
+    /**
+     * @param language the language detected for the text, or null to check against every language
+     * @return the first bad word in {@code text}, with its offsets in {@code text}, or null if there is none
+     */
+    public DAT.Hit<String> findProfanity(String text, Language language, ScanPolicy policy) {
+        return detectors.get().scan(text, language, policy, false).hit();
+    }
+
+    /**
+     * A scanner with its own buffers, for one thread to check and mask a batch of messages.
+     */
+    public MessageScanner newScanner() {
+        return new MessageScanner();
+    }
+
+    /**
+     * What a {@link MessageScanner} found in one message.
+     *
+     * @param masked the message with every bad word found rewritten to {@code *}, or the message itself if
+     *               nothing was masked
+     * @param hit    the bad word {@link #findProfanity(String, Language, ScanPolicy)} reports, or null
+     */
+    public record ScanResult(String masked, DAT.Hit<String> hit) {
+    }
+
+    /**
+     * Checks a message and masks what it finds in the same pass: the exact trie masks its matches while
+     * finding them, and every jamo and (for {@link ScanPolicy#FUZZY} videos) fuzzy hit is masked as well,
+     * so viewers never see a spelling that detection reports. The message is copied into a buffer reused
+     * from message to message, which the prefilters scan with vector lanes. Not thread-safe.
+     */
+    public final class MessageScanner {
+        private char[] chars = new char[256];
+        private char[] out = new char[256];
+        // The message being scanned
+        private int length;
+        private boolean masking;
+        private boolean copied;
+        private boolean masked;
+        private DAT.Hit<String> hit;
+
+        private MessageScanner() {
         }
+
+        /**
+         * Checks a chat message of {@code videoId} with that video's {@link ScanPolicy}, masking it unless
+         * {@code profanity.mask.enabled} is off.
+         *
+         * @param language the language detected for the message, or null if it wasn't detected
+         */
+        public ScanResult scan(String videoId, String text, Language language) {
+            return scan(text, language, getScanPolicy(videoId), maskEnabled);
+        }
+
+        private ScanResult scan(String text, Language language, ScanPolicy policy, boolean mask) {
+            Partition partition = text == null || text.isEmpty() ? null : partitionFor(dictionary, text, language);
+            if (partition == null) {
+                return new ScanResult(text, null);
+            }
+            length = text.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+                out = new char[chars.length];
+            }
+            text.getChars(0, length, chars, 0);
+            masking = mask;
+            copied = false;
+            masked = false;
+            hit = null;
+
+            // Most messages have no character that starts a bad word and never reach the trie
+            int from = partition.prefilter() == null ? 0 : partition.prefilter().firstCandidate(chars, length);
+            if (from >= 0 && masking) {
+                masked = partition.trie().mask(text, from, out, MASK_CHAR, this::exactHit) > 0;
+                copied = true;
+            } else if (from >= 0) {
+                hit = partition.trie().findFirst(text, from);
+            }
+            // Without masking, only a message the trie passed needs the other matchers
+            if (partition.jamoMatcher() != null && (masking || hit == null)) {
+                partition.jamoMatcher().findAll(text, chars, this::otherHit);
+            }
+            if (policy == ScanPolicy.FUZZY && (masking || hit == null)) {
+                partition.fuzzyMatcher().findAll(text, this::otherHit);
+            }
+
+            if (!masked) {
+                return new ScanResult(text, hit);
+            }
+            maskedCounter.increment();
+            return new ScanResult(new String(out, 0, length), hit);
+        }
+
+        private void exactHit(int begin, int end, String word) {
+            if (hit == null) {
+                hit = new DAT.Hit<>(begin, end, word);
+            }
+        }
+
+        // Whether to look for more
+        private boolean otherHit(int begin, int end, String word) {
+            if (hit == null) {
+                hit = new DAT.Hit<>(begin, end, word);
+            }
+            if (!masking) {
+                return false;
+            }
+            if (!copied) {
+                System.arraycopy(chars, 0, out, 0, length);
+                copied = true;
+            }
+            Arrays.fill(out, begin, end, MASK_CHAR);
+            masked = true;
+            return true;
+        }
+    }
+
+    private static Partition partitionFor(Dictionary current, String text, Language language) {
+        if (current.languages().isEmpty() || language == null || language == Language.UNKNOWN
+                || isMixedScript(text)) {
+            return current.union();
+        }
+        Partition partition = current.languages().get(language);
+        return partition != null ? partition : current.shared();
+    }
+
+    /**
+     * Whether the letters of {@code text} come from more than one script, e.g. Hangul and Latin. Kanji and
+     * kana count as one script, since Japanese mixes them.
+     */
+    static boolean isMixedScript(String text) {
+        Character.UnicodeScript seen = null;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (!Character.isLetter(codePoint)) {
+                continue;
+            }
+            Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+            if (script == Character.UnicodeScript.HIRAGANA || script == Character.UnicodeScript.KATAKANA) {
+                script = Character.UnicodeScript.HAN;
+            }
+            if (seen == null) {
+                seen = script;
+            } else if (script != seen) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private DAT<String> buildTrie(List<String> words) {
-        log.info("Building Trie with {} bad words.", words.size());
-        Map<String, String> badWordsMap = words.stream()
+    private DictionaryInfo reloadNow() throws IOException {
+        try {
+            Dictionary loaded = loadDictionary();
+            if (loaded.info().checksum() == dictionary.info().checksum()) {
+                log.info("Bad word list unchanged; keeping the current trie.");
+            } else {
+                dictionary = loaded;
+                log.info("Reloaded bad word list: {} words.", loaded.info().words());
+            }
+            reloadSuccessCounter.increment();
+            return dictionary.info();
+        } catch (IOException | RuntimeException e) {
+            reloadFailureCounter.increment();
+            log.error("Reloading the bad word list failed; keeping the current one.", e);
+            throw e;
+        }
+    }
+
+    private Dictionary loadDictionary() throws IOException {
+        long start = System.nanoTime();
+        WordList wordList = loadBadWords();
+        List<String> words = wordList.all();
+        if (words.isEmpty()) {
+            throw new IllegalStateException("The bad word list is empty.");
+        }
+
+        Partition union = buildPartition(words, imagePath);
+        Partition shared = wordList.sections().isEmpty() ? union
+                : wordList.shared().isEmpty() ? null : buildPartition(wordList.shared(), siblingImage(imagePath, "shared"));
+        Map<Language, Partition> languages = new EnumMap<>(Language.class);
+        long checksum = union.checksum();
+        for (Map.Entry<Language, List<String>> section : wordList.sections().entrySet()) {
+            Set<String> sectionWords = new LinkedHashSet<>(wordList.shared());
+            sectionWords.addAll(section.getValue());
+            String name = section.getKey().name().toLowerCase(Locale.ROOT);
+            Partition partition = buildPartition(List.copyOf(sectionWords), siblingImage(imagePath, name));
+            languages.put(section.getKey(), partition);
+            // The same words split into different sections is a different dictionary
+            checksum = 31 * checksum + name.hashCode() * 17L + partition.checksum();
+            log.info("{} dictionary: {} words.", section.getKey(), sectionWords.size());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        loadTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        DAT<String> trie = union.trie();
+        DictionaryInfo info = new DictionaryInfo(words.size(), trie.getAlphabetSize(), trie.getArraySize(),
+                trie.isMapped(), checksum, Set.copyOf(languages.keySet()), Instant.now(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return new Dictionary(words, union, shared, Collections.unmodifiableMap(languages), info);
+    }
+
+    private Partition buildPartition(List<String> words, Path image) {
+        Map<String, String> keys = words.stream()
                 .collect(Collectors.toMap(word -> word, word -> word, (oldValue, newValue) -> oldValue, TreeMap::new));
+        long checksum = checksum(keys);
+        DAT<String> trie = loadOrBuildTrie(keys, checksum, image);
+        FirstCharFilter prefilter = prefilterEnabled ? new FirstCharFilter(trie.getFirstChars()) : null;
+        JamoMatcher jamoMatcher = jamoEnabled ? loadJamoMatcher(words, image) : null;
+        return new Partition(trie, prefilter, jamoMatcher, checksum);
+    }
+
+    private WordList loadBadWords() throws IOException {
+        log.info("Loading bad words from file: {}", dictionaryPath != null ? dictionaryPath : BAD_WORDS_FILE);
+        InputStream input = dictionaryPath != null
+                ? Files.newInputStream(dictionaryPath)
+                : new ClassPathResource(BAD_WORDS_FILE).getInputStream();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(input), StandardCharsets.UTF_8))) {
+
+            Set<String> shared = new LinkedHashSet<>();
+            Map<Language, Set<String>> sections = new EnumMap<>(Language.class);
+            Set<String> current = shared;
+            for (String word : reader.lines().toList()) {
+                if (word.trim().isEmpty()) {
+                    continue;
+                }
+                Matcher section = SECTION.matcher(word.trim());
+                if (section.matches()) {
+                    current = sections.computeIfAbsent(parseLanguage(section.group(1)), language -> new LinkedHashSet<>());
+                } else {
+                    current.add(word);
+                }
+            }
+
+            Map<Language, List<String>> sectionLists = new EnumMap<>(Language.class);
+            sections.forEach((language, sectionWords) -> sectionLists.put(language, List.copyOf(sectionWords)));
+            return new WordList(List.copyOf(shared), sectionLists);
+        }
+    }
+
+    private static Language parseLanguage(String name) {
+        try {
+            return Language.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown language section in the bad word list: [" + name + "]");
+        }
+    }
+
+    private JamoMatcher loadJamoMatcher(List<String> words, Path image) {
+        Map<String, String> jamoKeys = JamoMatcher.jamoKeys(words);
+        Map<String, String> choseongKeys = JamoMatcher.choseongKeys(words);
+        return new JamoMatcher(
+                jamoKeys.isEmpty() ? null : loadOrBuildTrie(jamoKeys, checksum(jamoKeys), siblingImage(image, "jamo")),
+                choseongKeys.isEmpty() ? null
+                        : loadOrBuildTrie(choseongKeys, checksum(choseongKeys), siblingImage(image, "choseong")));
+    }
+
+    // badwords.dat -> badwords.jamo.dat
+    private static Path siblingImage(Path image, String kind) {
+        if (image == null) {
+            return null;
+        }
+        String name = image.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return image.resolveSibling(dot < 0 ? name + "." + kind : name.substring(0, dot) + "." + kind + name.substring(dot));
+    }
+
+    /**
+     * Maps the trie image if it was built from the same keys, otherwise builds the trie and
+     * writes a fresh image for the next boot (and for other instances on this host). An image in a
+     * location other users could write to is neither mapped nor written (see {@link PrivateFiles}).
+     */
+    private DAT<String> loadOrBuildTrie(Map<String, String> keys, long checksum, Path image) {
+        if (image != null && !isPrivate(image)) {
+            image = null;
+        }
+        if (image != null) {
+            try {
+                Optional<DAT<String>> mapped = DAT.mapImage(image, checksum);
+                if (mapped.isPresent()) {
+                    log.info("Mapped trie image {} ({} keys).", image, mapped.get().size());
+                    return mapped.get();
+                }
+                log.info("Trie image {} is missing or outdated; rebuilding.", image);
+            } catch (IOException e) {
+                log.warn("Couldn't map trie image {}: {}", image, e.getMessage());
+            }
+        }
+
+        DAT<String> built = buildTrie(keys);
+        if (image != null) {
+            try {
+                built.writeImage(image, checksum);
+                log.info("Wrote trie image {}.", image);
+            } catch (IOException e) {
+                log.warn("Couldn't write trie image {}: {}", image, e.getMessage());
+            }
+        }
+        return built;
+    }
+
+    private static boolean isPrivate(Path image) {
+        try {
+            PrivateFiles.createDirectory(image.toAbsolutePath().getParent());
+            if (Files.exists(image, LinkOption.NOFOLLOW_LINKS)) {
+                PrivateFiles.checkPrivate(image);
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("Not using trie image {}: {}", image, e.getMessage());
+            return false;
+        }
+    }
+
+    private static long checksum(Map<String, String> keys) {
+        CRC32C crc = new CRC32C();
+        keys.forEach((key, value) -> {
+            crc.update(key.getBytes(StandardCharsets.UTF_8));
+            crc.update('\t');
+            crc.update(value.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        });
+        return (long) keys.size() << 32 | crc.getValue();
+    }
+
+    private DAT<String> buildTrie(Map<String, String> keys) {
+        log.info("Building Trie with {} keys.", keys.size());
         DAT<String> newTrie = new DAT<>();
-        newTrie.build(badWordsMap);
+        newTrie.build(keys);
+        log.info("Trie built: alphabet of {} characters, {} array slots.", newTrie.getAlphabetSize(), newTrie.getArraySize());
         return newTrie;
     }
 
-    public boolean containsProfanity(String text) {
-        DAT.Hit<String> hit = trie.findFirst(text);
-        return hit != null && hit.begin() >= 0 && hit.end() >= 0;
+    // File watching
+
+    private void startWatching() throws IOException {
+        Path directory = dictionaryPath.getParent();
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread.ofVirtual().name("profanity-dictionary-watcher").start(this::watchLoop);
+        log.info("Watching {} for changes.", dictionaryPath);
+    }
+
+    private void watchLoop() {
+        Path fileName = dictionaryPath.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = key.pollEvents().stream()
+                        .anyMatch(event -> fileName.equals(event.context()));
+                if (changed) {
+                    scheduleReload();
+                }
+                if (!key.reset()) {
+                    log.warn("Dictionary directory {} is no longer watchable.", dictionaryPath.getParent());
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        if (scheduledReload != null) {
+            scheduledReload.cancel(false);
+        }
+        scheduledReload = reloadExecutor.schedule(() -> {
+            try {
+                reloadNow();
+            } catch (Exception e) {
+                // counted and logged by reloadNow
+            }
+        }, RELOAD_DEBOUNCE.toMillis(), TimeUnit.MILLISECONDS);
     }
 }
@@ -1,32 +1,146 @@
 package csw.youtube.chat.profanity.service;
 
+import csw.youtube.chat.common.util.DAT;
 import csw.youtube.chat.profanity.entity.ProfanityLog;
-import csw.youtube.chat.profanity.repository.ProfanityLogRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Buffers profanity hits and writes them in JDBC batches. {@link ProfanityLog} ids come from an identity
+ * column, which rules out Hibernate insert batching, so rows go through a plain multi-row batch that lets
+ * the database assign ids. A flush holds one connection for the whole batch instead of one per hit.
+ * <p>
+ * The buffer is bounded: when it is full, callers wait up to {@code profanity.log.offer-timeout-ms} for
+ * the flusher to catch up, then the hit is dropped and counted. Every hit is also counted in
+ * {@link ProfanityRollupService}, whether or not its log row makes it, and pushed to the video's moderators
+ * through {@link ModerationFeedService}.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class ProfanityLogService {
+    private static final String INSERT_SQL = "INSERT INTO profanity_log (video_id, username, message, timestamp) VALUES (?, ?, ?, ?)";
 
-    private final ProfanityLogRepository repository;
-    private final ProfanityCheckService profanityCheckService;
+    private final ProfanityRollupService profanityRollupService;
+    private final ModerationFeedService moderationFeedService;
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<ProfanityLog> buffer;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+
+    private final Counter bufferedCounter;
+    private final Counter writtenCounter;
+    private final Counter overflowCounter;
+    private final Counter flushFailedCounter;
+    private final Timer flushTimer;
+
+    public ProfanityLogService(
+            ProfanityRollupService profanityRollupService,
+            ModerationFeedService moderationFeedService,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${profanity.log.buffer-capacity:10000}") int bufferCapacity,
+            @Value("${profanity.log.batch-size:500}") int batchSize,
+            @Value("${profanity.log.offer-timeout-ms:50}") long offerTimeoutMs) {
+        this.profanityRollupService = profanityRollupService;
+        this.moderationFeedService = moderationFeedService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+
+        Gauge.builder("profanity.log.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+        bufferedCounter = Counter.builder("profanity.log.buffered").register(meterRegistry);
+        writtenCounter = Counter.builder("profanity.log.written").register(meterRegistry);
+        overflowCounter = Counter.builder("profanity.log.dropped").tag("reason", "overflow").register(meterRegistry);
+        flushFailedCounter = Counter.builder("profanity.log.dropped").tag("reason", "flush-failed").register(meterRegistry);
+        flushTimer = Timer.builder("profanity.log.flush").register(meterRegistry);
+    }
 
     /**
-     * Checks if the message contains profanity.
-     * If so, stores a log with the username, message, and current timestamp.
+     * Buffers a log with the video, username, original message, and current timestamp, counts the hit and
+     * sends it to the moderation feed. The hit comes from the {@link ProfanityCheckService.MessageScanner}
+     * that masked the message on ingest, so a message is only scanned once.
      */
     @Async("chatScraperExecutor")
-    public void logIfProfane(String username, String message) {
-        if (profanityCheckService.containsProfanity(message)) {
-            ProfanityLog logEntry = new ProfanityLog();
-            logEntry.setUsername(username);
-            logEntry.setMessage(message);
-            logEntry.setTimestamp(LocalDateTime.now());
-            repository.save(logEntry);
+    public void logHit(String videoId, String username, String message, DAT.Hit<String> hit) {
+        Instant now = Instant.now();
+        ProfanityLog logEntry = new ProfanityLog();
+        logEntry.setVideoId(videoId);
+        logEntry.setUsername(username);
+        logEntry.setMessage(message);
+        logEntry.setTimestamp(LocalDateTime.ofInstant(now, ZoneId.systemDefault()));
+        profanityRollupService.record(videoId, username, now);
+        moderationFeedService.publish(videoId, username, message, hit, now.toEpochMilli());
+        enqueue(logEntry);
+    }
+
+    /**
+     * Writes everything buffered so far, {@code profanity.log.batch-size} rows per batch.
+     */
+    @Scheduled(fixedDelayString = "${profanity.log.flush-interval-ms:500}")
+    public void flush() {
+        List<ProfanityLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    int getBufferedCount() {
+        return buffer.size();
+    }
+
+    private void enqueue(ProfanityLog logEntry) {
+        try {
+            if (buffer.offer(logEntry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                bufferedCounter.increment();
+            } else {
+                overflowCounter.increment();
+                log.warn("Profanity log buffer full ({} entries); dropping hit from {}", buffer.size(), logEntry.getUsername());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            overflowCounter.increment();
+        }
+    }
+
+    private void writeBatch(List<ProfanityLog> batch) {
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setString(1, entry.getVideoId());
+                ps.setString(2, entry.getUsername());
+                ps.setString(3, entry.getMessage());
+                ps.setTimestamp(4, Timestamp.valueOf(entry.getTimestamp()));
+            }));
+            writtenCounter.increment(batch.size());
+        } catch (DataAccessException e) {
+            flushFailedCounter.increment(batch.size());
+            log.error("Failed to write {} profanity log entries", batch.size(), e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.LongIntCounter;
+import csw.youtube.chat.profanity.dto.ProfanityRollup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Per video, per user and per minute profanity counts, kept in memory and added to the
+ * {@code profanity_rollup_*} tables every {@code profanity.rollup.flush-interval-ms}, so dashboards can
+ * answer "top offenders" or "hits over time" without scanning {@code profanity_log}.
+ * <p>
+ * Between flushes, video ids and usernames are numbered once and the counts live in {@link LongIntCounter}s
+ * keyed by packed ids. A flush swaps in an empty window and upserts the old one; if the write fails, the
+ * counts go back into the current window for the next attempt. That includes failing to begin or commit
+ * the transaction, as when the database is down.
+ */
+@Slf4j
+@Service
+public class ProfanityRollupService {
+    private static final String UPSERT_VIDEO_SQL = """
+            INSERT INTO profanity_rollup_video (video_id, hits, last_hit) VALUES (?, ?, ?)
+            ON CONFLICT (video_id) DO UPDATE SET hits = profanity_rollup_video.hits + EXCLUDED.hits,
+                last_hit = GREATEST(profanity_rollup_video.last_hit, EXCLUDED.last_hit)""";
+    private static final String UPSERT_USER_SQL = """
+            INSERT INTO profanity_rollup_user (video_id, username, hits, last_hit) VALUES (?, ?, ?, ?)
+            ON CONFLICT (video_id, username) DO UPDATE SET hits = profanity_rollup_user.hits + EXCLUDED.hits,
+                last_hit = GREATEST(profanity_rollup_user.last_hit, EXCLUDED.last_hit)""";
+    private static final String UPSERT_MINUTE_SQL = """
+            INSERT INTO profanity_rollup_minute (video_id, minute, hits) VALUES (?, ?, ?)
+            ON CONFLICT (video_id, minute) DO UPDATE SET hits = profanity_rollup_minute.hits + EXCLUDED.hits""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private Window window = new Window();
+
+    private final Counter flushFailedCounter;
+    private final Timer flushTimer;
+
+    public ProfanityRollupService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        flushFailedCounter = Counter.builder("profanity.rollup.flush.failures").register(meterRegistry);
+        flushTimer = Timer.builder("profanity.rollup.flush").register(meterRegistry);
+    }
+
+    /**
+     * Counts one profanity hit.
+     */
+    public synchronized void record(String videoId, String username, Instant at) {
+        window.record(videoId, username, at.getEpochSecond() / 60, at.toEpochMilli());
+    }
+
+    /**
+     * Adds the counts since the last flush to the rollup tables, in one transaction.
+     */
+    @Scheduled(fixedDelayString = "${profanity.rollup.flush-interval-ms:10000}")
+    public void flush() {
+        Window flushing;
+        synchronized (this) {
+            if (window.videoHits.isEmpty()) {
+                return;
+            }
+            flushing = window;
+            window = new Window();
+        }
+
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> write(flushing)));
+        } catch (DataAccessException | TransactionException e) {
+            flushFailedCounter.increment();
+            log.error("Failed to flush profanity rollups for {} videos; retrying with the next flush.",
+                    flushing.videoHits.size(), e);
+            synchronized (this) {
+                flushing.mergeInto(window);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Rollups of a video: its total, the hits of its last {@code minutes} minutes and its top offenders.
+     */
+    public ProfanityRollup getRollup(String videoId, int minutes, int topUsers) {
+        Long total = jdbcTemplate.query("SELECT hits FROM profanity_rollup_video WHERE video_id = ?",
+                rs -> rs.next() ? rs.getLong(1) : 0L, videoId);
+        Instant since = Instant.now().minus(Duration.ofMinutes(minutes));
+        List<ProfanityRollup.MinuteHits> perMinute = jdbcTemplate.query(
+                "SELECT minute, hits FROM profanity_rollup_minute WHERE video_id = ? AND minute >= ? ORDER BY minute",
+                (rs, i) -> new ProfanityRollup.MinuteHits(rs.getTimestamp(1).toInstant(), rs.getLong(2)),
+                videoId, Timestamp.from(since));
+        List<ProfanityRollup.UserHits> topOffenders = jdbcTemplate.query(
+                "SELECT username, hits, last_hit FROM profanity_rollup_user WHERE video_id = ? ORDER BY hits DESC LIMIT ?",
+                (rs, i) -> new ProfanityRollup.UserHits(rs.getString(1), rs.getLong(2), rs.getTimestamp(3).toInstant()),
+                videoId, topUsers);
+        return new ProfanityRollup(videoId, total == null ? 0 : total, perMinute, topOffenders);
+    }
+
+    synchronized int getPendingVideoCount() {
+        return window.videoHits.size();
+    }
+
+    private void write(Window flushing) {
+        List<Object[]> videos = new ArrayList<>(flushing.videoHits.size());
+        flushing.videoHits.forEach((video, hits) -> videos.add(new Object[]{
+                flushing.videoIds.get((int) video), hits, timestamp(flushing.videoLastHit.get(video))}));
+        List<Object[]> users = new ArrayList<>(flushing.userHits.size());
+        flushing.userHits.forEach((key, hits) -> users.add(new Object[]{
+                flushing.videoIds.get((int) (key >>> 32)), flushing.usernames.get((int) key), hits,
+                timestamp(flushing.userLastHit.get(key))}));
+        List<Object[]> minutes = new ArrayList<>(flushing.minuteHits.size());
+        flushing.minuteHits.forEach((key, hits) -> minutes.add(new Object[]{
+                flushing.videoIds.get((int) (key >>> 32)), Timestamp.from(Instant.ofEpochSecond((key & 0xFFFFFFFFL) * 60)),
+                hits}));
+
+        jdbcTemplate.batchUpdate(UPSERT_VIDEO_SQL, videos);
+        jdbcTemplate.batchUpdate(UPSERT_USER_SQL, users);
+        jdbcTemplate.batchUpdate(UPSERT_MINUTE_SQL, minutes);
+    }
+
+    // Last hit times are kept as seconds in the int counters
+    private static Timestamp timestamp(int epochSecond) {
+        return Timestamp.from(Instant.ofEpochSecond(Integer.toUnsignedLong(epochSecond)));
+    }
+
+    /**
+     * Counts since the last flush. Videos and users are numbered in order of appearance; keys pack
+     * {@code video << 32 | user} and {@code video << 32 | epoch minute}.
+     */
+    private static final class Window {
+        private final List<String> videoIds = new ArrayList<>();
+        private final Map<String, Integer> videoNumbers = new HashMap<>();
+        private final List<String> usernames = new ArrayList<>();
+        private final Map<String, Integer> userNumbers = new HashMap<>();
+
+        private final LongIntCounter videoHits = new LongIntCounter();
+        private final LongIntCounter userHits = new LongIntCounter(256);
+        private final LongIntCounter minuteHits = new LongIntCounter(64);
+        // Latest hit, in epoch seconds
+        private final LongIntCounter videoLastHit = new LongIntCounter();
+        private final LongIntCounter userLastHit = new LongIntCounter(256);
+
+        void record(String videoId, String username, long epochMinute, long epochMilli) {
+            long video = number(videoId, videoIds, videoNumbers);
+            long user = number(username, usernames, userNumbers);
+            int second = (int) (epochMilli / 1000);
+            videoHits.increment(video);
+            userHits.increment(video << 32 | user);
+            minuteHits.increment(video << 32 | epochMinute);
+            raiseTo(videoLastHit, video, second);
+            raiseTo(userLastHit, video << 32 | user, second);
+        }
+
+        void mergeInto(Window target) {
+            userHits.forEach((key, hits) -> {
+                long video = target.number(videoIds.get((int) (key >>> 32)), target.videoIds, target.videoNumbers);
+                long user = target.number(usernames.get((int) key), target.usernames, target.userNumbers);
+                target.userHits.add(video << 32 | user, hits);
+                raiseTo(target.userLastHit, video << 32 | user, userLastHit.get(key));
+            });
+            videoHits.forEach((key, hits) -> {
+                long video = target.number(videoIds.get((int) key), target.videoIds, target.videoNumbers);
+                target.videoHits.add(video, hits);
+                raiseTo(target.videoLastHit, video, videoLastHit.get(key));
+            });
+            minuteHits.forEach((key, hits) -> {
+                long video = target.number(videoIds.get((int) (key >>> 32)), target.videoIds, target.videoNumbers);
+                target.minuteHits.add(video << 32 | (key & 0xFFFFFFFFL), hits);
+            });
+        }
+
+        private int number(String name, List<String> names, Map<String, Integer> numbers) {
+            return numbers.computeIfAbsent(name, n -> {
+                names.add(n);
+                return names.size() - 1;
+            });
+        }
+
+        private static void raiseTo(LongIntCounter counter, long key, int value) {
+            int current = counter.get(key);
+            if (Integer.compareUnsigned(value, current) > 0) {
+                counter.add(key, value - current);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package csw.youtube.chat.profanity.service;
+
+/**
+ * How thoroughly a video's chat is checked for profanity.
+ */
+public enum ScanPolicy {
+    /**
+     * The dictionary words, plus their jamo and spaced out spellings.
+     */
+    EXACT,
+    /**
+     * Everything {@link #EXACT} finds, plus misspellings within {@code profanity.fuzzy.max-distance} edits
+     * (see {@link FuzzyMatcher}). Noticeably slower; meant for videos whose chat is known to dodge the filter.
+     */
+    FUZZY
+}
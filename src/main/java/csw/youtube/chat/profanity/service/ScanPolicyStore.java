@@ -0,0 +1,70 @@
+package csw.youtube.chat.profanity.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-video {@link ScanPolicy}s, shared by the cluster through the {@code profanity:scan-policies} hash.
+ * <p>
+ * Every chat message looks its video's policy up, so lookups read a local copy of the hash, refreshed every
+ * {@code profanity.scan-policy.refresh-ms}; other nodes pick up a change within that interval. Only videos
+ * with a policy other than {@link ScanPolicy#EXACT} are stored.
+ */
+@Slf4j
+@Service
+public class ScanPolicyStore {
+    private static final String POLICIES_KEY = "profanity:scan-policies";
+
+    private final StringRedisTemplate redisTemplate;
+    private volatile Map<String, ScanPolicy> policies = Map.of();
+
+    public ScanPolicyStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public ScanPolicy get(String videoId) {
+        return policies.getOrDefault(videoId, ScanPolicy.EXACT);
+    }
+
+    public synchronized void set(String videoId, ScanPolicy policy) {
+        if (policy == ScanPolicy.EXACT) {
+            redisTemplate.opsForHash().delete(POLICIES_KEY, videoId);
+        } else {
+            redisTemplate.opsForHash().put(POLICIES_KEY, videoId, policy.name());
+        }
+        // Visible on this node right away instead of after the next refresh
+        Map<String, ScanPolicy> updated = new HashMap<>(policies);
+        if (policy == ScanPolicy.EXACT) {
+            updated.remove(videoId);
+        } else {
+            updated.put(videoId, policy);
+        }
+        policies = Map.copyOf(updated);
+    }
+
+    @Scheduled(fixedDelayString = "${profanity.scan-policy.refresh-ms:5000}")
+    public synchronized void refresh() {
+        Map<Object, Object> entries;
+        try {
+            entries = redisTemplate.opsForHash().entries(POLICIES_KEY);
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh profanity scan policies, keeping the current ones: {}", e.getMessage());
+            return;
+        }
+        Map<String, ScanPolicy> loaded = new HashMap<>();
+        entries.forEach((videoId, policy) -> {
+            try {
+                loaded.put((String) videoId, ScanPolicy.valueOf((String) policy));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring unknown profanity scan policy {} for video {}", policy, videoId);
+            }
+        });
+        policies = Map.copyOf(loaded);
+    }
+}
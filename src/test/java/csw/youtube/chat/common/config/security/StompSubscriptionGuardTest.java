@@ -0,0 +1,60 @@
+package csw.youtube.chat.common.config.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StompSubscriptionGuardTest {
+
+    private final StompSubscriptionGuard guard = new StompSubscriptionGuard(new SecurityExpression());
+
+    private static Message<byte[]> subscribe(String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    // What the resource server puts on the handshake for a bearer token from OAuth2SuccessHandler
+    private static JwtAuthenticationToken jwtUser(String role) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "HS256")
+                .subject("someone")
+                .claim("userId", 1L)
+                .claim("roles", role)
+                .build();
+        return new JwtAuthenticationToken(jwt);
+    }
+
+    @Test
+    void managerWithJwtMaySubscribeToTheModerationFeed() {
+        Message<byte[]> message = subscribe("/live/moderation/video", jwtUser("MANAGER"));
+
+        assertSame(message, guard.preSend(message, null));
+    }
+
+    @Test
+    void regularUserWithJwtIsRejected() {
+        Message<byte[]> message = subscribe("/live/moderation/video", jwtUser("USER"));
+
+        assertThrows(AccessDeniedException.class, () -> guard.preSend(message, null));
+    }
+
+    @Test
+    void anonymousSubscriberIsRejectedFromModerationButNotFromChat() {
+        assertThrows(AccessDeniedException.class,
+                () -> guard.preSend(subscribe("/live/moderation/video", null), null));
+
+        Message<byte[]> chat = subscribe("/live/chat/video", null);
+        assertSame(chat, guard.preSend(chat, null));
+    }
+}
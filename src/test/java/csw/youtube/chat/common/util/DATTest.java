@@ -0,0 +1,189 @@
+package csw.youtube.chat.common.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static csw.youtube.chat.common.util.TestDictionaries.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DATTest {
+
+    @Test
+    void reportsOverlappingMatches() {
+        DAT<String> dat = build("he", "she", "his", "hers");
+
+        assertEquals(List.of(new DAT.Hit<>(1, 4, "she"), new DAT.Hit<>(2, 4, "he"), new DAT.Hit<>(2, 6, "hers")),
+                dat.parseText("ushers"));
+    }
+
+    @Test
+    void charactersOutsideTheAlphabetResetTheMatch() {
+        DAT<String> dat = build("시발", "병신", "발");
+
+        assertEquals(4, dat.getAlphabetSize());
+        assertEquals(new DAT.Hit<>(3, 5, "병신"), dat.findFirst("ㅋㅋ 병신아"));
+        assertNull(dat.findFirst("시!병"));
+        assertEquals(List.of(new DAT.Hit<>(0, 2, "시발"), new DAT.Hit<>(1, 2, "발")), dat.parseText("시발"));
+    }
+
+    @Test
+    void masksTheUnionOfOverlappingMatches() {
+        DAT<String> dat = build("he", "she", "his", "hers", "시발");
+        char[] out = new char[32];
+
+        assertEquals(2, dat.mask("ushers!", 0, out, '*'));
+        assertEquals("u*****!", new String(out, 0, 7));
+        assertEquals(1, dat.mask("아 시발 ㅋㅋ", 2, out, '*'));
+        assertEquals("아 ** ㅋㅋ", new String(out, 0, 7));
+        assertEquals(0, dat.mask("hallo", 0, out, '*'));
+        assertEquals("hallo", new String(out, 0, 5));
+    }
+
+    @Test
+    void maskAgreesWithParseText() {
+        Random random = new Random(17);
+        char[] out = new char[40];
+        for (int round = 0; round < 200; round++) {
+            String[] words = new String[1 + random.nextInt(10)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = randomWord(random, 1 + random.nextInt(4), 4);
+            }
+            DAT<String> dat = build(words);
+            String text = randomWord(random, 40, 5);
+
+            char[] expected = text.toCharArray();
+            dat.parseText(text).forEach(hit -> Arrays.fill(expected, hit.begin(), hit.end(), '#'));
+            dat.mask(text, 0, out, '#');
+            assertEquals(new String(expected), new String(out), () -> Arrays.toString(words) + " in " + text);
+        }
+    }
+
+    @Test
+    void arraysAreSizedByTheAlphabetNotTheCodeRange() {
+        DAT<String> dat = build("가", "힣", "a");
+
+        // Raw UTF-16 indexing would need slots past '힣' (0xD7A3)
+        assertTrue(dat.getArraySize() < 64, "array size " + dat.getArraySize());
+    }
+
+    @Test
+    void exactMatchOnlyFindsWholeKeys() {
+        DAT<String> dat = build("his", "hi", "병신");
+
+        assertEquals("his", dat.get("his"));
+        assertEquals("hi", dat.get("hi"));
+        assertNull(dat.get("h"));
+        assertNull(dat.get("병"));
+        assertNull(dat.get("hiss"));
+        assertTrue(dat.set("병신", "replaced"));
+        assertEquals("replaced", dat.get("병신"));
+    }
+
+    @Test
+    void matchesBruteForceSearchOnRandomDictionaries() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            Map<String, String> map = new HashMap<>();
+            int words = 1 + random.nextInt(40);
+            for (int i = 0; i < words; i++) {
+                String word = randomWord(random, 1 + random.nextInt(5), 4);
+                map.put(word, word);
+            }
+            DAT<String> dat = new DAT<>();
+            dat.build(map);
+            String text = randomWord(random, 60, 6);
+
+            Set<String> expected = new HashSet<>();
+            for (String word : map.keySet()) {
+                for (int i = text.indexOf(word); i >= 0; i = text.indexOf(word, i + 1)) {
+                    expected.add(i + ":" + word);
+                }
+            }
+            Set<String> actual = new HashSet<>();
+            dat.parseText(text).forEach(hit -> actual.add(hit.begin() + ":" + hit.value()));
+
+            assertEquals(expected, actual, () -> map.keySet() + " in " + text);
+            assertEquals(!expected.isEmpty(), dat.matches(text));
+        }
+    }
+
+    @Test
+    void mapsImageWrittenForTheSameDictionary(@TempDir Path dir) throws Exception {
+        DAT<String> dat = build("시발", "fuck", "he", "hers");
+        Path image = dir.resolve("badwords.dat");
+        dat.writeImage(image, 42);
+
+        DAT<String> mapped = DAT.mapImage(image, 42).orElseThrow();
+
+        assertTrue(mapped.isMapped());
+        assertEquals(new DAT.Hit<>(4, 6, "시발"), mapped.findFirst("ㅎㅇ 시시발"));
+        assertEquals("fuck", mapped.get("fuck"));
+        assertEquals(dat.parseText("ushers 시발"), mapped.parseText("ushers 시발"));
+        assertEquals(dat.getArraySize(), mapped.getArraySize());
+    }
+
+    @Test
+    void ignoresImageOfAnotherDictionary(@TempDir Path dir) throws Exception {
+        Path image = dir.resolve("badwords.dat");
+        build("시발").writeImage(image, 1);
+
+        assertTrue(DAT.mapImage(image, 2).isEmpty());
+        assertTrue(DAT.mapImage(dir.resolve("missing.dat"), 1).isEmpty());
+    }
+
+    /**
+     * Build time, array size and findFirst throughput for a 100k word Hangul dictionary.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkLargeHangulDictionary(TestReporter reporter) {
+        Random random = new Random(7);
+        Map<String, String> map = new TreeMap<>();
+        while (map.size() < 100_000) {
+            String word = randomHangul(random, 2 + random.nextInt(4));
+            map.put(word, word);
+        }
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            messages.add(randomHangul(random, 10 + random.nextInt(30)) + " ㅋㅋ lol 👋");
+        }
+
+        long buildStart = System.nanoTime();
+        DAT<String> dat = new DAT<>();
+        dat.build(map);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        int hits = 0;
+        long chars = 0;
+        for (int warmup = 0; warmup < 5; warmup++) {
+            for (String message : messages) {
+                if (dat.findFirst(message) != null) hits++;
+            }
+        }
+        long searchStart = System.nanoTime();
+        for (int repeat = 0; repeat < 20; repeat++) {
+            for (String message : messages) {
+                if (dat.findFirst(message) != null) hits++;
+                chars += message.length();
+            }
+        }
+        double searchSeconds = (System.nanoTime() - searchStart) / 1e9;
+
+        reporter.publishEntry(Map.of(
+                "words", String.valueOf(dat.size()),
+                "alphabet", String.valueOf(dat.getAlphabetSize()),
+                "arraySlots", String.valueOf(dat.getArraySize()),
+                "buildMillis", String.valueOf(buildMillis),
+                "messagesPerSecond", String.format("%.0f", messages.size() * 20 / searchSeconds),
+                "charsPerSecond", String.format("%.0f", chars / searchSeconds),
+                "hits", String.valueOf(hits)));
+
+        assertEquals(100_000, dat.size());
+        assertTrue(dat.getAlphabetSize() <= 400);
+    }
+}
@@ -0,0 +1,146 @@
+package csw.youtube.chat.common.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static csw.youtube.chat.common.util.TestDictionaries.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirstCharFilterTest {
+
+    @Test
+    void findsTheFirstCharacterThatStartsAKey() {
+        DAT<String> dat = build(List.of("시발", "병신", "fuck"));
+        FirstCharFilter filter = new FirstCharFilter(dat.getFirstChars());
+
+        assertArrayEquals(new char[]{'f', '병', '시'}, dat.getFirstChars());
+        assertEquals(-1, filter.firstCandidate("발 발 uck 안녕하세요 nice stream everyone!!"));
+        assertEquals(40, filter.firstCandidate("a".repeat(40) + "시발"));
+        assertEquals(2, filter.firstCandidate("ㅋㅋ병"));
+        // Long enough to go through the vector loop (when the module is there) before the match
+        char[] chars = ("a".repeat(40) + "시발" + "x".repeat(10)).toCharArray();
+        assertEquals(40, filter.firstCandidate(chars, chars.length));
+        assertEquals(-1, filter.firstCandidate(chars, 40));
+    }
+
+    @Test
+    void agreesWithAScalarScan() {
+        Random random = new Random(3);
+        for (int round = 0; round < 100; round++) {
+            Set<String> words = new HashSet<>();
+            for (int i = 0; i < 1 + random.nextInt(30); i++) {
+                words.add(randomText(random, 1 + random.nextInt(4)));
+            }
+            DAT<String> dat = build(words);
+            FirstCharFilter filter = new FirstCharFilter(dat.getFirstChars());
+            Set<Character> firstChars = new HashSet<>();
+            words.forEach(word -> firstChars.add(word.charAt(0)));
+
+            String text = randomText(random, random.nextInt(200));
+            int expected = -1;
+            for (int i = 0; i < text.length() && expected < 0; i++) {
+                if (firstChars.contains(text.charAt(i))) {
+                    expected = i;
+                }
+            }
+
+            assertEquals(expected, filter.firstCandidate(text), text);
+            assertEquals(expected, filter.firstCandidate(text.toCharArray(), text.length()), text);
+            int from = filter.firstCandidate(text);
+            assertEquals(dat.findFirst(text), from < 0 ? null : dat.findFirst(text, from));
+        }
+    }
+
+    /**
+     * Plain findFirst against findFirst behind the scalar prefilter and behind the vector one, which gets
+     * each message copied into a reused buffer the way detection does it. Replays the chat log at {@code -Dchat.replay=<file>}
+     * (one message per line) when given, otherwise synthetic chat.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkAgainstPlainFindFirst(TestReporter reporter) throws IOException {
+        Random random = new Random(7);
+        Set<String> words = new HashSet<>();
+        while (words.size() < 20_000) {
+            words.add(randomHangul(random, 2 + random.nextInt(3)));
+        }
+        words.addAll(List.of("fuck", "shit", "시발", "병신"));
+        DAT<String> dat = build(words);
+        FirstCharFilter filter = new FirstCharFilter(dat.getFirstChars());
+
+        String replay = System.getProperty("chat.replay");
+        List<String> messages = replay != null ? Files.readAllLines(Path.of(replay)) : syntheticChat(random);
+
+        char[] buffer = new char[256];
+        long plainNanos = Long.MAX_VALUE;
+        long scalarNanos = Long.MAX_VALUE;
+        long vectorNanos = Long.MAX_VALUE;
+        int plainHits = 0;
+        int scalarHits = 0;
+        int vectorHits = 0;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            plainHits = 0;
+            for (String message : messages) {
+                if (dat.findFirst(message) != null) plainHits++;
+            }
+            plainNanos = Math.min(plainNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            scalarHits = 0;
+            for (String message : messages) {
+                int from = filter.firstCandidate(message);
+                if (from >= 0 && dat.findFirst(message, from) != null) scalarHits++;
+            }
+            scalarNanos = Math.min(scalarNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            vectorHits = 0;
+            for (String message : messages) {
+                if (buffer.length < message.length()) {
+                    buffer = new char[message.length() * 2];
+                }
+                message.getChars(0, message.length(), buffer, 0);
+                int from = filter.firstCandidate(buffer, message.length());
+                if (from >= 0 && dat.findFirst(message, from) != null) vectorHits++;
+            }
+            vectorNanos = Math.min(vectorNanos, System.nanoTime() - start);
+        }
+
+        reporter.publishEntry(Map.of(
+                "chat", replay != null ? replay : "synthetic",
+                "messages", String.valueOf(messages.size()),
+                "ranges", String.valueOf(filter.getRangeCount()),
+                "vectorized", String.valueOf(FirstCharFilter.isVectorized()),
+                "findFirstMillis", String.format("%.1f", plainNanos / 1e6),
+                "scalarPrefilteredMillis", String.format("%.1f", scalarNanos / 1e6),
+                "vectorPrefilteredMillis", String.format("%.1f", vectorNanos / 1e6)));
+        assertEquals(plainHits, scalarHits);
+        assertEquals(plainHits, vectorHits);
+    }
+
+    private static List<String> syntheticChat(Random random) {
+        String[] phrases = {"lol", "gg", "nice play", "what a goal!!", "hello from brazil", "ㅋㅋㅋㅋ", "👏👏👏",
+                "omg", "이게 되네", "와 미쳤다", "fuck yeah", "1:0", "W", "LETS GOOO"};
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            messages.add(phrases[random.nextInt(phrases.length)] + " " + phrases[random.nextInt(phrases.length)]);
+        }
+        return messages;
+    }
+
+    private static String randomText(Random random, int length) {
+        String alphabet = "abc가나다시발병신 !ㅋ";
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
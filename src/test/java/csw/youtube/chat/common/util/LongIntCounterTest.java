@@ -0,0 +1,43 @@
+package csw.youtube.chat.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntCounterTest {
+
+    @Test
+    void countsLikeAHashMap() {
+        Random random = new Random(3);
+        LongIntCounter counter = new LongIntCounter(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // Packed keys, as the rollups use them: few high halves, many low halves
+            long key = (long) random.nextInt(8) << 32 | random.nextInt(5_000);
+            int delta = random.nextInt(3);
+            int count = expected.merge(key, delta, Integer::sum);
+            assertEquals(count, counter.add(key, delta));
+        }
+
+        assertEquals(expected.size(), counter.size());
+        Map<Long, Integer> visited = new HashMap<>();
+        counter.forEach(visited::put);
+        assertEquals(expected, visited);
+        assertEquals(0, counter.get(1L << 40));
+    }
+
+    @Test
+    void rejectsTheFreeSlotMarker() {
+        LongIntCounter counter = new LongIntCounter();
+
+        assertTrue(counter.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> counter.increment(LongIntCounter.NO_KEY));
+        assertEquals(1, counter.increment(-1));
+        assertEquals(2, counter.increment(-1));
+        assertEquals(0, counter.get(LongIntCounter.NO_KEY));
+    }
+}
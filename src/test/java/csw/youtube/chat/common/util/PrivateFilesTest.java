@@ -0,0 +1,61 @@
+package csw.youtube.chat.common.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PrivateFilesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void createsDirectoriesForTheOwnerOnly() throws IOException {
+        Path images = dir.resolve("ytchatx/images");
+
+        PrivateFiles.createDirectory(images);
+
+        assertTrue(Files.isDirectory(images));
+        if (isPosix()) {
+            assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(images)));
+        }
+        PrivateFiles.createDirectory(images); // an existing private directory passes
+    }
+
+    @Test
+    void rejectsFilesOthersCanWrite() throws IOException {
+        assumeTrue(isPosix());
+        Path shared = Files.createDirectory(dir.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+        Path image = Files.createFile(dir.resolve("badwords.dat"));
+        Files.setPosixFilePermissions(image, PosixFilePermissions.fromString("rw-rw-r--"));
+
+        assertThrows(IOException.class, () -> PrivateFiles.createDirectory(shared));
+        assertThrows(IOException.class, () -> PrivateFiles.checkPrivate(image));
+    }
+
+    @Test
+    void rejectsSymbolicLinks() throws IOException {
+        Path target = Files.createFile(dir.resolve("target.dat"));
+        Path link;
+        try {
+            link = Files.createSymbolicLink(dir.resolve("badwords.dat"), target);
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "symbolic links aren't supported here");
+            return;
+        }
+
+        assertThrows(IOException.class, () -> PrivateFiles.checkPrivate(link));
+    }
+
+    private boolean isPosix() {
+        return dir.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+}
@@ -0,0 +1,51 @@
+package csw.youtube.chat.common.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Dictionaries and random text for trie tests and benchmarks.
+ */
+public final class TestDictionaries {
+
+    private TestDictionaries() {
+    }
+
+    /**
+     * A trie whose values are the words themselves.
+     */
+    public static DAT<String> build(Collection<String> words) {
+        Map<String, String> map = new TreeMap<>();
+        words.forEach(word -> map.put(word, word));
+        DAT<String> dat = new DAT<>();
+        dat.build(map);
+        return dat;
+    }
+
+    public static DAT<String> build(String... words) {
+        return build(Arrays.asList(words));
+    }
+
+    /**
+     * @param letters how many letters from 'a' on to draw from
+     */
+    public static String randomWord(Random random, int length, int letters) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(letters)));
+        }
+        return sb.toString();
+    }
+
+    public static String randomHangul(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            // A few hundred common syllables rather than all 11,172
+            sb.append((char) ('가' + random.nextInt(400) * 7));
+        }
+        return sb.toString();
+    }
+}
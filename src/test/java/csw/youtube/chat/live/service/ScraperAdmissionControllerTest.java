@@ -0,0 +1,83 @@
+package csw.youtube.chat.live.service;
+
+import csw.youtube.chat.live.dto.AdmissionDecision;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScraperAdmissionControllerTest {
+    private static final long GB = 1024L * 1024 * 1024;
+    private static final long MB = 1024L * 1024;
+
+    private ScraperAdmissionController controller;
+    private final Instant start = Instant.parse("2025-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        // 1 GB reserve, priors of 500 MB and 0.5 cores per scraper, at most 30 slots
+        controller = new ScraperAdmissionController(true, 1, 30, 0.8, 1024, 500, 0.5);
+    }
+
+    // 16 GB / 8 cores node with the given usage; scrapers use 500 MB and 0.5 cores each
+    private ScraperAdmissionController.Sample sample(long usedBytes, double usedCores, int scrapers) {
+        return new ScraperAdmissionController.Sample(16 * GB, usedBytes, 8, usedCores,
+                scrapers, scrapers * 500 * MB, scrapers * 0.5, false);
+    }
+
+    @Test
+    void initialRoundSizesFromHeadroom() {
+        // Memory: (16 - 1 - 2) GB / 500 MB = 26; CPU: (6.4 - 1) / 0.5 = 10.8 -> CPU bound
+        AdmissionDecision decision = controller.decide(sample(2 * GB, 1.0, 0), 5, start);
+
+        assertEquals(10, decision.limit());
+        assertEquals("initial sizing", decision.reason());
+    }
+
+    @Test
+    void growsOneSlotPerCooldown() {
+        controller.decide(sample(2 * GB, 1.0, 0), 5, start);
+
+        AdmissionDecision grown = controller.decide(sample(2 * GB, 1.0, 2), 4, start.plusSeconds(30));
+        assertEquals(5, grown.limit());
+
+        AdmissionDecision held = controller.decide(sample(2 * GB, 1.0, 2), 5, start.plusSeconds(40));
+        assertEquals(5, held.limit());
+        assertEquals("hold", held.reason());
+
+        assertEquals(6, controller.decide(sample(2 * GB, 1.0, 2), 5, start.plusSeconds(61)).limit());
+    }
+
+    @Test
+    void shrinksImmediatelyUnderMemoryPressure() {
+        controller.decide(sample(2 * GB, 1.0, 0), 10, start);
+
+        // 15.5 GB used leaves less than the reserve
+        AdmissionDecision decision = controller.decide(sample(15 * GB + 512 * MB, 2.0, 4), 10, start.plusSeconds(10));
+
+        assertTrue(decision.limit() < 4);
+        assertEquals("memory pressure", decision.reason());
+    }
+
+    @Test
+    void keepsOneSlotOfSlackAboveWhatFits() {
+        controller.decide(sample(2 * GB, 1.0, 0), 10, start);
+
+        // CPU room for 1 more (6.4 - 5.5 = 0.9 cores), so 3 running + 1 fit, limit 4 + 1 slack
+        AdmissionDecision decision = controller.decide(sample(4 * GB, 5.5, 3), 20, start.plusSeconds(10));
+
+        assertEquals(5, decision.limit());
+        assertEquals("headroom shrank", decision.reason());
+    }
+
+    @Test
+    void neverLeavesConfiguredBounds() {
+        AdmissionDecision decision = controller.decide(sample(16 * GB, 8.0, 2), 6, start);
+        assertEquals(1, decision.limit());
+
+        var roomy = new ScraperAdmissionController(true, 1, 3, 0.8, 0, 10, 0.01);
+        assertEquals(3, roomy.decide(sample(0, 0, 0), 1, start).limit());
+    }
+}
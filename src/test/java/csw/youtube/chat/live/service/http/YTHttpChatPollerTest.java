@@ -0,0 +1,159 @@
+package csw.youtube.chat.live.service.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import csw.youtube.chat.live.model.ScraperState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the poller against a local server serving recorded-style live chat responses.
+ */
+class YTHttpChatPollerTest {
+    private static final String CHAT_PAGE = """
+            <html><script>ytcfg.set({"INNERTUBE_API_KEY":"test-key","INNERTUBE_CONTEXT_CLIENT_VERSION":"2.20250301.01.00"});</script>
+            <script>window["ytInitialData"] = {"contents":{"liveChatRenderer":{"continuations":[{"invalidationContinuationData":{"continuation":"c1","timeoutMs":10000}}]}}};</script></html>
+            """;
+    private static final String FIRST_RESPONSE = """
+            {"responseContext":{"serviceTrackingParams":[{"service":"CSI","params":[{"key":"c","value":"WEB"}]}]},
+             "continuationContents":{"liveChatContinuation":{
+               "continuations":[{"invalidationContinuationData":{"continuation":"c2","timeoutMs":5}}],
+               "actions":[
+                 {"addChatItemAction":{"item":{"liveChatTextMessageRenderer":{
+                   "authorName":{"simpleText":"alice"},
+                   "message":{"runs":[{"text":"hello "},{"emoji":{"emojiId":"😀","shortcuts":[":grinning:"]}}]}}}}},
+                 {"addChatItemAction":{"item":{"liveChatTextMessageRenderer":{
+                   "authorName":{"simpleText":"bob"},
+                   "message":{"runs":[{"text":"nice "},{"emoji":{"emojiId":"UC/abc","isCustomEmoji":true,"shortcuts":[":yt:"]}}]}}}}},
+                 {"addChatItemAction":{"item":{"liveChatPaidMessageRenderer":{
+                   "authorName":{"simpleText":"carol"},
+                   "purchaseAmountText":{"simpleText":"$5.00"},
+                   "message":{"runs":[{"text":"thanks!"}]}}}}},
+                 {"addLiveChatTickerItemAction":{"item":{"liveChatTickerPaidMessageItemRenderer":{
+                   "showItemEndpoint":{"showLiveChatItemEndpoint":{"renderer":{"liveChatPaidMessageRenderer":{
+                     "authorName":{"simpleText":"carol"},"message":{"runs":[{"text":"thanks!"}]}}}}}}}}}
+               ]}}}
+            """;
+    private static final String LAST_RESPONSE = """
+            {"continuationContents":{"liveChatContinuation":{
+               "actions":[{"addChatItemAction":{"item":{"liveChatTextMessageRenderer":{
+                 "authorName":{"simpleText":"alice"},"message":{"runs":[{"text":"bye"}]}}}}}]}}}
+            """;
+    private static final String EMPTY_RESPONSE = """
+            {"continuationContents":{"liveChatContinuation":{
+               "continuations":[{"timedContinuationData":{"continuation":"c2","timeoutMs":5}}]}}}
+            """;
+
+    private HttpServer server;
+    private final AtomicInteger polls = new AtomicInteger();
+    private final List<String> continuationsSeen = new CopyOnWriteArrayList<>();
+    private volatile String chatPage = CHAT_PAGE;
+    private volatile boolean endless;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/live_chat", exchange -> respond(exchange, chatPage));
+        server.createContext("/oembed", exchange ->
+                respond(exchange, "{\"title\":\"Test stream\",\"author_name\":\"Test channel\"}"));
+        server.createContext("/youtubei/v1/live_chat/get_live_chat", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            continuationsSeen.add(body.replaceAll(".*\"continuation\":\"([^\"]+)\".*", "$1"));
+            if (endless) {
+                respond(exchange, EMPTY_RESPONSE);
+            } else {
+                respond(exchange, polls.incrementAndGet() == 1 ? FIRST_RESPONSE : LAST_RESPONSE);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private YTHttpChatPoller poller() {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        return new YTHttpChatPoller(baseUrl, 10, Duration.ofMillis(5), Duration.ofMillis(50), 2, new ObjectMapper());
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    void followsContinuationsUntilChatEnds() {
+        var state = new ScraperState("vid123");
+        List<SimpleChatMessage> received = new CopyOnWriteArrayList<>();
+
+        int exitCode = poller().poll("vid123", state, received::addAll);
+
+        assertEquals(YTHttpChatPoller.EXIT_FINISHED, exitCode);
+        assertEquals(List.of("c1", "c2"), continuationsSeen);
+        assertEquals(List.of(
+                new SimpleChatMessage("alice", "hello 😀"),
+                new SimpleChatMessage("bob", "nice :yt:"),
+                new SimpleChatMessage("carol", "thanks!"),
+                new SimpleChatMessage("alice", "bye")), received);
+        assertEquals(4, state.getTotalMessages().get());
+        assertEquals("Test stream", state.getVideoTitle());
+        assertEquals("Test channel", state.getChannelName());
+        // The ticker copy of the paid message is not counted twice
+        assertEquals(1, state.getRecentDonations().size());
+        assertEquals("$5.00", state.getRecentDonations().getFirst().amount());
+        assertEquals("alice", state.getTopChatters().getFirst().username());
+    }
+
+    @Test
+    void failsWhenPageHasNoChat() {
+        chatPage = "<html>no chat here</html>";
+        var state = new ScraperState("vid123");
+
+        int exitCode = poller().poll("vid123", state, _ -> fail("no messages expected"));
+
+        assertEquals(YTHttpChatPoller.EXIT_FAILED, exitCode);
+        assertNotNull(state.getReason());
+        assertEquals(0, polls.get());
+    }
+
+    @Test
+    void stopEndsPolling() throws Exception {
+        endless = true;
+        YTHttpChatPoller poller = poller();
+        AtomicInteger exitCode = new AtomicInteger(-1);
+        Thread thread = Thread.ofVirtual().start(() ->
+                exitCode.set(poller.poll("vid123", new ScraperState("vid123"), _ -> {
+                })));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (continuationsSeen.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(poller.isPolling("vid123"));
+        assertTrue(poller.stop("vid123"));
+        thread.join(5_000);
+
+        assertEquals(YTHttpChatPoller.EXIT_FINISHED, exitCode.get());
+        assertFalse(poller.isPolling("vid123"));
+    }
+}
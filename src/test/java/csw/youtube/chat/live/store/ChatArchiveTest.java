@@ -0,0 +1,141 @@
+package csw.youtube.chat.live.store;
+
+import csw.youtube.chat.live.dto.ArchivePage;
+import csw.youtube.chat.live.dto.ArchivedMessage;
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<SimpleChatMessage> batch(int from, int count) {
+        List<SimpleChatMessage> messages = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            messages.add(new SimpleChatMessage("user" + (i % 7), "message " + i + " 안녕하세요"));
+        }
+        return messages;
+    }
+
+    private static List<String> texts(List<ArchivedMessage> messages) {
+        return messages.stream().map(ArchivedMessage::message).toList();
+    }
+
+    private long filesEndingWith(String suffix) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).count();
+        }
+    }
+
+    @Test
+    void readsFromATimestamp() throws Exception {
+        try (ChatArchive archive = ChatArchive.open(dir, 1 << 20)) {
+            archive.append(List.of(new SimpleChatMessage("alice", "hi"), new SimpleChatMessage("밥", "👋")), 1_000);
+            archive.append(List.of(new SimpleChatMessage("carol", "gg")), 2_000);
+            // An older batch doesn't go back in time
+            archive.append(List.of(new SimpleChatMessage("dave", "late")), 1_500);
+
+            assertEquals(List.of(new ArchivedMessage(1_000, "alice", "hi"), new ArchivedMessage(1_000, "밥", "👋"),
+                    new ArchivedMessage(2_000, "carol", "gg"), new ArchivedMessage(2_000, "dave", "late")),
+                    archive.read(0, 100));
+            assertEquals(List.of("gg", "late"), texts(archive.read(1_001, 100)));
+            assertEquals(List.of("hi"), texts(archive.read(1_000, 1)));
+            assertTrue(archive.read(2_001, 100).isEmpty());
+        }
+    }
+
+    @Test
+    void rollsAndSealsSegmentsAndSeeksAcrossThem() throws Exception {
+        try (ChatArchive archive = ChatArchive.open(dir, 64 * 1024)) {
+            for (int i = 0; i < 10_000; i += 10) {
+                archive.append(batch(i, 10), i);
+            }
+
+            assertTrue(archive.getSealedSegmentCount() >= 5);
+            assertEquals(archive.getSealedSegmentCount(), filesEndingWith(".zseg"));
+            assertEquals(1, filesEndingWith(".seg"));
+            for (int from : new int[]{0, 10, 4_321, 9_990}) {
+                List<ArchivedMessage> messages = archive.read(from, 25);
+                int first = (from + 9) / 10 * 10;
+                assertEquals(Math.min(25, 10_000 - first), messages.size());
+                assertEquals("message " + first + " 안녕하세요", messages.getFirst().message());
+                assertEquals(first, messages.getFirst().timestamp());
+            }
+            assertEquals(10_000, archive.read(0, Integer.MAX_VALUE).size());
+        }
+    }
+
+    @Test
+    void pagesWithACursorThroughMessagesSharingATimestamp() throws Exception {
+        try (ChatArchive archive = ChatArchive.open(dir, 64 * 1024)) {
+            // One timestamp for the whole batch, spread over sealed segments and the active one
+            archive.append(batch(0, 3_000), 1_000);
+            archive.append(batch(3_000, 10), 2_000);
+            assertTrue(archive.getSealedSegmentCount() >= 2);
+
+            List<String> read = new ArrayList<>();
+            ArchivePage page = archive.readPage(1_000, 170);
+            while (!page.messages().isEmpty()) {
+                read.addAll(texts(page.messages()));
+                page = archive.readPage(page.nextCursor(), 170);
+            }
+            assertEquals(texts(archive.read(0, Integer.MAX_VALUE)), read);
+            assertEquals(3_010, read.size());
+
+            // The last cursor waits at the end for what comes next
+            archive.append(List.of(new SimpleChatMessage("erin", "new")), 3_000);
+            assertEquals(List.of("new"), texts(archive.readPage(page.nextCursor(), 170).messages()));
+            assertThrows(IllegalArgumentException.class, () -> archive.readPage("12", 10));
+            assertThrows(IllegalArgumentException.class, () -> archive.readPage("a-1", 10));
+        }
+    }
+
+    @Test
+    void reopenContinuesTheActiveSegment() throws Exception {
+        try (ChatArchive archive = ChatArchive.open(dir, 64 * 1024)) {
+            for (int i = 0; i < 2_000; i += 10) {
+                archive.append(batch(i, 10), i);
+            }
+        }
+        try (ChatArchive archive = ChatArchive.open(dir, 64 * 1024)) {
+            assertEquals(1_990, archive.getLastTimestamp());
+            archive.append(batch(2_000, 1), 2_000);
+
+            List<ArchivedMessage> all = archive.read(0, Integer.MAX_VALUE);
+            assertEquals(2_001, all.size());
+            assertEquals("message 2000 안녕하세요", all.getLast().message());
+            assertEquals(List.of("message 1990 안녕하세요"), texts(archive.read(1_990, 1)));
+        }
+    }
+
+    @Test
+    void sealsSegmentsLeftUnsealedByAnEarlierRun(@TempDir Path other) throws Exception {
+        try (ChatArchive archive = ChatArchive.open(dir, 64 * 1024)) {
+            archive.append(batch(0, 10), 0);
+        }
+        // A second mapped segment, as if the process died right after rolling
+        try (ChatArchive archive = ChatArchive.open(other, 64 * 1024)) {
+            archive.append(batch(10, 10), 10);
+        }
+        Files.move(other.resolve("00000000.seg"), dir.resolve("00000001.seg"));
+
+        try (ChatArchive archive = ChatArchive.open(dir, 64 * 1024)) {
+            assertEquals(1, archive.getSealedSegmentCount());
+            assertEquals(0, filesEndingWith("00000000.seg"));
+            List<ArchivedMessage> all = archive.read(0, 100);
+            assertEquals(20, all.size());
+            assertEquals("message 0 안녕하세요", all.getFirst().message());
+            assertEquals("message 19 안녕하세요", all.getLast().message());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package csw.youtube.chat.live.store;
+
+import csw.youtube.chat.live.dto.SimpleChatMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapMessageArenaTest {
+
+    @Test
+    void appendsAndDecodesLazily() {
+        try (var arena = new OffHeapMessageArena(1024, 16)) {
+            arena.append(List.of(
+                    new SimpleChatMessage("alice", "hello"),
+                    new SimpleChatMessage("밥", "안녕하세요 👋")), 1000L);
+
+            assertEquals(2, arena.size());
+            assertEquals("hello\n안녕하세요 👋", arena.joinRecentMessages(100, "\n"));
+            assertEquals(new SimpleChatMessage("밥", "안녕하세요 👋"), arena.getRecentMessages(1).getFirst());
+        }
+    }
+
+    @Test
+    void evictsWhenSegmentWrapsAround() {
+        try (var arena = new OffHeapMessageArena(32, 100)) {
+            for (int i = 0; i < 10; i++) {
+                arena.append(List.of(new SimpleChatMessage("u", "message" + i)), i);
+            }
+
+            // 9 bytes per record, so only the last 3 fit in 32 bytes
+            List<SimpleChatMessage> recent = arena.getRecentMessages(100);
+            assertEquals(3, recent.size());
+            assertEquals("message7", recent.getFirst().message());
+            assertEquals("message9", recent.getLast().message());
+            assertTrue(arena.getUsedBytes() <= arena.getCapacityBytes());
+        }
+    }
+
+    @Test
+    void evictsByMessageCountAndAge() {
+        try (var arena = new OffHeapMessageArena(4096, 4)) {
+            for (int i = 0; i < 6; i++) {
+                arena.append(List.of(new SimpleChatMessage("u", "m" + i)), i * 100L);
+            }
+            assertEquals(4, arena.size());
+
+            arena.evictOlderThan(450L);
+            assertEquals("m5", arena.joinRecentMessages(100, ","));
+        }
+    }
+
+    @Test
+    void ignoresAppendsAfterClose() {
+        var arena = new OffHeapMessageArena(1024, 16);
+        arena.close();
+        arena.append(List.of(new SimpleChatMessage("u", "late")), 0L);
+
+        assertTrue(arena.isClosed());
+        assertEquals("", arena.joinRecentMessages(100, "\n"));
+    }
+}
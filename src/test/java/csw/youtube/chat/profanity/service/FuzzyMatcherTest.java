@@ -0,0 +1,154 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.DAT;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.util.*;
+
+import static csw.youtube.chat.common.util.TestDictionaries.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyMatcherTest {
+
+    @Test
+    void findsWordsWithinTheEditDistance() {
+        FuzzyMatcher matcher = new FuzzyMatcher(build(List.of("fuck", "개새끼", "ass")), 1, 3, 1);
+
+        assertEquals(new DAT.Hit<>(4, 7, "fuck"), matcher.findFirst("omg fuk off"));
+        assertEquals(new DAT.Hit<>(2, 5, "개새끼"), matcher.findFirst("야 개새기야"));
+        assertEquals(new DAT.Hit<>(0, 5, "fuck"), matcher.findFirst("fucck"));
+        assertNull(matcher.findFirst("fork that"));
+        // Shorter than the minimum length: exact only, left to the regular trie
+        assertNull(new FuzzyMatcher(build(List.of("ass")), 1, 4, 1).findFirst("as"));
+    }
+
+    @Test
+    void distanceTwoReachesFurther() {
+        DAT<String> dat = build(List.of("motherfucker"));
+
+        assertNull(new FuzzyMatcher(dat, 1, 3, 1).findFirst("mothafucker"));
+        assertEquals(new DAT.Hit<>(0, 11, "motherfucker"), new FuzzyMatcher(dat, 2, 3, 1).findFirst("mothafucker"));
+    }
+
+    @Test
+    void prefixMustMatchExactly() {
+        DAT<String> dat = build(List.of("fuck"));
+
+        assertNull(new FuzzyMatcher(dat, 1, 3, 1).findFirst("duck"));
+        assertEquals(new DAT.Hit<>(0, 4, "fuck"), new FuzzyMatcher(dat, 1, 3, 0).findFirst("duck"));
+    }
+
+    @Test
+    void agreesWithBruteForceEditDistance() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            Set<String> words = new HashSet<>();
+            for (int i = 0; i < 1 + random.nextInt(20); i++) {
+                words.add(randomWord(random, 3 + random.nextInt(4), 4));
+            }
+            int distance = 1 + random.nextInt(2);
+            int prefix = random.nextInt(2);
+            FuzzyMatcher matcher = new FuzzyMatcher(build(words), distance, 3, prefix);
+            String text = randomWord(random, 30, 5);
+
+            int expected = -1;
+            for (int start = 0; start < text.length() && expected < 0; start++) {
+                for (String word : words) {
+                    if (word.length() > distance && text.startsWith(word.substring(0, prefix), start)
+                            && closestPrefix(word, text.substring(start)) <= distance) {
+                        expected = start;
+                        break;
+                    }
+                }
+            }
+
+            DAT.Hit<String> hit = matcher.findFirst(text);
+            assertEquals(expected, hit == null ? -1 : hit.begin(), () -> words + " in " + text);
+            if (hit != null) {
+                assertTrue(distance(hit.value(), text.substring(hit.begin(), hit.end())) <= distance);
+            }
+        }
+    }
+
+    /**
+     * Exact trie scan against the fuzzy walk over the same chat, for a 20k word dictionary.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkAgainstExactMatching(TestReporter reporter) {
+        Random random = new Random(5);
+        Set<String> words = new HashSet<>();
+        while (words.size() < 20_000) {
+            words.add(randomHangul(random, 2 + random.nextInt(3)));
+        }
+        words.addAll(List.of("fuck", "shit", "개새끼", "병신"));
+        DAT<String> dat = build(words);
+        List<String> messages = new ArrayList<>();
+        String[] phrases = {"lol", "gg", "nice play", "what a goal!!", "ㅋㅋㅋㅋ", "이게 되네", "와 미쳤다", "fuk yeah"};
+        for (int i = 0; i < 20_000; i++) {
+            messages.add(phrases[random.nextInt(phrases.length)] + " " + phrases[random.nextInt(phrases.length)]);
+        }
+
+        for (int distance = 1; distance <= 2; distance++) {
+            FuzzyMatcher matcher = new FuzzyMatcher(dat, distance, 3, 1);
+            long exactNanos = Long.MAX_VALUE;
+            long fuzzyNanos = Long.MAX_VALUE;
+            int exactHits = 0;
+            int fuzzyHits = 0;
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                exactHits = 0;
+                for (String message : messages) {
+                    if (dat.findFirst(message) != null) exactHits++;
+                }
+                exactNanos = Math.min(exactNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                fuzzyHits = 0;
+                for (String message : messages) {
+                    if (matcher.findFirst(message) != null) fuzzyHits++;
+                }
+                fuzzyNanos = Math.min(fuzzyNanos, System.nanoTime() - start);
+            }
+
+            reporter.publishEntry(Map.of(
+                    "distance", String.valueOf(distance),
+                    "messages", String.valueOf(messages.size()),
+                    "exactMessagesPerSecond", String.format("%.0f", messages.size() / (exactNanos / 1e9)),
+                    "exactHits", String.valueOf(exactHits),
+                    "fuzzyMessagesPerSecond", String.format("%.0f", messages.size() / (fuzzyNanos / 1e9)),
+                    "fuzzyHits", String.valueOf(fuzzyHits)));
+            assertTrue(fuzzyHits >= exactHits);
+        }
+    }
+
+    // Smallest edit distance between word and any prefix of text
+    private static int closestPrefix(String word, String text) {
+        int best = Integer.MAX_VALUE;
+        for (int end = 1; end <= text.length(); end++) {
+            best = Math.min(best, distance(word, text.substring(0, end)));
+        }
+        return best;
+    }
+
+    private static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
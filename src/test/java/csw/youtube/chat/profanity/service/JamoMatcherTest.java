@@ -0,0 +1,58 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.DAT;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JamoMatcherTest {
+
+    private static JamoMatcher build(String... words) {
+        List<String> list = List.of(words);
+        return new JamoMatcher(trie(JamoMatcher.jamoKeys(list)), trie(JamoMatcher.choseongKeys(list)));
+    }
+
+    private static DAT<String> trie(Map<String, String> keys) {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        DAT<String> dat = new DAT<>();
+        dat.build(keys);
+        return dat;
+    }
+
+    @Test
+    void skipsSeparatorsAndMapsTheHitBackToTheText() {
+        JamoMatcher matcher = build("시발", "fuck");
+
+        assertEquals(new DAT.Hit<>(0, 3, "시발"), matcher.findFirst("시 발"));
+        assertEquals(new DAT.Hit<>(3, 8, "시발"), matcher.findFirst("ㅋㅋ 시 . 발 ㅋㅋ"));
+        assertEquals(new DAT.Hit<>(4, 11, "fuck"), matcher.findFirst("omg f.u.c.k"));
+        assertNull(matcher.findFirst("시원한 발표"));
+    }
+
+    @Test
+    void matchesWordsTypedAsJamo() {
+        JamoMatcher matcher = build("시발");
+
+        assertEquals(new DAT.Hit<>(0, 3, "시발"), matcher.findFirst("ㅅㅣ발"));
+        assertEquals(new DAT.Hit<>(0, 5, "시발"), matcher.findFirst("ㅅㅣㅂㅏㄹ"));
+        assertEquals(new DAT.Hit<>(1, 3, "시발"), matcher.findFirst("아ㅅㅂ"));
+        assertEquals(new DAT.Hit<>(0, 3, "시발"), matcher.findFirst("ㅅ ㅂ"));
+        assertEquals(new DAT.Hit<>(0, 2, "시발"), matcher.findFirst("ㅅ발"));
+    }
+
+    @Test
+    void doesNotMatchAcrossSyllablesOrOnSyllableInitialsAlone() {
+        JamoMatcher matcher = build("발", "시발");
+
+        // ㅂㅏ + the ㄹ that starts 라
+        assertNull(matcher.findFirst("바라"));
+        // Same initials as 시발, but nothing typed as jamo
+        assertNull(matcher.findFirst("수박 세번"));
+        assertEquals(new DAT.Hit<>(1, 2, "발"), matcher.findFirst("바발"));
+    }
+}
@@ -0,0 +1,86 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.DAT;
+import csw.youtube.chat.profanity.dto.ModerationBatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ModerationFeedServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ModerationFeedService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Two users per window
+        service = new ModerationFeedService(messagingTemplate, meterRegistry, 2);
+    }
+
+    private ModerationBatch sentBatch(String videoId) {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq("/live/moderation/" + videoId), payload.capture());
+        return (ModerationBatch) payload.getValue();
+    }
+
+    @Test
+    void hitsAreGroupedPerUserWithinAWindow() {
+        service.publish("video", "alice", "fuck", new DAT.Hit<>(0, 4, "fuck"), 1_000);
+        service.publish("video", "bob", "아 시발", new DAT.Hit<>(2, 4, "시발"), 1_100);
+        service.publish("video", "alice", "shit fuck", new DAT.Hit<>(0, 4, "shit"), 1_200);
+        service.publish("video", "alice", "fuck", new DAT.Hit<>(0, 4, "fuck"), 1_300);
+
+        service.flush();
+
+        ModerationBatch batch = sentBatch("video");
+        assertEquals(1_000, batch.windowStart());
+        assertEquals(1_300, batch.windowEnd());
+        assertEquals(List.of(
+                new ModerationBatch.UserHits("alice", 3, List.of("fuck", "shit"), "fuck", 0, 4, 1_300),
+                new ModerationBatch.UserHits("bob", 1, List.of("시발"), "아 시발", 2, 4, 1_100)), batch.users());
+        assertEquals(0, service.getOpenWindowCount());
+    }
+
+    @Test
+    void usersBeyondTheWindowLimitAreOnlyCounted() {
+        for (String user : List.of("a", "b", "c", "d", "a")) {
+            service.publish("video", user, "fuck", new DAT.Hit<>(0, 4, "fuck"), 1_000);
+        }
+
+        service.flush();
+
+        ModerationBatch batch = sentBatch("video");
+        assertEquals(List.of("a", "b"), batch.users().stream().map(ModerationBatch.UserHits::username).toList());
+        assertEquals(2, batch.droppedHits());
+        assertEquals(2, meterRegistry.get("profanity.moderation.dropped").counter().count());
+    }
+
+    @Test
+    void eachVideoGetsItsOwnBatchAndQuietWindowsSendNothing() {
+        service.publish("v1", "alice", "fuck", new DAT.Hit<>(0, 4, "fuck"), 1_000);
+        service.publish("v2", "alice", "fuck", new DAT.Hit<>(0, 4, "fuck"), 1_000);
+
+        service.flush();
+        service.flush();
+
+        assertEquals("v1", sentBatch("v1").videoId());
+        assertEquals("v2", sentBatch("v2").videoId());
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+}
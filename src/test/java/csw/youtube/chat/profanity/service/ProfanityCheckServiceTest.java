@@ -0,0 +1,171 @@
+package csw.youtube.chat.profanity.service;
+
+import com.github.pemistahl.lingua.api.Language;
+import csw.youtube.chat.common.util.DAT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProfanityCheckServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProfanityCheckService service;
+
+    private ProfanityCheckService start(String... words) throws Exception {
+        Path dictionary = dir.resolve("badwords.txt");
+        Files.write(dictionary, List.of(words));
+        service = new ProfanityCheckService(dir.resolve("badwords.dat").toString(), dictionary.toString(), false,
+                true, true, 1, 3, 1, true, scanPolicyStore(), meterRegistry);
+        service.init();
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ScanPolicyStore scanPolicyStore() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        return new ScanPolicyStore(redisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void reloadSwapsInTheNewWordList() throws Exception {
+        start("시발", "fuck");
+        assertTrue(service.containsProfanity("아 시발"));
+        assertFalse(service.containsProfanity("병신아"));
+
+        Files.write(dir.resolve("badwords.txt"), List.of("병신"));
+        ProfanityCheckService.DictionaryInfo info = service.reload().get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, info.words());
+        assertTrue(service.containsProfanity("병신아"));
+        assertFalse(service.containsProfanity("아 시발"));
+        assertEquals(1, meterRegistry.get("profanity.dictionary.reloads").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void failedReloadKeepsTheCurrentDictionary() throws Exception {
+        start("시발");
+
+        Files.write(dir.resolve("badwords.txt"), List.of("", "  "));
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> service.reload().get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertTrue(service.containsProfanity("아 시발"));
+        assertEquals(1, meterRegistry.get("profanity.dictionary.reloads").tag("result", "failure").counter().count());
+    }
+
+    @Test
+    void restartMapsTheImageOfAnUnchangedList() throws Exception {
+        start("시발");
+        assertFalse(service.getDictionaryInfo().mapped());
+        service.shutdown();
+
+        start("시발");
+
+        assertTrue(service.getDictionaryInfo().mapped());
+        assertTrue(service.containsProfanity("아 시발"));
+    }
+
+    @Test
+    void catchesJamoAndSpacedOutSpellings() throws Exception {
+        start("시발");
+
+        assertTrue(service.containsProfanity("아 ㅅㅂ"));
+        assertTrue(service.containsProfanity("시.발"));
+        assertEquals(3, service.findProfanity("ㅋㅋ ㅅㅣ발").begin());
+        assertFalse(service.containsProfanity("수박 사러 가자"));
+    }
+
+    @Test
+    void scannerMasksBadWordsAndPassesCleanTextThrough() throws Exception {
+        start("시발", "fuck");
+        ProfanityCheckService.MessageScanner scanner = service.newScanner();
+        String clean = "좋은 아침 gg";
+
+        assertEquals("아 ** 진짜", scanner.scan("video", "아 시발 진짜", null).masked());
+        assertEquals("****ing ****", scanner.scan("video", "fucking fuck", null).masked());
+        ProfanityCheckService.ScanResult passed = scanner.scan("video", clean, null);
+        assertSame(clean, passed.masked());
+        assertNull(passed.hit());
+        assertEquals("x".repeat(300) + "****", scanner.scan("video", "x".repeat(300) + "fuck", null).masked());
+        assertEquals(3, meterRegistry.get("profanity.mask.masked").counter().count());
+    }
+
+    @Test
+    void scannerMasksEverySpanItReports() throws Exception {
+        start("시발");
+        ProfanityCheckService.MessageScanner scanner = service.newScanner();
+
+        for (String text : List.of("아 ㅅㅂ", "시 발", "ㅋㅋ ㅅㅣ발")) {
+            ProfanityCheckService.ScanResult scan = scanner.scan("video", text, null);
+            DAT.Hit<String> hit = service.findProfanity(text, null, ScanPolicy.EXACT);
+
+            assertEquals(hit, scan.hit(), text);
+            assertEquals("*".repeat(hit.end() - hit.begin()), scan.masked().substring(hit.begin(), hit.end()), text);
+        }
+    }
+
+    @Test
+    void fuzzyPolicyOnlyAppliesToItsVideo() throws Exception {
+        start("개새끼");
+
+        service.setScanPolicy("fuzzy-video", ScanPolicy.FUZZY);
+
+        assertTrue(service.containsProfanity("fuzzy-video", "야 개새기야", Language.KOREAN));
+        assertFalse(service.containsProfanity("other-video", "야 개새기야", Language.KOREAN));
+        assertTrue(service.containsProfanity("other-video", "야 개새끼야", Language.KOREAN));
+        assertEquals(ScanPolicy.EXACT, service.getScanPolicy("other-video"));
+    }
+
+    @Test
+    void languageSectionsOnlyApplyToTheirLanguage() throws Exception {
+        start("fuck", "[KOREAN]", "시발", "[ENGLISH]", "shit");
+
+        assertEquals(3, service.getDictionaryInfo().words());
+        assertTrue(service.containsProfanity("video", "아 시발", Language.KOREAN));
+        assertFalse(service.containsProfanity("video", "oh shit", Language.KOREAN));
+        assertTrue(service.containsProfanity("video", "oh shit", Language.ENGLISH));
+        // Shared words apply everywhere, and languages without a section only get those
+        assertTrue(service.containsProfanity("video", "fuck", Language.KOREAN));
+        assertFalse(service.containsProfanity("video", "oh shit", Language.SPANISH));
+        // Unknown or mixed-script text is checked against every word
+        assertTrue(service.containsProfanity("video", "oh shit", null));
+        assertTrue(service.containsProfanity("video", "wow 시발", Language.ENGLISH));
+    }
+
+    @Test
+    void unknownLanguageSectionFailsTheLoad() throws Exception {
+        start("시발");
+
+        Files.write(dir.resolve("badwords.txt"), List.of("[KLINGON]", "qapla"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> service.reload().get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+}
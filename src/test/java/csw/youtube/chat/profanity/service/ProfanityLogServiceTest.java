@@ -0,0 +1,102 @@
+package csw.youtube.chat.profanity.service;
+
+import csw.youtube.chat.common.util.DAT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfanityLogServiceTest {
+
+    @Mock
+    private ProfanityRollupService profanityRollupService;
+
+    @Mock
+    private ModerationFeedService moderationFeedService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProfanityLogService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Room for 3 hits, batches of 2, no waiting when full
+        service = new ProfanityLogService(profanityRollupService, moderationFeedService, jdbcTemplate, meterRegistry, 3, 2, 0);
+    }
+
+    private static final DAT.Hit<String> HIT = new DAT.Hit<>(0, 3, "bad");
+
+    private double dropped(String reason) {
+        return meterRegistry.get("profanity.log.dropped").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void hitIsBufferedCountedAndSentToModerators() {
+        service.logHit("video", "a", "bad", HIT);
+
+        assertEquals(1, service.getBufferedCount());
+        verify(profanityRollupService).record(eq("video"), eq("a"), any());
+        verifyNoMoreInteractions(profanityRollupService);
+        verify(moderationFeedService).publish(eq("video"), eq("a"), eq("bad"), eq(HIT), anyLong());
+        verifyNoMoreInteractions(moderationFeedService);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesInBatches() {
+        service.logHit("video", "a", "bad 1", HIT);
+        service.logHit("video", "b", "bad 2", HIT);
+        service.logHit("video", "c", "bad 3", HIT);
+
+        service.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((Collection<Object> rows) -> rows.size() == 2), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((Collection<Object> rows) -> rows.size() == 1), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0, service.getBufferedCount());
+        assertEquals(3, meterRegistry.get("profanity.log.written").counter().count());
+    }
+
+    @Test
+    void fullBufferDropsAndCounts() {
+        for (int i = 0; i < 5; i++) {
+            service.logHit("video", "spammer", "bad " + i, HIT);
+        }
+
+        assertEquals(3, service.getBufferedCount());
+        assertEquals(2, dropped("overflow"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsCountedAndLaterBatchesStillWritten() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(new int[][]{{1}});
+        service.logHit("video", "a", "bad 1", HIT);
+        service.logHit("video", "b", "bad 2", HIT);
+        service.logHit("video", "c", "bad 3", HIT);
+
+        service.flush();
+
+        assertEquals(2, dropped("flush-failed"));
+        assertEquals(1, meterRegistry.get("profanity.log.written").counter().count());
+    }
+}
@@ -0,0 +1,142 @@
+package csw.youtube.chat.profanity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfanityRollupServiceTest {
+    private static final Instant T0 = Instant.parse("2025-03-01T12:00:10Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProfanityRollupService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        service = new ProfanityRollupService(jdbcTemplate, transactionTemplate, meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<Object[]>> captureUpserts(int times) {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(times)).batchUpdate(sql.capture(), rows.capture());
+        Map<String, List<Object[]>> byTable = new HashMap<>();
+        for (int i = 0; i < sql.getAllValues().size(); i++) {
+            String table = sql.getAllValues().get(i).split("\\s+")[2];
+            byTable.computeIfAbsent(table, t -> new ArrayList<>()).addAll(rows.getAllValues().get(i));
+        }
+        return byTable;
+    }
+
+    private static Map<String, Object> rowsByKey(List<Object[]> rows, int keyColumns, int valueColumn) {
+        Map<String, Object> map = new TreeMap<>();
+        for (Object[] row : rows) {
+            map.put(String.join("/", Arrays.stream(row, 0, keyColumns).map(String::valueOf).toList()), row[valueColumn]);
+        }
+        return map;
+    }
+
+    @Test
+    void flushUpsertsCountsPerVideoUserAndMinute() {
+        service.record("v1", "alice", T0);
+        service.record("v1", "alice", T0.plusSeconds(30));
+        service.record("v1", "bob", T0.plusSeconds(70));
+        service.record("v2", "alice", T0);
+
+        service.flush();
+
+        Map<String, List<Object[]>> upserts = captureUpserts(3);
+        assertEquals(Map.of("v1", 3, "v2", 1), rowsByKey(upserts.get("profanity_rollup_video"), 1, 1));
+        assertEquals(Map.of("v1/alice", 2, "v1/bob", 1, "v2/alice", 1),
+                rowsByKey(upserts.get("profanity_rollup_user"), 2, 2));
+        assertEquals(Map.of(
+                        "v1/" + Timestamp.from(Instant.parse("2025-03-01T12:00:00Z")), 2,
+                        "v1/" + Timestamp.from(Instant.parse("2025-03-01T12:01:00Z")), 1,
+                        "v2/" + Timestamp.from(Instant.parse("2025-03-01T12:00:00Z")), 1),
+                rowsByKey(upserts.get("profanity_rollup_minute"), 2, 2));
+        // Latest hit per user, to the second
+        assertEquals(Map.of("v1/alice", Timestamp.from(T0.plusSeconds(30)), "v1/bob", Timestamp.from(T0.plusSeconds(70)),
+                        "v2/alice", Timestamp.from(T0)),
+                rowsByKey(upserts.get("profanity_rollup_user"), 2, 3));
+        assertEquals(0, service.getPendingVideoCount());
+    }
+
+    @Test
+    void emptyWindowSkipsTheDatabase() {
+        service.flush();
+
+        verifyNoInteractions(jdbcTemplate, transactionTemplate);
+    }
+
+    @Test
+    void failedFlushKeepsCountsForTheNextOne() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(new int[]{1});
+        service.record("v1", "alice", T0);
+        service.flush();
+        service.record("v1", "alice", T0.plusSeconds(5));
+        service.record("v1", "carol", T0.plusSeconds(5));
+
+        service.flush();
+
+        assertEquals(1, meterRegistry.get("profanity.rollup.flush.failures").counter().count());
+        // One failed call, then the three upserts of the merged window
+        Map<String, List<Object[]>> upserts = captureUpserts(4);
+        assertEquals(Map.of("v1/alice", 2, "v1/carol", 1), rowsByKey(upserts.get("profanity_rollup_user"), 2, 2));
+        assertEquals(Map.of("v1", 3), rowsByKey(upserts.get("profanity_rollup_video"), 1, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedTransactionKeepsCountsForTheNextFlush() {
+        Answer<?> runInTransaction = invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(null);
+            return null;
+        };
+        doThrow(new CannotCreateTransactionException("database down"))
+                .doAnswer(runInTransaction)
+                .when(transactionTemplate).executeWithoutResult(any());
+        service.record("v1", "alice", T0);
+        service.flush();
+
+        assertEquals(1, service.getPendingVideoCount());
+        assertEquals(1, meterRegistry.get("profanity.rollup.flush.failures").counter().count());
+        verifyNoInteractions(jdbcTemplate);
+
+        service.flush();
+
+        assertEquals(Map.of("v1", 1), rowsByKey(captureUpserts(3).get("profanity_rollup_video"), 1, 1));
+    }
+}